@@ -0,0 +1,79 @@
+package com.volksys.recur.benchmark;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading a populated budget: the budget for every category, and the totals in category order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BudgetReadBenchmark {
+    @Param({"10", "1000"})
+    private int categories;
+
+    @Param({"100"})
+    private int transactionsPerCategory;
+
+    private Budget budget;
+    private String[] names;
+
+    /**
+     * Populates the budget.
+     */
+    @Setup
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public void setUp() {
+        LocalDate start = SyntheticSchedules.BUDGET_START;
+        budget = new Budget(new LocalDateRange(start, start.plusMonths(1)));
+        names = new String[categories];
+        for (int i = 0; i < categories; i++) {
+            names[i] = "Category " + i;
+            for (int j = 0; j < transactionsPerCategory; j++) {
+                budget.addTransaction(new Transaction("benchmark", j, names[i], start.plusDays(j % 28)));
+            }
+        }
+    }
+
+    /**
+     * Reads the budget for every category.
+     *
+     * @return the sum of the budgets
+     */
+    @Benchmark
+    public long getBudgetFor() {
+        long sum = 0;
+        for (String name : names) {
+            sum += budget.getBudgetFor(name);
+        }
+        return sum;
+    }
+
+    /**
+     * Reads the total of each category in sorted order, as a report does.
+     *
+     * @return the sum of the totals
+     */
+    @Benchmark
+    public long getCategories() {
+        long sum = 0;
+        for (String category : budget.getCategories()) {
+            sum += budget.getTotalFor(category);
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.volksys.recur.benchmark;
+
+import com.volksys.recur.io.LoadResult;
+import com.volksys.recur.io.MappedScheduleLoader;
+import com.volksys.recur.io.ScheduleLoader;
+import com.volksys.recur.io.ScheduleSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time taken to load a schedule file of a given number of rows, by parsing it sequentially, by parsing
+ * it in parallel from a memory mapping, and by restoring it from a snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LoadBenchmark {
+    @Param({"10000", "100000"})
+    private int rows;
+
+    private Path csv;
+    private Path snapshotPath;
+
+    /**
+     * Writes the schedule file and its snapshot.
+     *
+     * @throws IOException if the files cannot be written
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        csv = Files.createTempFile("schedule", ".csv");
+        SyntheticSchedules.writeCsv(csv, rows, rows);
+        snapshotPath = Files.createTempFile("schedule", ".snapshot");
+        ScheduleSnapshot.write(snapshotPath, new ScheduleLoader().load(csv), 0, 0, 0);
+    }
+
+    /**
+     * Deletes the schedule file and its snapshot.
+     *
+     * @throws IOException if the files cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(csv);
+        Files.delete(snapshotPath);
+    }
+
+    /**
+     * Parses the schedule file sequentially.
+     *
+     * @return the load result
+     * @throws IOException if the file cannot be read
+     */
+    @Benchmark
+    public LoadResult scheduleLoader() throws IOException {
+        return new ScheduleLoader().load(csv);
+    }
+
+    /**
+     * Parses the schedule file in parallel from a memory mapping.
+     *
+     * @return the load result
+     * @throws IOException if the file cannot be read
+     */
+    @Benchmark
+    public LoadResult mappedScheduleLoader() throws IOException {
+        return new MappedScheduleLoader().load(csv);
+    }
+
+    /**
+     * Restores the schedule from its snapshot.
+     *
+     * @return the load result
+     * @throws IOException if the snapshot cannot be read
+     */
+    @Benchmark
+    public LoadResult snapshot() throws IOException {
+        return ScheduleSnapshot.open(snapshotPath).read();
+    }
+
+}
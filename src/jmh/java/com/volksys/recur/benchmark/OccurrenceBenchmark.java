@@ -0,0 +1,88 @@
+package com.volksys.recur.benchmark;
+
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.RecurringTransaction;
+import com.volksys.recur.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the expansion of a single recurring transaction that began decades before the budget year into its
+ * occurrences within that year, for each unit of period.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OccurrenceBenchmark {
+    private static final LocalDateRange BUDGET_YEAR = new LocalDateRange(SyntheticSchedules.BUDGET_START,
+            SyntheticSchedules.BUDGET_START.plusYears(1));
+
+    @Param({"P1D", "P1W", "P1M", "P1Y"})
+    private String period;
+
+    @Param({"1970-01-31"})
+    private String start;
+
+    private RecurringTransaction recurringTransaction;
+
+    /**
+     * Creates the recurring transaction.
+     */
+    @Setup
+    public void setUp() {
+        recurringTransaction = new RecurringTransaction("benchmark", 100, "Category", LocalDate.parse(start), null,
+                Period.parse(period));
+    }
+
+    /**
+     * Iterates every occurrence from the first, keeping those within the budget year, as budgets were originally
+     * populated.
+     *
+     * @param blackhole the sink for the occurrences
+     */
+    @Benchmark
+    public void iterator(Blackhole blackhole) {
+        for (Transaction transaction : recurringTransaction) {
+            if (!transaction.getDate().isBefore(BUDGET_YEAR.getEndExclusive())) {
+                break;
+            }
+            if (BUDGET_YEAR.contains(transaction.getDate())) {
+                blackhole.consume(transaction);
+            }
+        }
+    }
+
+    /**
+     * Iterates only the occurrences within the budget year.
+     *
+     * @param blackhole the sink for the occurrences
+     */
+    @Benchmark
+    public void occurrencesIn(Blackhole blackhole) {
+        for (Transaction transaction : recurringTransaction.occurrencesIn(BUDGET_YEAR)) {
+            blackhole.consume(transaction);
+        }
+    }
+
+    /**
+     * Counts the occurrences within the budget year without creating them.
+     *
+     * @return the number of occurrences
+     */
+    @Benchmark
+    public long countOccurrencesIn() {
+        return recurringTransaction.countOccurrencesIn(BUDGET_YEAR);
+    }
+
+}
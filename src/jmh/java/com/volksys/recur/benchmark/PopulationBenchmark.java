@@ -0,0 +1,81 @@
+package com.volksys.recur.benchmark;
+
+import com.volksys.recur.engine.BudgetPopulator;
+import com.volksys.recur.engine.ParallelPopulator;
+import com.volksys.recur.engine.Projection;
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.Granularity;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.RecurringTransaction;
+import com.volksys.recur.model.Retention;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the population of a year of monthly or daily budgets from a given number of recurring transactions,
+ * sequentially as by {@code Application.populateMonthlyBudgets} and in parallel. Daily budgets show the cost of the
+ * partial budgets copied and merged by parallel population.
+ *
+ * <p>Retaining transactions for a million schedules needs a heap of several gigabytes; restrict the parameters with
+ * {@code -p} on smaller machines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PopulationBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int schedules;
+
+    @Param({"TRANSACTIONS", "SCHEDULES", "TOTALS"})
+    private Retention retention;
+
+    @Param({"MONTH", "DAY"})
+    private Granularity granularity;
+
+    private List<RecurringTransaction> recurringTransactions;
+    private Projection projection;
+
+    /**
+     * Generates the recurring transactions.
+     */
+    @Setup
+    public void setUp() {
+        recurringTransactions = SyntheticSchedules.generate(schedules, schedules);
+        projection = new Projection(new LocalDateRange(SyntheticSchedules.BUDGET_START,
+                SyntheticSchedules.BUDGET_START.plusYears(1)), granularity, retention);
+    }
+
+    /**
+     * Populates the budgets on the calling thread.
+     *
+     * @return the budgets
+     */
+    @Benchmark
+    public List<Budget> sequential() {
+        List<Budget> budgets = projection.createBudgets();
+        new BudgetPopulator(budgets).addAll(recurringTransactions);
+        return budgets;
+    }
+
+    /**
+     * Populates the budgets on the common fork-join pool.
+     *
+     * @return the budgets
+     */
+    @Benchmark
+    public List<Budget> parallel() {
+        List<Budget> budgets = projection.createBudgets();
+        new ParallelPopulator().populate(budgets, recurringTransactions);
+        return budgets;
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.volksys.recur.benchmark;
+
+import com.volksys.recur.engine.Projection;
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.Granularity;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.Retention;
+import com.volksys.recur.report.ReportFormat;
+import com.volksys.recur.report.ReportRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering a year of monthly budgets, with every transaction listed, in each report format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReportBenchmark {
+    @Param({"1000"})
+    private int schedules;
+
+    @Param({"TEXT", "CSV", "JSON"})
+    private ReportFormat format;
+
+    private List<Budget> budgets;
+
+    /**
+     * Populates the budgets.
+     */
+    @Setup
+    public void setUp() {
+        budgets = new Projection(new LocalDateRange(SyntheticSchedules.BUDGET_START,
+                SyntheticSchedules.BUDGET_START.plusYears(1)), Granularity.MONTH, Retention.TRANSACTIONS)
+                .project(SyntheticSchedules.generate(schedules, schedules));
+    }
+
+    /**
+     * Renders the report to a buffered writer that discards its output.
+     *
+     * @throws IOException never
+     */
+    @Benchmark
+    public void render() throws IOException {
+        ReportRenderer renderer = format.newRenderer(new BufferedWriter(new DiscardingWriter(), 1 << 16));
+        for (Budget budget : budgets) {
+            renderer.renderPeriod(budget);
+        }
+        renderer.finish();
+    }
+
+    /**
+     * A writer that discards everything written to it.
+     */
+    private static class DiscardingWriter extends Writer {
+        /**
+         * Discards characters.
+         */
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            // Discarded
+        }
+
+        /**
+         * Does nothing.
+         */
+        @Override
+        public void flush() {
+            // Nothing to flush
+        }
+
+        /**
+         * Does nothing.
+         */
+        @Override
+        public void close() {
+            // Nothing to close
+        }
+    }
+
+}
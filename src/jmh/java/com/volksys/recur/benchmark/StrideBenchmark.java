@@ -0,0 +1,80 @@
+package com.volksys.recur.benchmark;
+
+import com.volksys.recur.engine.BudgetPopulator;
+import com.volksys.recur.engine.Projection;
+import com.volksys.recur.engine.StrideEvaluator;
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.Granularity;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.RecurringTransaction;
+import com.volksys.recur.model.Retention;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the population of budgets retaining totals from recurring transactions with periods of days or weeks, one
+ * transaction at a time with a {@link BudgetPopulator} and in bulk with a {@link StrideEvaluator}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StrideBenchmark {
+    @Param({"1000", "100000"})
+    private int schedules;
+
+    @Param({"DAY", "MONTH"})
+    private Granularity granularity;
+
+    private List<RecurringTransaction> recurringTransactions;
+    private Projection projection;
+
+    /**
+     * Generates the recurring transactions, keeping those with a fixed stride.
+     */
+    @Setup
+    public void setUp() {
+        recurringTransactions = new ArrayList<>();
+        for (RecurringTransaction recurringTransaction : SyntheticSchedules.generate(schedules * 2, schedules)) {
+            if (StrideEvaluator.hasFixedStride(recurringTransaction)) {
+                recurringTransactions.add(recurringTransaction);
+            }
+        }
+        projection = new Projection(new LocalDateRange(SyntheticSchedules.BUDGET_START,
+                SyntheticSchedules.BUDGET_START.plusYears(1)), granularity, Retention.TOTALS);
+    }
+
+    /**
+     * Populates the budgets one recurring transaction at a time.
+     *
+     * @return the budgets
+     */
+    @Benchmark
+    public List<Budget> stepping() {
+        List<Budget> budgets = projection.createBudgets();
+        new BudgetPopulator(budgets).addAll(recurringTransactions);
+        return budgets;
+    }
+
+    /**
+     * Populates the budgets in bulk, grouped by stride.
+     *
+     * @return the budgets
+     */
+    @Benchmark
+    public List<Budget> bulk() {
+        List<Budget> budgets = projection.createBudgets();
+        new StrideEvaluator(budgets).addAll(recurringTransactions);
+        return budgets;
+    }
+
+}
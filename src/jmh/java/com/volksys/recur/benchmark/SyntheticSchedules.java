@@ -0,0 +1,125 @@
+package com.volksys.recur.benchmark;
+
+import com.volksys.recur.model.RecurringTransaction;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible schedules for benchmarks, either as recurring transactions or as CSV files.
+ *
+ * <p>The same seed always yields the same schedule. Start dates are spread over several decades before the budget
+ * years benchmarked, a quarter of the schedules end, and periods are drawn from daily, weekly, monthly and yearly
+ * units of one to three.
+ */
+public final class SyntheticSchedules {
+    /**
+     * The first day of the year that benchmarks budget for.
+     */
+    public static final LocalDate BUDGET_START = LocalDate.of(2017, 1, 1);
+
+    private static final String[] UNITS = {"DAYS", "WEEKS", "MONTHS", "YEARS"};
+    private static final LocalDate EARLIEST_START = LocalDate.of(1970, 1, 1);
+    private static final int START_DAYS = 17_000;
+    private static final int CATEGORIES = 40;
+
+    private SyntheticSchedules() {
+    }
+
+    /**
+     * Generates recurring transactions.
+     *
+     * @param count the number of recurring transactions
+     * @param seed the seed determining the schedule
+     * @return the recurring transactions
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public static List<RecurringTransaction> generate(int count, long seed) {
+        Random random = new Random(seed);
+        List<RecurringTransaction> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SyntheticRow row = new SyntheticRow(random, i);
+            list.add(new RecurringTransaction(row.description, row.amount, row.category, row.start, row.end,
+                    row.period()));
+        }
+        return list;
+    }
+
+    /**
+     * Writes a schedule file.
+     *
+     * @param path the file to write
+     * @param rows the number of data rows
+     * @param seed the seed determining the schedule
+     * @throws IOException if the file cannot be written
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public static void writeCsv(Path path, int rows, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("Description,Amount,Start,End,Period,Units,Category,Enabled\n");
+            for (int i = 0; i < rows; i++) {
+                SyntheticRow row = new SyntheticRow(random, i);
+                writer.write("\"" + row.description + "\"," + row.amount / 100 + "." + row.amount % 100 / 10
+                        + row.amount % 10 + "," + row.start + "," + (row.end == null ? "" : row.end) + ","
+                        + row.count + "," + UNITS[row.unit] + "," + row.category + ",TRUE\n");
+            }
+        }
+    }
+
+    /**
+     * The values of one generated recurring transaction.
+     */
+    private static class SyntheticRow {
+        private final String description;
+        private final int amount;
+        private final String category;
+        private final LocalDate start;
+        private final LocalDate end;
+        private final int count;
+        private final int unit;
+
+        /**
+         * Constructor.
+         *
+         * @param random the source of the values
+         * @param index the position of the row
+         */
+        SyntheticRow(Random random, int index) {
+            description = "Item " + index + ", synthetic";
+            amount = random.nextInt(500_000);
+            category = "Category " + random.nextInt(CATEGORIES);
+            start = EARLIEST_START.plusDays(random.nextInt(START_DAYS));
+            end = random.nextInt(4) == 0 ? start.plusYears(1 + random.nextInt(60)) : null;
+            count = 1 + random.nextInt(3);
+            unit = random.nextInt(UNITS.length);
+        }
+
+        /**
+         * The period between occurrences.
+         *
+         * @return the period
+         */
+        public Period period() {
+            switch (unit) {
+                case 0:
+                    return Period.ofDays(count);
+                case 1:
+                    return Period.ofWeeks(count);
+                case 2:
+                    return Period.ofMonths(count);
+                default:
+                    return Period.ofYears(count);
+            }
+        }
+    }
+
+}
@@ -1,166 +1,310 @@
 package com.volksys.recur;
 
+import com.volksys.recur.batch.BatchResult;
+import com.volksys.recur.batch.BatchRunner;
+import com.volksys.recur.engine.BudgetPopulator;
+import com.volksys.recur.engine.IncrementalPopulator;
+import com.volksys.recur.engine.ParallelPopulator;
+import com.volksys.recur.engine.Projection;
+import com.volksys.recur.engine.ScheduleReconciler;
+import com.volksys.recur.io.LoadResult;
+import com.volksys.recur.io.RowError;
+import com.volksys.recur.io.ScheduleLoader;
+import com.volksys.recur.io.SnapshotCache;
+import com.volksys.recur.metrics.Metrics;
+import com.volksys.recur.metrics.Stage;
 import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.Granularity;
 import com.volksys.recur.model.LocalDateRange;
 import com.volksys.recur.model.RecurringTransaction;
-import com.volksys.recur.model.Transaction;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVRecord;
+import com.volksys.recur.model.Retention;
+import com.volksys.recur.report.ReportFormat;
+import com.volksys.recur.report.ReportRenderer;
+import com.volksys.recur.server.BudgetServer;
 
-import java.io.FileReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.Reader;
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.time.LocalDate;
 import java.time.Month;
-import java.time.Period;
-import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import javax.management.JMException;
 
 /**
  * Main application.
  */
-@SuppressWarnings({"PMD.SystemPrintln", "PMD.AvoidPrintStackTrace", "PMD.AvoidCatchingGenericException"})
+@SuppressWarnings({"PMD.SystemPrintln", "PMD.AvoidPrintStackTrace", "PMD.AvoidCatchingGenericException",
+        "PMD.TooManyMethods", "PMD.GodClass", "PMD.AvoidDuplicateLiterals"})
 public class Application {
 
-    private static final String FIELD_DESCRIPTION = "Description";
-    private static final String FIELD_AMOUNT = "Amount";
-    private static final String FIELD_START = "Start";
-    private static final String FIELD_END = "End";
-    private static final String FIELD_PERIOD = "Period";
-    private static final String FIELD_PERIOD_UNITS = "Units";
-    private static final String FIELD_CATEGORY = "Category";
-    private static final String FIELD_ENABLED = "Enabled";
+    private static final String OPTION_TOTALS_ONLY = "--totals-only";
+    private static final String OPTION_LAZY = "--lazy";
+    private static final String OPTION_NO_CACHE = "--no-cache";
+    private static final String OPTION_YEARS = "--years";
+    private static final String OPTION_GRANULARITY = "--granularity";
+    private static final String OPTION_FORMAT = "--format";
+    private static final String OPTION_WATCH = "--watch";
+    private static final String OPTION_METRICS = "--metrics";
+    private static final String OPTION_SERVE = "--serve";
+    private static final String OPTION_BATCH = "--batch";
+    private static final String OPTION_OUTPUT = "--output";
+    private static final String OPTION_WORKERS = "--workers";
+    private static final List<String> OPTIONS = Arrays.asList(OPTION_TOTALS_ONLY, OPTION_LAZY, OPTION_NO_CACHE,
+            OPTION_YEARS, OPTION_GRANULARITY, OPTION_FORMAT, OPTION_WATCH, OPTION_METRICS, OPTION_SERVE, OPTION_BATCH,
+            OPTION_OUTPUT, OPTION_WORKERS);
+    private static final int SERVER_CACHE_CAPACITY = 64;
+    private static final long MAPPED_LOAD_THRESHOLD = 32L << 20;
+    private static final long WATCH_SETTLE_MILLIS = 50;
 
-    private final LocalDateRange budgetYear;
+    private final Projection projection;
     private final String path;
+    private final SnapshotCache cache;
 
     protected Application(int year, String path) {
-        budgetYear = new LocalDateRange(LocalDate.of(year, Month.JANUARY, 1), LocalDate.of(year + 1, Month.JANUARY, 1));
+        this(year, path, Retention.TRANSACTIONS);
+    }
+
+    protected Application(int year, String path, Retention retention) {
+        this(year, path, retention, null);
+    }
+
+    protected Application(int year, String path, Retention retention, SnapshotCache cache) {
+        this(new LocalDateRange(LocalDate.of(year, Month.JANUARY, 1), LocalDate.of(year + 1, Month.JANUARY, 1)),
+                Granularity.MONTH, path, retention, cache);
+    }
+
+    protected Application(LocalDateRange horizon, Granularity granularity, String path, Retention retention,
+            SnapshotCache cache) {
+        this.projection = new Projection(horizon, granularity, retention);
         this.path = path;
+        this.cache = cache;
     }
 
     /**
      * Performs the work.
+     *
+     * @param renderer the renderer of the report
      */
-    private void run() throws IOException {
+    @SuppressWarnings("try")
+    private void run(ReportRenderer renderer) throws IOException {
         List<Budget> budgets = getBudgets();
         List<RecurringTransaction> recurringTransactions = getRecurringTransactions();
-        populateMonthlyBudgets(budgets, recurringTransactions);
-        DateTimeFormatter dtf = DateTimeFormatter.ISO_LOCAL_DATE;
-        NumberFormat nf = new DecimalFormat("$#.00");
-        for (Budget period : budgets) {
-            System.out.println(dtf.format(period.getDateRange().getStartInclusive()) + " - "
-                    + dtf.format(period.getDateRange().getEndExclusive().minus(1, ChronoUnit.DAYS)));
-            System.out.println("=======================");
-            for (String category : period.getCategories()) {
-                System.out.println("  " + category + ": " + nf.format(toCurrency(period.getBudgetFor(category))));
-                System.out.println("  - - - - - - - - - - - - - -");
-                for (Transaction t : period.getTransactionsFor(category)) {
-                    System.out.println("  " + t.getDate() + " " + t.getDescription() + " "
-                            + nf.format(toCurrency(t.getAmount())));
-                }
-                System.out.println();
-                System.out.println();
+        try (Metrics.Timing timing = Metrics.time(Stage.POPULATE)) {
+            new ParallelPopulator().populate(budgets, recurringTransactions);
+        }
+        render(renderer, budgets);
+    }
+
+    @SuppressWarnings("try")
+    private static void render(ReportRenderer renderer, List<Budget> budgets) throws IOException {
+        try (Metrics.Timing timing = Metrics.time(Stage.RENDER)) {
+            for (Budget budget : budgets) {
+                renderer.renderPeriod(budget);
             }
-            System.out.println();
-            System.out.println();
+            renderer.finish();
         }
+        reportMetrics();
     }
 
-    private double toCurrency(int cents) {
-        return (double) cents / 100;
+    /**
+     * Prints a summary of the metrics recorded so far to standard error, if metrics are enabled.
+     */
+    private static void reportMetrics() {
+        if (Metrics.getInstance().isEnabled()) {
+            System.err.print(Metrics.getInstance().getSummary());
+        }
     }
 
     /**
-     * Generates an ordered list of {@link Budget}s covering the entire year.
+     * Reports every period, then watches the schedule file and reports again the periods affected by each change to
+     * it, until interrupted. Each new load of the file is reconciled row by row with the previous one, so only the
+     * recurring transactions that changed are budgeted again.
      *
-     * @return a list of budget periods ready to be populated
+     * @param format the format of the reports
+     * @param out the destination of the reports
      */
-    protected List<Budget> getBudgets() {
-        List<Budget> budgets = new ArrayList<>(12);
-        int year = budgetYear.getStartInclusive().getYear();
-        for (Month month : Month.values()) {
-            budgets.add(createBudget(year, month));
+    private void watch(ReportFormat format, Writer out) throws IOException, InterruptedException {
+        Path file = Paths.get(path).toAbsolutePath();
+        ScheduleReconciler reconciler = new ScheduleReconciler(getBudgets());
+        try (WatchService watcher = file.getFileSystem().newWatchService()) {
+            file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            reconcile(reconciler, getRecurringTransactions());
+            render(format.newRenderer(out), reconciler.getBudgets());
+            while (!Thread.currentThread().isInterrupted()) {
+                if (awaitChange(watcher, file.getFileName())) {
+                    reload(reconciler, format, out);
+                }
+            }
         }
-        return budgets;
     }
 
-    private Budget createBudget(int year, Month month) {
-        LocalDate start = LocalDate.of(year, month, 1);
-        LocalDate end = start.plusMonths(1);
-        return new Budget(new LocalDateRange(start, end));
+    /**
+     * Serves projections of the schedule file over HTTP on the loopback interface until interrupted, using the horizon
+     * and granularity of this application as defaults.
+     *
+     * @param port the port on which to listen
+     */
+    private void serve(int port) throws IOException, InterruptedException {
+        BudgetServer server = new BudgetServer(Paths.get(path), this::loadSchedule, projection.getHorizon(),
+                projection.getGranularity(), SERVER_CACHE_CAPACITY);
+        server.start(new InetSocketAddress("localhost", port));
+        System.err.println("Serving http://localhost:" + server.getAddress().getPort() + BudgetServer.CONTEXT);
+        try {
+            new CountDownLatch(1).await();
+        } finally {
+            server.stop();
+        }
     }
 
     /**
-     * Stub that returns mock data.
+     * Projects every schedule file named by a directory or manifest, reporting each to its own file in an output
+     * directory or, if none is given, reporting the combined budgets of every file. Repeated descriptions are shared
+     * across files. The throughput and any files that could not be processed are reported to standard error.
      *
-     * @return list of recurring transactions
+     * @param format the format of the reports
+     * @param out the destination of the combined report
+     * @param options the options given, of which {@code --output} and {@code --workers} apply
      */
-    protected List<RecurringTransaction> getRecurringTransactions() throws IOException {
-        List<RecurringTransaction> list = new ArrayList<>();
-        Reader in = new FileReader(path);
-        for (CSVRecord record : CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(in)) {
-            boolean enabled = record.get(FIELD_ENABLED).equalsIgnoreCase("true");
-            if (enabled) {
-                addRecurringTransaction(record, list);
+    private void batch(ReportFormat format, Writer out, Map<String, String> options)
+            throws IOException, InterruptedException {
+        ScheduleLoader loader = ScheduleLoader.sharingDescriptions(StandardCharsets.UTF_8);
+        int workers = options.containsKey(OPTION_WORKERS) ? Integer.parseInt(options.get(OPTION_WORKERS))
+                : Runtime.getRuntime().availableProcessors();
+        BatchRunner runner = new BatchRunner(projection, file -> loadSchedule(file, loader), workers);
+        List<Path> files = BatchRunner.schedulesIn(Paths.get(path));
+        BatchResult result;
+        if (options.containsKey(OPTION_OUTPUT)) {
+            Path outputDirectory = Files.createDirectories(Paths.get(options.get(OPTION_OUTPUT)));
+            result = runner.runEach(files, format, outputDirectory);
+        } else {
+            result = runner.rollUp(files);
+            render(format.newRenderer(out), result.getBudgets());
+        }
+        for (Map.Entry<Path, String> failure : result.getFailures().entrySet()) {
+            System.err.println(failure.getKey() + ": " + failure.getValue());
+        }
+        System.err.printf(Locale.ROOT, "%d files in %.3f s (%.1f files/s)%n", result.getFileCount(),
+                result.getElapsedNanos() / 1e9, result.getFilesPerSecond());
+    }
+
+    /**
+     * Waits for events in the directory of the schedule file until none has arrived for a short while, so that a
+     * file written in several steps is loaded once.
+     *
+     * @return {@code true} if any of the events concerned the schedule file
+     */
+    private static boolean awaitChange(WatchService watcher, Path name) throws InterruptedException {
+        boolean changed = false;
+        WatchKey key = watcher.take();
+        while (key != null) {
+            for (WatchEvent<?> event : key.pollEvents()) {
+                changed |= name.equals(event.context());
             }
+            key.reset();
+            key = watcher.poll(WATCH_SETTLE_MILLIS, TimeUnit.MILLISECONDS);
         }
-        return list;
+        return changed;
     }
 
-    private void addRecurringTransaction(CSVRecord record, List<RecurringTransaction> list) {
-        String description = record.get(FIELD_DESCRIPTION);
-        if (description != null) {
-            description = description.trim();
+    private void reload(ScheduleReconciler reconciler, ReportFormat format, Writer out) throws IOException {
+        List<RecurringTransaction> recurringTransactions;
+        try {
+            recurringTransactions = getRecurringTransactions();
+        } catch (IOException ioException) {
+            System.err.println(path + ": " + ioException.getMessage());
+            return;
         }
-        int amount = (int) Math.round(100 * Double.parseDouble(record.get(FIELD_AMOUNT)));
-        LocalDate start = LocalDate.from(DateTimeFormatter.ISO_LOCAL_DATE.parse(record.get(FIELD_START)));
-        String endString = record.get(FIELD_END);
-        LocalDate end = null;
-        if (endString != null && !endString.trim().isEmpty()) {
-            end = LocalDate.from(DateTimeFormatter.ISO_LOCAL_DATE.parse(record.get(FIELD_END)));
+        render(format.newRenderer(out), reconcile(reconciler, recurringTransactions));
+    }
+
+    @SuppressWarnings("try")
+    private static List<Budget> reconcile(ScheduleReconciler reconciler,
+            List<RecurringTransaction> recurringTransactions) {
+        try (Metrics.Timing timing = Metrics.time(Stage.POPULATE)) {
+            return reconciler.reconcile(recurringTransactions);
         }
-        int period = Integer.parseInt(record.get(FIELD_PERIOD));
-        ChronoUnit units = ChronoUnit.valueOf(record.get(FIELD_PERIOD_UNITS));
-        String category = record.get(FIELD_CATEGORY);
+    }
+
+    /**
+     * Generates an ordered list of {@link Budget}s covering the projection horizon, one per period of its granularity.
+     *
+     * @return a list of budget periods ready to be populated
+     */
+    protected List<Budget> getBudgets() {
+        return projection.createBudgets();
+    }
 
-        RecurringTransaction recurringTransaction = new RecurringTransaction(description, amount, category,
-                start, end, getPeriod(period, units));
+    /**
+     * Loads the enabled recurring transactions from the schedule file, reporting any rows that could not be loaded.
+     * Files larger than a few tens of megabytes are mapped into memory and parsed in parallel. When a snapshot cache
+     * is in use, an unchanged file is restored from its snapshot instead of being parsed.
+     *
+     * @return list of recurring transactions
+     */
+    protected List<RecurringTransaction> getRecurringTransactions() throws IOException {
+        return loadSchedule(Paths.get(path)).getRecurringTransactions();
+    }
 
-        list.add(recurringTransaction);
+    private LoadResult loadSchedule(Path file) throws IOException {
+        return loadSchedule(file, new ScheduleLoader());
     }
 
-    private Period getPeriod(int period, ChronoUnit units) {
-        switch (units) {
-            case DAYS:
-                return Period.ofDays(period);
-            case WEEKS:
-                return Period.ofWeeks(period);
-            case MONTHS:
-                return Period.ofMonths(period);
-            case YEARS:
-                return Period.ofYears(period);
-            default:
-                throw new IllegalArgumentException("Unsupported unit of time: " + units);
+    @SuppressWarnings("try")
+    private LoadResult loadSchedule(Path file, ScheduleLoader loader) throws IOException {
+        LoadResult result;
+        try (Metrics.Timing timing = Metrics.time(Stage.LOAD)) {
+            result = cache == null ? load(file, loader)
+                    : cache.load(file, (uncached, crc) -> load(uncached, loader, crc));
         }
+        for (RowError error : result.getErrors()) {
+            System.err.println(file + ": " + error);
+        }
+        return result;
+    }
+
+    private static LoadResult load(Path file, ScheduleLoader loader) throws IOException {
+        if (Files.size(file) > MAPPED_LOAD_THRESHOLD) {
+            return loader.mapped(ForkJoinPool.commonPool()).load(file);
+        }
+        return loader.load(file);
+    }
+
+    private static LoadResult load(Path file, ScheduleLoader loader, CRC32 crc) throws IOException {
+        if (Files.size(file) > MAPPED_LOAD_THRESHOLD) {
+            return loader.mapped(ForkJoinPool.commonPool()).load(file, crc);
+        }
+        return loader.load(file, crc);
     }
 
     /**
      * Updates a budget to include a given list of recurring transactions. Note that if these transactions have already
      * been included in the budget, they will be added again and will not replace or update the previously included
-     * transactions.
+     * transactions; use an {@link IncrementalPopulator} to update or remove them.
      *
      * @param budgets the budget to update
      * @param recurringTransactions the transactions to include in the budget
      */
     protected void populateMonthlyBudgets(List<Budget> budgets, List<RecurringTransaction> recurringTransactions) {
-        for (RecurringTransaction recurringTransaction : recurringTransactions) {
-            populateMonthlyBudgets(budgets, recurringTransaction);
-        }
+        new BudgetPopulator(budgets).addAll(recurringTransactions);
     }
 
     /**
@@ -172,38 +316,102 @@ public class Application {
      * @param recurringTransaction the transaction to include in the budget
      */
     protected void populateMonthlyBudgets(List<Budget> budgets, RecurringTransaction recurringTransaction) {
-        for (Transaction transaction : recurringTransaction) {
-            if (transaction.getDate().isBefore(budgetYear.getStartInclusive())) {
-                continue;
-            }
-            if (!transaction.getDate().isBefore(budgetYear.getEndExclusive())) {
-                break;
-            }
-            for (Budget budget : budgets) {
-                budget.addTransaction(transaction);
-            }
-        }
+        new BudgetPopulator(budgets).add(recurringTransaction);
     }
 
     /**
      * Main entry point.
      *
-     * @param args ignored... for now.
+     * @param args the four-digit year and the path to the CSV file, optionally followed by {@code --totals-only},
+     *             {@code --lazy}, {@code --no-cache}, {@code --years=N},
+     *             {@code --granularity=day|week|month|quarter|year}, {@code --format=text|csv|json},
+     *             {@code --watch}, {@code --metrics}, {@code --serve=PORT}, and {@code --batch} with
+     *             {@code --output=DIR} and {@code --workers=N}, in which case the path is that of a directory of CSV
+     *             files or of a manifest listing them. Unless {@code --no-cache} is given, a snapshot of each schedule
+     *             file loaded is saved in {@code .recur/cache} under the user's home directory; if it cannot be saved,
+     *             the run continues without it
      */
     public static void main(String... args) {
         try {
-            int year = Integer.parseInt(args[0]);
-            String path = args[1];
-            Application application = new Application(year, path);
+            Map<String, String> options = parseOptions(Arrays.asList(args).subList(2, args.length));
+            Application application = fromArguments(args, options);
+            if (options.containsKey(OPTION_METRICS)) {
+                enableMetrics();
+            }
+            ReportFormat format = ReportFormat.valueOf(options.getOrDefault(OPTION_FORMAT, "text")
+                    .toUpperCase(Locale.ROOT));
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
             try {
-                application.run();
+                if (options.containsKey(OPTION_BATCH)) {
+                    application.batch(format, out, options);
+                } else if (options.containsKey(OPTION_SERVE)) {
+                    application.serve(Integer.parseInt(options.get(OPTION_SERVE)));
+                } else if (options.containsKey(OPTION_WATCH)) {
+                    application.watch(format, out);
+                } else {
+                    application.run(format.newRenderer(out));
+                }
             } catch (IOException ioException) {
+                out.flush();
                 ioException.printStackTrace();
+            } catch (InterruptedException interruptedException) {
+                out.flush();
+                Thread.currentThread().interrupt();
             }
 
         } catch (Exception ignored) {
-            System.out.println("Invoke with the four-digit year and path to CSV file as arguments, in that order");
+            System.out.println("Invoke with the four-digit year and path to CSV file as arguments, in that order, "
+                    + "optionally followed by any of " + OPTIONS);
+        }
+    }
+
+    /**
+     * Starts recording metrics, and exposes them over JMX if possible.
+     */
+    private static void enableMetrics() {
+        Metrics.setEnabled(true);
+        try {
+            Metrics.register();
+        } catch (JMException jmException) {
+            System.err.println("Metrics are not available over JMX: " + jmException.getMessage());
+        }
+    }
+
+    private static Application fromArguments(String[] args, Map<String, String> options) {
+        LocalDate start = LocalDate.of(Integer.parseInt(args[0]), Month.JANUARY, 1);
+        LocalDateRange horizon = new LocalDateRange(start,
+                start.plusYears(Integer.parseInt(options.getOrDefault(OPTION_YEARS, "1"))));
+        Granularity granularity = Granularity.valueOf(options.getOrDefault(OPTION_GRANULARITY, "month")
+                .toUpperCase(Locale.ROOT));
+        Retention retention = Retention.TRANSACTIONS;
+        if (options.containsKey(OPTION_TOTALS_ONLY)) {
+            retention = Retention.TOTALS;
+        } else if (options.containsKey(OPTION_LAZY)) {
+            retention = Retention.SCHEDULES;
+        }
+        if (options.containsKey(OPTION_NO_CACHE)) {
+            return new Application(horizon, granularity, args[1], retention, null);
+        }
+        return new Application(horizon, granularity, args[1], retention,
+                new SnapshotCache(Paths.get(System.getProperty("user.home"), ".recur", "cache")));
+    }
+
+    /**
+     * Parses options of the form {@code --name} or {@code --name=value}.
+     *
+     * @return the value of each option given, which is empty for options without one
+     */
+    private static Map<String, String> parseOptions(List<String> arguments) {
+        Map<String, String> options = new HashMap<>();
+        for (String argument : arguments) {
+            int separator = argument.indexOf('=');
+            String name = separator < 0 ? argument : argument.substring(0, separator);
+            if (!OPTIONS.contains(name)) {
+                throw new IllegalArgumentException("Unknown option: " + argument);
+            }
+            options.put(name, separator < 0 ? "" : argument.substring(separator + 1));
         }
+        return options;
     }
 
 }
@@ -0,0 +1,80 @@
+package com.volksys.recur.batch;
+
+import com.volksys.recur.model.Budget;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of processing a batch of schedule files.
+ */
+public class BatchResult {
+    private final int fileCount;
+    private final Map<Path, String> failures;
+    private final long elapsedNanos;
+    private final List<Budget> budgets;
+
+    /**
+     * Constructor.
+     *
+     * @param fileCount the number of files processed, including those that failed
+     * @param failures the reason each failed file could not be processed, in the order of the batch
+     * @param elapsedNanos the time taken to process the batch
+     * @param budgets the combined budgets of the batch, or an empty list if none were combined
+     */
+    public BatchResult(int fileCount, Map<Path, String> failures, long elapsedNanos, List<Budget> budgets) {
+        this.fileCount = fileCount;
+        this.failures = Collections.unmodifiableMap(failures);
+        this.elapsedNanos = elapsedNanos;
+        this.budgets = Collections.unmodifiableList(budgets);
+    }
+
+    /**
+     * The number of files processed.
+     *
+     * @return the number of files in the batch, including those that failed
+     */
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * The files that could not be processed.
+     *
+     * @return the reason each failed file could not be processed, keyed by its location, in the order of the batch
+     */
+    public Map<Path, String> getFailures() {
+        return failures;
+    }
+
+    /**
+     * The time taken to process the batch.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * The throughput of the batch.
+     *
+     * @return the number of files processed per second of elapsed time
+     */
+    public double getFilesPerSecond() {
+        return elapsedNanos == 0 ? 0 : fileCount * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * The combined budgets of the batch.
+     *
+     * @return the budgets into which every file that did not fail was merged, one per period of the projection, or an
+     *         empty list if the files were reported separately
+     */
+    public List<Budget> getBudgets() {
+        return budgets;
+    }
+
+}
@@ -0,0 +1,224 @@
+package com.volksys.recur.batch;
+
+import com.volksys.recur.engine.BudgetPopulator;
+import com.volksys.recur.engine.Projection;
+import com.volksys.recur.io.SnapshotCache;
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.PeriodIndex;
+import com.volksys.recur.report.ReportFormat;
+import com.volksys.recur.report.ReportRenderer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Projects many schedule files at once, either reporting each separately or combining them into a single roll-up.
+ *
+ * <p>Files are processed concurrently on a fixed number of worker threads, each file being loaded and populated
+ * sequentially into its own budgets by a single worker. The index of the periods of the projection is shared by every
+ * file, as is whatever the source of the files shares, such as the descriptions interned by a loader created via
+ * {@link com.volksys.recur.io.ScheduleLoader#sharingDescriptions}. A file that cannot be processed is recorded in the
+ * {@link BatchResult} and does not stop the others. Roll-ups are merged in the order of the batch, so their result
+ * does not depend on which worker finished first. Only a few files per worker are started ahead of the next one to be
+ * merged, and each file's budgets are dropped once merged, so the memory used does not grow with the size of the
+ * batch.
+ */
+public class BatchRunner {
+    private static final String SCHEDULE_GLOB = "*.csv";
+    private static final int FILES_AHEAD_PER_WORKER = 2;
+
+    private final Projection projection;
+    private final SnapshotCache.Source source;
+    private final int workers;
+    private final PeriodIndex index;
+
+    /**
+     * Constructor.
+     *
+     * @param projection the periods over which to project each file
+     * @param source the means of loading each file, which is called from concurrent threads
+     * @param workers (positive) the number of files to process at once
+     */
+    public BatchRunner(Projection projection, SnapshotCache.Source source, int workers) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("The number of workers must be positive");
+        }
+        this.projection = projection;
+        this.source = source;
+        this.workers = workers;
+        this.index = BudgetPopulator.indexOf(projection.createBudgets());
+    }
+
+    /**
+     * Lists the schedule files named by a directory or a manifest. The schedule files of a directory are those whose
+     * names end with {@code .csv}, in order of name. A manifest lists one file per line, relative to the directory of
+     * the manifest unless absolute; blank lines and lines beginning with {@code #} are ignored.
+     *
+     * @param directoryOrManifest the location of a directory of schedule files, or of a manifest
+     * @return the locations of the schedule files
+     * @throws IOException if the directory or manifest cannot be read
+     */
+    public static List<Path> schedulesIn(Path directoryOrManifest) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(directoryOrManifest)) {
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directoryOrManifest, SCHEDULE_GLOB)) {
+                for (Path entry : entries) {
+                    files.add(entry);
+                }
+            }
+            Collections.sort(files);
+            return files;
+        }
+        Path base = directoryOrManifest.toAbsolutePath().getParent();
+        for (String line : Files.readAllLines(directoryOrManifest, StandardCharsets.UTF_8)) {
+            String name = line.trim();
+            if (!name.isEmpty() && name.charAt(0) != '#') {
+                files.add(base.resolve(name));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Projects each file and writes its report to a file of the same name, with the extension of the format, in a
+     * given directory.
+     *
+     * @param files the locations of the schedule files
+     * @param format the format of the reports
+     * @param outputDirectory the directory in which to write the reports, which must exist
+     * @return the outcome of the batch, without combined budgets
+     * @throws IllegalArgumentException if two files would be reported to the same location, or a report would
+     *         replace the schedule file from which it is projected
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public BatchResult runEach(List<Path> files, ReportFormat format, Path outputDirectory)
+            throws InterruptedException {
+        List<Path> outputs = outputsFor(files, format, outputDirectory);
+        long startNanos = System.nanoTime();
+        List<Callable<Void>> tasks = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            Path output = outputs.get(i);
+            tasks.add(() -> {
+                report(populate(file), format, output);
+                return null;
+            });
+        }
+        Map<Path, String> failures = new LinkedHashMap<>();
+        run(files, tasks, failures, ignored -> { });
+        return new BatchResult(files.size(), failures, System.nanoTime() - startNanos, Collections.emptyList());
+    }
+
+    /**
+     * Projects each file and combines them into a single set of budgets.
+     *
+     * @param files the locations of the schedule files
+     * @return the outcome of the batch, with the combined budgets of every file that did not fail
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public BatchResult rollUp(List<Path> files) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        List<Callable<List<Budget>>> tasks = new ArrayList<>(files.size());
+        for (Path file : files) {
+            tasks.add(() -> populate(file));
+        }
+        Map<Path, String> failures = new LinkedHashMap<>();
+        List<Budget> combined = projection.createBudgets();
+        run(files, tasks, failures, budgets -> {
+            for (int i = 0; i < combined.size(); i++) {
+                combined.get(i).merge(budgets.get(i));
+            }
+        });
+        return new BatchResult(files.size(), failures, System.nanoTime() - startNanos, combined);
+    }
+
+    private List<Budget> populate(Path file) throws IOException {
+        List<Budget> budgets = projection.createBudgets();
+        new BudgetPopulator(budgets, index).addAll(source.load(file).getRecurringTransactions());
+        return budgets;
+    }
+
+    private static void report(List<Budget> budgets, ReportFormat format, Path output) throws IOException {
+        try (Writer out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            ReportRenderer renderer = format.newRenderer(out);
+            for (Budget budget : budgets) {
+                renderer.renderPeriod(budget);
+            }
+            renderer.finish();
+        }
+    }
+
+    /**
+     * The location of the report of each file, checked for collisions before any work is done.
+     */
+    private static List<Path> outputsFor(List<Path> files, ReportFormat format, Path outputDirectory) {
+        List<Path> outputs = new ArrayList<>(files.size());
+        Set<Path> seen = new HashSet<>();
+        Set<Path> inputs = new HashSet<>();
+        for (Path file : files) {
+            inputs.add(file.toAbsolutePath().normalize());
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            String stem = dot > 0 ? name.substring(0, dot) : name;
+            Path output = outputDirectory.resolve(stem + '.' + format.getFileExtension());
+            Path normalized = output.toAbsolutePath().normalize();
+            if (!seen.add(normalized)) {
+                throw new IllegalArgumentException("More than one report would be written to " + output);
+            }
+            if (inputs.contains(normalized)) {
+                throw new IllegalArgumentException("The report of " + file + " would replace a schedule file");
+            }
+            outputs.add(output);
+        }
+        return outputs;
+    }
+
+    /**
+     * Runs a task per file on a pool of workers, passing the result of each task that succeeds to a consumer in the
+     * order of {@code files} and recording the failure of each task that fails. Tasks are submitted only a few per
+     * worker ahead of the result being consumed, so that few results are held at once.
+     */
+    private <T> void run(List<Path> files, List<Callable<T>> tasks, Map<Path, String> failures, Consumer<T> consumer)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(workers, tasks.size())));
+        try {
+            int ahead = workers * FILES_AHEAD_PER_WORKER;
+            Deque<Future<T>> pending = new ArrayDeque<>(ahead);
+            int submitted = 0;
+            for (int i = 0; i < tasks.size(); i++) {
+                for (; submitted < tasks.size() && submitted - i < ahead; submitted++) {
+                    pending.add(executor.submit(tasks.get(submitted)));
+                }
+                try {
+                    consumer.accept(pending.remove().get());
+                } catch (ExecutionException exception) {
+                    failures.put(files.get(i), String.valueOf(exception.getCause().getMessage()));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
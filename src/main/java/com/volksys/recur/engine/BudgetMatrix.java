@@ -0,0 +1,489 @@
+package com.volksys.recur.engine;
+
+import com.volksys.recur.metrics.Counter;
+import com.volksys.recur.metrics.Metrics;
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.RecurringTransaction;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+/**
+ * Accumulates the totals of a projection in a memory-mapped file rather than in {@link Budget}s, for projections with
+ * more periods and categories than fit comfortably on the heap.
+ *
+ * <p>The matrix holds a cell for each period and category, recording the total (in cents) and number of the
+ * occurrences budgeted there. Cells are stored off the heap in tiles covering 256 consecutive periods of one category,
+ * and a tile is allocated only when an occurrence first falls within it, so categories occurring in few periods take
+ * little space and categories that never occur take none. Only the period boundaries and the directory of tiles of
+ * each category are kept on the heap, which is some thousands of times smaller than the cells themselves.
+ *
+ * <p>The file begins with a header, followed by the tiles and then the directory, which is written by
+ * {@link #flush()} and {@link #close()}. A matrix written this way may be {@linkplain #open(Path) reopened}, queried
+ * and added to again. A matrix is not safe for use by concurrent threads.
+ */
+@SuppressWarnings({"PMD.GodClass", "PMD.TooManyMethods"})
+public final class BudgetMatrix implements Closeable {
+    private static final int MAGIC = 0x52434D58;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int CELL_BYTES = 16;
+    private static final int TILE_PERIODS = 256;
+    private static final int TILE_BYTES = TILE_PERIODS * CELL_BYTES;
+    private static final int SEGMENT_SHIFT = 24;
+    private static final int TILES_PER_SEGMENT = (1 << SEGMENT_SHIFT) / TILE_BYTES;
+    private static final int NO_TILE = -1;
+
+    private final FileChannel channel;
+    private final long[] boundaries;
+    private final int tilesPerCategory;
+    private final List<String> categories = new ArrayList<>();
+    private final List<int[]> tiles = new ArrayList<>();
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final LocalDateRange[] periods;
+    private int tileCount;
+
+    @SuppressWarnings({"PMD.UseVarargs", "PMD.ArrayIsStoredDirectly", "PMD.AvoidInstantiatingObjectsInLoops"})
+    private BudgetMatrix(FileChannel channel, long[] boundaries) {
+        this.channel = channel;
+        this.boundaries = boundaries;
+        this.tilesPerCategory = (boundaries.length - 2) / TILE_PERIODS + 1;
+        this.periods = new LocalDateRange[boundaries.length - 1];
+        for (int i = 0; i < periods.length; i++) {
+            periods[i] = new LocalDateRange(LocalDate.ofEpochDay(boundaries[i]),
+                    LocalDate.ofEpochDay(boundaries[i + 1]));
+        }
+    }
+
+    /**
+     * Creates an empty matrix for the periods of a projection, replacing any file at the given location.
+     *
+     * @param path the file in which to keep the matrix
+     * @param projection the periods of the matrix
+     * @return the matrix, which should be closed when no longer needed
+     * @throws IOException if the file cannot be created
+     */
+    public static BudgetMatrix create(Path path, Projection projection) throws IOException {
+        List<Long> starts = new ArrayList<>();
+        LocalDate end = projection.getHorizon().getEndExclusive();
+        LocalDate start = projection.getHorizon().getStartInclusive();
+        LocalDate next = projection.getGranularity().next(projection.getGranularity().startOf(start));
+        while (start.isBefore(end)) {
+            starts.add(start.toEpochDay());
+            start = next;
+            next = projection.getGranularity().next(next);
+        }
+        long[] boundaries = new long[starts.size() + 1];
+        for (int i = 0; i < starts.size(); i++) {
+            boundaries[i] = starts.get(i);
+        }
+        boundaries[starts.size()] = end.toEpochDay();
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        BudgetMatrix matrix = new BudgetMatrix(channel, boundaries);
+        matrix.flush();
+        return matrix;
+    }
+
+    /**
+     * Opens a matrix previously written to a file, which may then be queried and added to.
+     *
+     * @param path the file in which the matrix is kept
+     * @return the matrix, which should be closed when no longer needed
+     * @throws IOException if the file cannot be read or does not hold a matrix of a supported version
+     */
+    public static BudgetMatrix open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = read(channel, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a budget matrix: " + path);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported budget matrix version " + version + ": " + path);
+            }
+            int periodCount = header.getInt();
+            final int tileCount = header.getInt();
+            long directoryOffset = header.getLong();
+            int directoryLength = header.getInt();
+            ByteBuffer directory = read(channel, directoryOffset, directoryLength);
+            long[] boundaries = new long[periodCount + 1];
+            directory.asLongBuffer().get(boundaries);
+            directory.position(boundaries.length * Long.BYTES);
+            BudgetMatrix matrix = new BudgetMatrix(channel, boundaries);
+            matrix.readCategories(directory);
+            matrix.tileCount = tileCount;
+            return matrix;
+        } catch (BufferUnderflowException | IllegalArgumentException exception) {
+            channel.close();
+            throw new IOException("Corrupt budget matrix: " + path, exception);
+        } catch (IOException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Truncated budget matrix");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    @SuppressWarnings({"PMD.AvoidInstantiatingObjectsInLoops", "PMD.UseVarargs"})
+    private void readCategories(ByteBuffer directory) {
+        int count = directory.getInt();
+        for (int i = 0; i < count; i++) {
+            byte[] name = new byte[directory.getInt()];
+            directory.get(name);
+            int[] categoryTiles = new int[tilesPerCategory];
+            directory.asIntBuffer().get(categoryTiles);
+            directory.position(directory.position() + tilesPerCategory * Integer.BYTES);
+            addCategory(new String(name, StandardCharsets.UTF_8), categoryTiles);
+        }
+    }
+
+    @SuppressWarnings("PMD.UseVarargs")
+    private int addCategory(String category, int[] categoryTiles) {
+        int id = categories.size();
+        categories.add(category);
+        tiles.add(categoryTiles);
+        categoryIds.put(category, id);
+        return id;
+    }
+
+    /**
+     * Writes the directory of the matrix and forces its contents to the storage device, so that the file may be
+     * reopened.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void flush() throws IOException {
+        List<byte[]> names = new ArrayList<>(categories.size());
+        int directoryLength = boundaries.length * Long.BYTES + Integer.BYTES;
+        for (String category : categories) {
+            byte[] name = category.getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            directoryLength += Integer.BYTES + name.length + tilesPerCategory * Integer.BYTES;
+        }
+        ByteBuffer directory = ByteBuffer.allocate(directoryLength);
+        for (long boundary : boundaries) {
+            directory.putLong(boundary);
+        }
+        directory.putInt(categories.size());
+        for (int i = 0; i < names.size(); i++) {
+            directory.putInt(names.get(i).length).put(names.get(i));
+            for (int tile : tiles.get(i)) {
+                directory.putInt(tile);
+            }
+        }
+        directory.flip();
+        long directoryOffset = HEADER_BYTES + (long) tileCount * TILE_BYTES;
+        write(directory, directoryOffset);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(periods.length).putInt(tileCount).putLong(directoryOffset)
+                .putInt(directoryLength);
+        header.clear();
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        write(header, 0);
+        channel.force(true);
+    }
+
+    private void write(ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+    }
+
+    /**
+     * Flushes the matrix and closes its file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            segments.clear();
+            channel.close();
+        }
+    }
+
+    /**
+     * Adds the occurrences of a recurring transaction to the matrix. If the transaction has already been added, its
+     * occurrences will be added again. As with a {@link BudgetPopulator}, a transaction that occurs in fewer periods
+     * than the matrix has is added occurrence by occurrence, and any other by counting its occurrences in each period.
+     *
+     * @param recurringTransaction the transaction to add
+     * @throws ArithmeticException if a total would overflow a {@code long}
+     * @throws IOException if the file cannot be extended to hold a new tile
+     */
+    public void add(RecurringTransaction recurringTransaction) throws IOException {
+        int category = categoryIdOf(recurringTransaction.getCategory());
+        long amount = recurringTransaction.getAmount();
+        LocalDateRange span = getSpan();
+        long occurrences = recurringTransaction.countOccurrencesIn(span);
+        if (occurrences < periods.length) {
+            LongStream.Builder days = LongStream.builder();
+            recurringTransaction.forEachOccurrenceIn(span, days);
+            int current = -1;
+            long count = 0;
+            for (long day : days.build().toArray()) {
+                int period = periodOf(day);
+                if (period != current) {
+                    addToCell(category, current, amount, count);
+                    current = period;
+                    count = 0;
+                }
+                count++;
+            }
+            addToCell(category, current, amount, count);
+        } else {
+            for (int period = 0; period < periods.length; period++) {
+                addToCell(category, period, amount, recurringTransaction.countOccurrencesIn(periods[period]));
+            }
+        }
+        Metrics.count(Counter.OCCURRENCES_ADDED, occurrences);
+    }
+
+    /**
+     * Adds the occurrences of several recurring transactions to the matrix, in order.
+     *
+     * @param recurringTransactions the transactions to add
+     * @throws ArithmeticException if a total would overflow a {@code long}
+     * @throws IOException if the file cannot be extended to hold a new tile
+     */
+    public void addAll(List<RecurringTransaction> recurringTransactions) throws IOException {
+        for (RecurringTransaction recurringTransaction : recurringTransactions) {
+            add(recurringTransaction);
+        }
+    }
+
+    private int categoryIdOf(String category) {
+        Integer id = categoryIds.get(category);
+        if (id != null) {
+            return id;
+        }
+        int[] categoryTiles = new int[tilesPerCategory];
+        Arrays.fill(categoryTiles, NO_TILE);
+        return addCategory(category, categoryTiles);
+    }
+
+    private void addToCell(int category, int period, long amount, long count) throws IOException {
+        if (period < 0 || count == 0) {
+            return;
+        }
+        int[] categoryTiles = tiles.get(category);
+        int tileIndex = period / TILE_PERIODS;
+        if (categoryTiles[tileIndex] == NO_TILE) {
+            categoryTiles[tileIndex] = allocateTile();
+        }
+        int tile = categoryTiles[tileIndex];
+        ByteBuffer segment = segment(tile / TILES_PER_SEGMENT);
+        int offset = (tile % TILES_PER_SEGMENT) * TILE_BYTES + (period % TILE_PERIODS) * CELL_BYTES;
+        segment.putLong(offset, Math.addExact(segment.getLong(offset), Math.multiplyExact(amount, count)));
+        segment.putLong(offset + Long.BYTES, segment.getLong(offset + Long.BYTES) + count);
+    }
+
+    /**
+     * Allocates a tile at the end of those in use, clearing whatever an earlier directory left there.
+     */
+    private int allocateTile() throws IOException {
+        int tile = tileCount++;
+        ByteBuffer segment = segment(tile / TILES_PER_SEGMENT);
+        int start = (tile % TILES_PER_SEGMENT) * TILE_BYTES;
+        for (int offset = start; offset < start + TILE_BYTES; offset += Long.BYTES) {
+            segment.putLong(offset, 0);
+        }
+        return tile;
+    }
+
+    /**
+     * The mapping of a segment of tiles, mapping it, and so extending the file, when first needed.
+     */
+    private ByteBuffer segment(int index) throws IOException {
+        while (segments.size() <= index) {
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_BYTES + ((long) segments.size() << SEGMENT_SHIFT), 1 << SEGMENT_SHIFT));
+        }
+        return segments.get(index);
+    }
+
+    /**
+     * The number of periods in the matrix.
+     *
+     * @return the number of periods
+     */
+    public int getPeriodCount() {
+        return periods.length;
+    }
+
+    /**
+     * The dates of a period of the matrix.
+     *
+     * @param period the position of the period, in chronological order
+     * @return the dates of the period
+     */
+    public LocalDateRange getPeriod(int period) {
+        return periods[period];
+    }
+
+    /**
+     * The dates covered by the matrix.
+     *
+     * @return the dates from the start of the first period to the end of the last
+     */
+    public LocalDateRange getSpan() {
+        return new LocalDateRange(periods[0].getStartInclusive(), periods[periods.length - 1].getEndExclusive());
+    }
+
+    /**
+     * Locates the period containing a given date.
+     *
+     * @param date the date to locate
+     * @return the position of the containing period, or {@code -1} if the date is outside the matrix
+     */
+    public int indexOf(LocalDate date) {
+        return periodOf(date.toEpochDay());
+    }
+
+    private int periodOf(long epochDay) {
+        if (epochDay < boundaries[0] || epochDay >= boundaries[periods.length]) {
+            return -1;
+        }
+        int slot = Arrays.binarySearch(boundaries, epochDay);
+        return slot >= 0 ? slot : -slot - 2;
+    }
+
+    /**
+     * The categories to which transactions have been added.
+     *
+     * @return an unmodifiable list of the categories, in the order in which they were first added
+     */
+    public List<String> getCategories() {
+        return Collections.unmodifiableList(categories);
+    }
+
+    /**
+     * The amount budgeted for a given category in a given period.
+     *
+     * @param period the position of the period, in chronological order
+     * @param category the budget category of interest
+     * @return the sum of the amounts of the occurrences in the period (in cents)
+     * @throws IOException if the file cannot be read
+     */
+    public long getTotalFor(int period, String category) throws IOException {
+        return cell(period, category, 0);
+    }
+
+    /**
+     * The amount budgeted for a given category over a range of periods. The range may extend beyond the periods of
+     * the matrix but must not begin or end part way through a period.
+     *
+     * @param category the budget category of interest
+     * @param range the dates of the periods to total
+     * @return the sum of the amounts of the occurrences in the periods within {@code range} (in cents)
+     * @throws IllegalArgumentException if {@code range} begins or ends part way through a period
+     * @throws ArithmeticException if the total would overflow a {@code long}
+     * @throws IOException if the file cannot be read
+     */
+    public long getTotalFor(String category, LocalDateRange range) throws IOException {
+        int from = boundaryOf(range.getStartInclusive());
+        int to = boundaryOf(range.getEndExclusive());
+        Integer id = categoryIds.get(category);
+        return id == null ? 0 : sumTotals(tiles.get(id), from, to);
+    }
+
+    /**
+     * Sums the totals of a range of periods of one category, tile by tile.
+     */
+    private long sumTotals(int[] categoryTiles, int from, int to) throws IOException {
+        long total = 0;
+        for (int first = from; first < to; first = (first / TILE_PERIODS + 1) * TILE_PERIODS) {
+            int tile = categoryTiles[first / TILE_PERIODS];
+            if (tile != NO_TILE) {
+                int last = Math.min(to, (first / TILE_PERIODS + 1) * TILE_PERIODS);
+                ByteBuffer segment = segment(tile / TILES_PER_SEGMENT);
+                int offset = (tile % TILES_PER_SEGMENT) * TILE_BYTES;
+                for (int period = first; period < last; period++) {
+                    total = Math.addExact(total, segment.getLong(offset + (period % TILE_PERIODS) * CELL_BYTES));
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * The number of occurrences budgeted for a given category in a given period.
+     *
+     * @param period the position of the period, in chronological order
+     * @param category the budget category of interest
+     * @return the number of occurrences in the period
+     * @throws IOException if the file cannot be read
+     */
+    public long getCountFor(int period, String category) throws IOException {
+        return cell(period, category, Long.BYTES);
+    }
+
+    private long cell(int period, String category, int field) throws IOException {
+        if (period < 0 || period >= periods.length) {
+            throw new IndexOutOfBoundsException("No period " + period);
+        }
+        Integer id = categoryIds.get(category);
+        if (id == null) {
+            return 0;
+        }
+        int tile = tiles.get(id)[period / TILE_PERIODS];
+        if (tile == NO_TILE) {
+            return 0;
+        }
+        return segment(tile / TILES_PER_SEGMENT).getLong((tile % TILES_PER_SEGMENT) * TILE_BYTES
+                + (period % TILE_PERIODS) * CELL_BYTES + field);
+    }
+
+    /**
+     * Locates the boundary between periods at which a range begins or ends.
+     *
+     * @return the number of periods that start before {@code date}
+     */
+    private int boundaryOf(LocalDate date) {
+        long epochDay = date.toEpochDay();
+        if (epochDay <= boundaries[0]) {
+            return 0;
+        }
+        if (epochDay >= boundaries[periods.length]) {
+            return periods.length;
+        }
+        int slot = Arrays.binarySearch(boundaries, epochDay);
+        if (slot < 0) {
+            throw new IllegalArgumentException(date + " is part way through a period");
+        }
+        return slot;
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.volksys.recur.engine;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.PeriodIndex;
+import com.volksys.recur.model.RecurringTransaction;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Adds recurring transactions to, and removes them from, a set of budgets for non-overlapping periods.
+ *
+ * <p>The occurrences of a recurring transaction in each period are counted from its schedule or, when it occurs in
+ * fewer periods than there are, sought one after another and routed to the budget whose period contains them via a
+ * {@link PeriodIndex}. Each budget then receives all of its occurrences at once, and materializes them only if it
+ * retains transactions.
+ */
+public class BudgetPopulator {
+    private final List<Budget> budgets;
+    private final PeriodIndex index;
+    private final BitSet changed = new BitSet();
+
+    /**
+     * Constructor.
+     *
+     * @param budgets (not empty) the budgets to populate, whose periods must not overlap
+     * @throws IllegalArgumentException if {@code budgets} is empty or the periods of any two budgets overlap
+     */
+    public BudgetPopulator(List<Budget> budgets) {
+        this(budgets, indexOf(budgets));
+    }
+
+    /**
+     * Constructor for populating budgets whose periods have already been indexed.
+     *
+     * @param budgets the budgets to populate
+     * @param index the index of the periods of {@code budgets}, in the same order, as returned by
+     *              {@link #indexOf(List)}
+     */
+    public BudgetPopulator(List<Budget> budgets, PeriodIndex index) {
+        this.budgets = budgets;
+        this.index = index;
+    }
+
+    /**
+     * Indexes the periods of a list of budgets.
+     *
+     * @param budgets (not empty) the budgets whose periods to index
+     * @return an index whose positions are those of {@code budgets}
+     * @throws IllegalArgumentException if {@code budgets} is empty or the periods of any two budgets overlap
+     */
+    public static PeriodIndex indexOf(List<Budget> budgets) {
+        List<LocalDateRange> periods = new ArrayList<>(budgets.size());
+        for (Budget budget : budgets) {
+            periods.add(budget.getDateRange());
+        }
+        return new PeriodIndex(periods);
+    }
+
+    /**
+     * The budgets being populated.
+     *
+     * @return the budgets, in the order given to the constructor
+     */
+    public List<Budget> getBudgets() {
+        return budgets;
+    }
+
+    /**
+     * The positions of the budgets to which occurrences have been added, or from which they have been removed.
+     *
+     * @return the positions changed since this populator was created or the returned set was last cleared, which the
+     *         caller may clear
+     */
+    /* default */ BitSet getChanged() {
+        return changed;
+    }
+
+    /**
+     * Adds the occurrences of a recurring transaction to the budgets. If the transaction has already been added, its
+     * occurrences will be added again.
+     *
+     * @param recurringTransaction the transaction to add
+     */
+    public void add(RecurringTransaction recurringTransaction) {
+        apply(recurringTransaction, (budget, count) -> budget.addOccurrences(recurringTransaction, count));
+    }
+
+    /**
+     * Removes the occurrences of a recurring transaction previously added to the budgets. If it was added more than
+     * once, the occurrences added last are removed.
+     *
+     * @param recurringTransaction the transaction to remove, compared by identity
+     * @throws IllegalArgumentException if the transaction has not been added to the budgets
+     */
+    public void remove(RecurringTransaction recurringTransaction) {
+        apply(recurringTransaction, (budget, count) -> budget.removeOccurrences(recurringTransaction, count));
+    }
+
+    private void apply(RecurringTransaction recurringTransaction, ObjLongConsumer<Budget> change) {
+        if (recurringTransaction.countOccurrencesIn(index.getSpan()) < budgets.size()) {
+            applySparse(recurringTransaction, change);
+            return;
+        }
+        for (int position = 0; position < budgets.size(); position++) {
+            Budget budget = budgets.get(position);
+            applyCount(change, position, recurringTransaction.countOccurrencesIn(budget.getDateRange()));
+        }
+    }
+
+    /**
+     * Applies a change for a recurring transaction that occurs in fewer periods than there are budgets by seeking each
+     * occurrence, rather than counting occurrences in every period. Consecutive occurrences in the same period are
+     * applied to its budget together.
+     */
+    private void applySparse(RecurringTransaction recurringTransaction, ObjLongConsumer<Budget> change) {
+        LocalDate date = recurringTransaction.firstOccurrenceOnOrAfter(index.getSpan().getStartInclusive());
+        LocalDate end = index.getSpan().getEndExclusive();
+        int current = -1;
+        long count = 0;
+        while (date != null && date.isBefore(end)) {
+            int position = index.indexOf(date);
+            if (position != current) {
+                applyCount(change, current, count);
+                current = position;
+                count = 0;
+            }
+            count++;
+            date = recurringTransaction.firstOccurrenceOnOrAfter(date.plusDays(1));
+        }
+        applyCount(change, current, count);
+    }
+
+    private void applyCount(ObjLongConsumer<Budget> change, int position, long count) {
+        if (position >= 0 && count > 0) {
+            change.accept(budgets.get(position), count);
+            changed.set(position);
+        }
+    }
+
+    /**
+     * Adds the occurrences of several recurring transactions to the budgets, in order.
+     *
+     * @param recurringTransactions the transactions to add
+     */
+    public void addAll(List<RecurringTransaction> recurringTransactions) {
+        for (RecurringTransaction recurringTransaction : recurringTransactions) {
+            add(recurringTransaction);
+        }
+    }
+
+}
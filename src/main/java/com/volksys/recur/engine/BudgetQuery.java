@@ -0,0 +1,207 @@
+package com.volksys.recur.engine;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.LocalDateRange;
+
+import java.time.LocalDate;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Answers questions about the totals of populated budgets over arbitrary ranges of their periods.
+ *
+ * <p>The budgets are read once, when the query is created, into an array of running totals over the periods for
+ * each category, so the total for any range of periods is the difference of two running totals: after locating the
+ * range by binary search over the period boundaries, a total is computed in constant time whatever the number of
+ * periods it spans.
+ *
+ * <p>Categories may be arranged in a hierarchy by naming them as paths, such as {@code Home:Utilities:Power}. Every
+ * prefix of such a name, here {@code Home} and {@code Home:Utilities}, is a category of the query too, whose totals
+ * roll up those of all the categories beneath it; the totals of a category of the budgets that is also a prefix of
+ * others include its own transactions as well. A query is not affected by later changes to the budgets.
+ */
+public class BudgetQuery {
+    /**
+     * Separates the levels of a hierarchical category name.
+     */
+    public static final char SEPARATOR = ':';
+
+    private final long[] starts;
+    private final long[] ends;
+    private final Map<String, long[]> runningTotals = new TreeMap<>();
+    private final Map<String, List<String>> subcategories = new TreeMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param budgets (not empty) the populated budgets to query, whose periods must not overlap
+     * @throws IllegalArgumentException if {@code budgets} is empty or the periods of any two budgets overlap
+     * @throws ArithmeticException if a running total for a category, or for a category that rolls up others, would
+     *         overflow a {@code long}
+     */
+    public BudgetQuery(List<Budget> budgets) {
+        if (budgets.isEmpty()) {
+            throw new IllegalArgumentException("At least one budget is required");
+        }
+        List<Budget> sorted = new ArrayList<>(budgets);
+        sorted.sort(Comparator.comparing(budget -> budget.getDateRange().getStartInclusive()));
+        starts = new long[sorted.size()];
+        ends = new long[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            starts[i] = sorted.get(i).getDateRange().getStartInclusive().toEpochDay();
+            ends[i] = sorted.get(i).getDateRange().getEndExclusive().toEpochDay();
+            if (i > 0 && starts[i] < ends[i - 1]) {
+                throw new IllegalArgumentException("Periods must not overlap");
+            }
+            accumulate(sorted.get(i), i + 1);
+        }
+        for (long[] totals : runningTotals.values()) {
+            for (int i = 1; i < totals.length; i++) {
+                totals[i] = Math.addExact(totals[i], totals[i - 1]);
+            }
+        }
+        for (List<String> children : subcategories.values()) {
+            Collections.sort(children);
+        }
+    }
+
+    private void accumulate(Budget budget, int position) {
+        for (String category : budget.getCategories()) {
+            long total = budget.getTotalFor(category);
+            for (String level = category; !level.isEmpty(); level = parentOf(level)) {
+                long[] totals = runningTotalsOf(level);
+                totals[position] = Math.addExact(totals[position], total);
+            }
+        }
+    }
+
+    private long[] runningTotalsOf(String category) {
+        long[] totals = runningTotals.get(category);
+        if (totals == null) {
+            totals = new long[starts.length + 1];
+            runningTotals.put(category, totals);
+            subcategories.computeIfAbsent(category, key -> new ArrayList<>());
+            subcategories.computeIfAbsent(parentOf(category), key -> new ArrayList<>()).add(category);
+        }
+        return totals;
+    }
+
+    /**
+     * The category one level above a given category.
+     *
+     * @return the parent category, or the empty string for a top-level category
+     */
+    private static String parentOf(String category) {
+        int separator = category.lastIndexOf(SEPARATOR);
+        return separator < 0 ? "" : category.substring(0, separator);
+    }
+
+    /**
+     * The categories of this query, including those that only roll up others.
+     *
+     * @return an unmodifiable, alphabetically ordered list of categories
+     */
+    public List<String> getCategories() {
+        return Collections.unmodifiableList(new ArrayList<>(runningTotals.keySet()));
+    }
+
+    /**
+     * The categories one level beneath a given category.
+     *
+     * @param category the category whose subcategories to list, or the empty string for the top-level categories
+     * @return an unmodifiable, alphabetically ordered list of the subcategories, which is empty for an unknown category
+     */
+    public List<String> getSubcategoriesOf(String category) {
+        List<String> result = subcategories.get(category);
+        return result == null ? Collections.emptyList() : Collections.unmodifiableList(result);
+    }
+
+    /**
+     * The total of a category over every budget.
+     *
+     * @param category the category of interest
+     * @return the sum of the totals of the category and of its subcategories (in cents)
+     */
+    public long getTotalFor(String category) {
+        long[] totals = runningTotals.get(category);
+        return totals == null ? 0 : totals[starts.length];
+    }
+
+    /**
+     * The total of a category over a range of periods. The range may extend beyond the periods of the budgets, and
+     * may span gaps between them, but must not begin or end part way through a period.
+     *
+     * @param category the category of interest
+     * @param range the dates of the periods to total
+     * @return the sum of the totals of the category and of its subcategories in the periods within {@code range}
+     *         (in cents)
+     * @throws IllegalArgumentException if {@code range} begins or ends part way through a period
+     */
+    public long getTotalFor(String category, LocalDateRange range) {
+        return total(runningTotals.get(category), boundaryOf(range.getStartInclusive()),
+                boundaryOf(range.getEndExclusive()));
+    }
+
+    /**
+     * Ranks the subcategories of a category by their totals over a range of periods.
+     *
+     * @param category the category whose subcategories to rank, or the empty string for the top-level categories
+     * @param limit the greatest number of subcategories to return
+     * @param range the dates of the periods to total, as for {@link #getTotalFor(String, LocalDateRange)}
+     * @return the subcategories with the largest totals in {@code range}, largest first, with equal totals in
+     *         alphabetical order
+     * @throws IllegalArgumentException if {@code range} begins or ends part way through a period
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public List<String> top(String category, int limit, LocalDateRange range) {
+        int from = boundaryOf(range.getStartInclusive());
+        int to = boundaryOf(range.getEndExclusive());
+        Comparator<Map.Entry<String, Long>> order = Map.Entry.<String, Long>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey());
+        PriorityQueue<Map.Entry<String, Long>> best = new PriorityQueue<>(order.reversed());
+        for (String subcategory : subcategories.getOrDefault(category, Collections.emptyList())) {
+            long total = total(runningTotals.get(subcategory), from, to);
+            best.add(new AbstractMap.SimpleImmutableEntry<>(subcategory, total));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Map.Entry<String, Long>> ranked = new ArrayList<>(best);
+        ranked.sort(order);
+        List<String> result = new ArrayList<>(ranked.size());
+        for (Map.Entry<String, Long> entry : ranked) {
+            result.add(entry.getKey());
+        }
+        return result;
+    }
+
+    private static long total(long[] totals, int from, int to) {
+        return totals == null || to <= from ? 0 : totals[to] - totals[from];
+    }
+
+    /**
+     * Locates the boundary between periods at which a range begins or ends.
+     *
+     * @return the number of periods that start before {@code date}
+     */
+    private int boundaryOf(LocalDate date) {
+        long epochDay = date.toEpochDay();
+        int slot = Arrays.binarySearch(starts, epochDay);
+        if (slot >= 0) {
+            return slot;
+        }
+        int boundary = -slot - 1;
+        if (boundary > 0 && epochDay < ends[boundary - 1]) {
+            throw new IllegalArgumentException(date + " is part way through a period");
+        }
+        return boundary;
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.volksys.recur.engine;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.RecurringTransaction;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a set of budgets up to date as recurring transactions are added, changed and removed one at a time.
+ *
+ * <p>Each recurring transaction included is tracked by identity. A change is applied as a delta to only the periods
+ * in which the affected recurring transactions occur, so its cost is proportional to their occurrences within the
+ * budgets rather than to the whole schedule. The budgets are always those that would result from adding the
+ * recurring transactions still included, in the order in which each was last added or updated.
+ */
+public class IncrementalPopulator {
+    private final BudgetPopulator populator;
+    private final Map<RecurringTransaction, Integer> included = new IdentityHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param budgets (not empty) the budgets to keep up to date, whose periods must not overlap
+     * @throws IllegalArgumentException if {@code budgets} is empty or the periods of any two budgets overlap
+     */
+    public IncrementalPopulator(List<Budget> budgets) {
+        this.populator = new BudgetPopulator(budgets);
+    }
+
+    /**
+     * The budgets being kept up to date.
+     *
+     * @return the budgets, in the order given to the constructor
+     */
+    public List<Budget> getBudgets() {
+        return populator.getBudgets();
+    }
+
+    /**
+     * Indicates whether a recurring transaction is included in the budgets.
+     *
+     * @param recurringTransaction the recurring transaction, compared by identity
+     * @return {@code true} if it has been added and not since removed
+     */
+    public boolean contains(RecurringTransaction recurringTransaction) {
+        return included.containsKey(recurringTransaction);
+    }
+
+    /**
+     * Adds the occurrences of a recurring transaction to the budgets. A recurring transaction added more than once is
+     * included once for each time it was added.
+     *
+     * @param recurringTransaction the recurring transaction to add
+     */
+    public void add(RecurringTransaction recurringTransaction) {
+        populator.add(recurringTransaction);
+        included.merge(recurringTransaction, 1, Integer::sum);
+    }
+
+    /**
+     * Adds the occurrences of several recurring transactions to the budgets, in order.
+     *
+     * @param recurringTransactions the recurring transactions to add
+     */
+    public void addAll(List<RecurringTransaction> recurringTransactions) {
+        for (RecurringTransaction recurringTransaction : recurringTransactions) {
+            add(recurringTransaction);
+        }
+    }
+
+    /**
+     * Removes the occurrences of a recurring transaction from the budgets. If it was added more than once, only the
+     * occurrences added last are removed.
+     *
+     * @param recurringTransaction the recurring transaction to remove, compared by identity
+     * @throws IllegalArgumentException if the recurring transaction is not included in the budgets
+     */
+    public void remove(RecurringTransaction recurringTransaction) {
+        Integer count = included.get(recurringTransaction);
+        if (count == null) {
+            throw new IllegalArgumentException("Recurring transaction '" + recurringTransaction.getDescription()
+                    + "' is not included");
+        }
+        populator.remove(recurringTransaction);
+        if (count == 1) {
+            included.remove(recurringTransaction);
+        } else {
+            included.put(recurringTransaction, count - 1);
+        }
+    }
+
+    /**
+     * Replaces a recurring transaction included in the budgets with another. The replacement follows every other
+     * recurring transaction in the order of the transactions of each category.
+     *
+     * @param previous the recurring transaction to replace, compared by identity
+     * @param replacement the recurring transaction to include instead
+     * @throws IllegalArgumentException if {@code previous} is not included in the budgets
+     */
+    public void update(RecurringTransaction previous, RecurringTransaction replacement) {
+        remove(previous);
+        add(replacement);
+    }
+
+    /**
+     * The budgets changed since this method was last called, or since this populator was created.
+     *
+     * @return the budgets to which occurrences have been added or from which they have been removed, in order
+     */
+    public List<Budget> takeChangedBudgets() {
+        BitSet changed = populator.getChanged();
+        List<Budget> budgets = new ArrayList<>(changed.cardinality());
+        for (int position = changed.nextSetBit(0); position >= 0; position = changed.nextSetBit(position + 1)) {
+            budgets.add(getBudgets().get(position));
+        }
+        changed.clear();
+        return budgets;
+    }
+
+}
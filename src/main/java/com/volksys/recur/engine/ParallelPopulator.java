@@ -0,0 +1,160 @@
+package com.volksys.recur.engine;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.PeriodIndex;
+import com.volksys.recur.model.RecurringTransaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Populates budgets from many recurring transactions in parallel.
+ *
+ * <p>The recurring transactions are divided into contiguous runs on a fork-join pool. Each run is added to its own
+ * empty copies of the budgets, and the partial budgets are merged with {@link Budget#merge(Budget)} in the order of
+ * the runs, so the result, including the order of the transactions in each category, is the same as that of adding
+ * the recurring transactions one after another with a {@link BudgetPopulator}. When the budgets retain only totals,
+ * the recurring transactions with a fixed stride of days or weeks are first evaluated in bulk by a
+ * {@link StrideEvaluator}, and only the rest are divided into runs.
+ *
+ * <p>Every run costs a copy of each budget and a merge, so unless a grain is given, runs are made long enough that
+ * only a few are created per thread of the pool, and never shorter than the number of budgets.
+ */
+public class ParallelPopulator {
+    private static final int MIN_GRAIN = 64;
+    private static final int RUNS_PER_THREAD = 4;
+    private static final int DERIVED_GRAIN = 0;
+
+    private final ForkJoinPool pool;
+    private final int grain;
+
+    /**
+     * Constructor for populating budgets on the common fork-join pool.
+     */
+    public ParallelPopulator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor for a grain derived from the number of budgets, recurring transactions and threads of the pool.
+     *
+     * @param pool the pool on which to populate budgets
+     */
+    public ParallelPopulator(ForkJoinPool pool) {
+        this.pool = pool;
+        this.grain = DERIVED_GRAIN;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param pool the pool on which to populate budgets
+     * @param grain (positive) the largest number of recurring transactions to add to a single set of partial budgets
+     */
+    public ParallelPopulator(ForkJoinPool pool, int grain) {
+        if (grain <= 0) {
+            throw new IllegalArgumentException("Grain must be positive");
+        }
+        this.pool = pool;
+        this.grain = grain;
+    }
+
+    /**
+     * Adds the occurrences of recurring transactions to budgets. Transactions already included will be added again.
+     *
+     * @param budgets the budgets to update, whose periods must not overlap
+     * @param recurringTransactions the transactions to include in the budgets
+     * @throws IllegalArgumentException if the periods of any two budgets overlap
+     */
+    public void populate(List<Budget> budgets, List<RecurringTransaction> recurringTransactions) {
+        if (budgets.isEmpty()) {
+            return;
+        }
+        PeriodIndex index = BudgetPopulator.indexOf(budgets);
+        List<RecurringTransaction> remaining = recurringTransactions;
+        if (StrideEvaluator.retainsTotals(budgets)) {
+            remaining = new StrideEvaluator(budgets, index).addFixedStride(recurringTransactions);
+        }
+        int runLength = grainFor(budgets.size(), remaining.size());
+        if (remaining.size() <= runLength) {
+            new BudgetPopulator(budgets, index).addAll(remaining);
+            return;
+        }
+        List<Budget> partial = pool.invoke(new PopulateTask(budgets, index, remaining, runLength));
+        for (int i = 0; i < budgets.size(); i++) {
+            budgets.get(i).merge(partial.get(i));
+        }
+    }
+
+    /**
+     * The largest number of recurring transactions to add to a single set of partial budgets.
+     */
+    private int grainFor(int budgetCount, int size) {
+        if (grain != DERIVED_GRAIN) {
+            return grain;
+        }
+        int runs = RUNS_PER_THREAD * pool.getParallelism();
+        return Math.max(Math.max(MIN_GRAIN, budgetCount), (size + runs - 1) / runs);
+    }
+
+    /**
+     * Populates empty copies of the budgets from a run of recurring transactions.
+     */
+    private class PopulateTask extends RecursiveTask<List<Budget>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<Budget> budgets;
+        private final transient PeriodIndex index;
+        private final transient List<RecurringTransaction> recurringTransactions;
+        private final int runLength;
+
+        /**
+         * Constructor.
+         *
+         * @param budgets the budgets to copy
+         * @param index the index of the periods of the budgets
+         * @param recurringTransactions the run of transactions to add
+         * @param runLength the largest number of transactions to add to a single set of copies
+         */
+        PopulateTask(List<Budget> budgets, PeriodIndex index, List<RecurringTransaction> recurringTransactions,
+                int runLength) {
+            super();
+            this.budgets = budgets;
+            this.index = index;
+            this.recurringTransactions = recurringTransactions;
+            this.runLength = runLength;
+        }
+
+        /**
+         * Populates the copies, dividing the run in two if it is longer than the run length.
+         *
+         * @return the populated copies, in the order of the budgets
+         */
+        @Override
+        @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+        protected List<Budget> compute() {
+            int size = recurringTransactions.size();
+            if (size <= runLength) {
+                List<Budget> copies = new ArrayList<>(budgets.size());
+                for (Budget budget : budgets) {
+                    copies.add(new Budget(budget.getDateRange(), budget.getRetention()));
+                }
+                new BudgetPopulator(copies, index).addAll(recurringTransactions);
+                return copies;
+            }
+            PopulateTask first = new PopulateTask(budgets, index, recurringTransactions.subList(0, size / 2),
+                    runLength);
+            first.fork();
+            List<Budget> second = new PopulateTask(budgets, index, recurringTransactions.subList(size / 2, size),
+                    runLength).compute();
+            List<Budget> merged = first.join();
+            for (int i = 0; i < merged.size(); i++) {
+                merged.get(i).merge(second.get(i));
+            }
+            return merged;
+        }
+    }
+
+}
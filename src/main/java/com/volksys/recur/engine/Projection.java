@@ -0,0 +1,88 @@
+package com.volksys.recur.engine;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.Granularity;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.RecurringTransaction;
+import com.volksys.recur.model.Retention;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Projects recurring transactions over an arbitrary horizon, divided into calendar periods of a given granularity.
+ *
+ * <p>The periods are aligned to the calendar, so the first and last are shortened when the horizon does not begin or
+ * end on a period boundary. All periods are populated together, with each recurring transaction's occurrences across
+ * the whole horizon enumerated or counted once, rather than once per period or per year.
+ */
+public class Projection {
+    private final LocalDateRange horizon;
+    private final Granularity granularity;
+    private final Retention retention;
+
+    /**
+     * Constructor.
+     *
+     * @param horizon the dates to project over
+     * @param granularity the length of the periods into which the horizon is divided
+     * @param retention what the budget for each period keeps about its transactions
+     */
+    public Projection(LocalDateRange horizon, Granularity granularity, Retention retention) {
+        this.horizon = horizon;
+        this.granularity = granularity;
+        this.retention = retention;
+    }
+
+    /**
+     * The dates projected over.
+     *
+     * @return the horizon of this projection
+     */
+    public LocalDateRange getHorizon() {
+        return horizon;
+    }
+
+    /**
+     * The length of the periods into which the horizon is divided.
+     *
+     * @return the granularity of this projection
+     */
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    /**
+     * Creates an empty budget for each period of the horizon.
+     *
+     * @return the budgets, in chronological order
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public List<Budget> createBudgets() {
+        List<Budget> budgets = new ArrayList<>();
+        LocalDate end = horizon.getEndExclusive();
+        LocalDate start = horizon.getStartInclusive();
+        LocalDate next = granularity.next(granularity.startOf(start));
+        while (start.isBefore(end)) {
+            LocalDate limit = next.isBefore(end) ? next : end;
+            budgets.add(new Budget(new LocalDateRange(start, limit), retention));
+            start = next;
+            next = granularity.next(next);
+        }
+        return budgets;
+    }
+
+    /**
+     * Creates and populates a budget for each period of the horizon.
+     *
+     * @param recurringTransactions the transactions to project
+     * @return the populated budgets, in chronological order
+     */
+    public List<Budget> project(List<RecurringTransaction> recurringTransactions) {
+        List<Budget> budgets = createBudgets();
+        new ParallelPopulator().populate(budgets, recurringTransactions);
+        return budgets;
+    }
+
+}
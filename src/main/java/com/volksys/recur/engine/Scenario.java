@@ -0,0 +1,138 @@
+package com.volksys.recur.engine;
+
+import com.volksys.recur.model.RecurringTransaction;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A what-if variant of a base list of recurring transactions, expressed as overrides rather than as a copy.
+ *
+ * <p>Recurring transactions are identified by their position in the base list. A scenario may disable them, shift
+ * their schedules, and scale their amounts, either all at once or by category; scale factors multiply. Recurring
+ * transactions without overrides are shared with the base list, so a scenario costs memory only for what it changes.
+ * The override methods return the scenario, so that overrides may be chained.
+ *
+ * <p>Overrides are only ever subtractive with respect to the base list: a scenario can leave recurring transactions
+ * out, but cannot enable one. Rows whose Enabled column is not {@code true} are skipped when a schedule file is
+ * loaded, so they are not in the base list for a scenario to enable. Overrides of positions beyond the end of the base
+ * list to which a scenario is applied have no effect, so a scenario written for a longer list may be applied to a
+ * shorter one.
+ */
+public class Scenario {
+    private final String name;
+    private final BitSet disabled = new BitSet();
+    private final Map<Integer, Period> shifts = new HashMap<>();
+    private final Map<String, Double> categoryFactors = new HashMap<>();
+    private double factor = 1;
+
+    /**
+     * Constructor for a scenario without overrides.
+     *
+     * @param name the name of the scenario
+     */
+    public Scenario(String name) {
+        this.name = name;
+    }
+
+    /**
+     * The name of this scenario.
+     *
+     * @return the name given to the constructor
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Leaves a recurring transaction out of this scenario.
+     *
+     * @param index (not negative) the position of the recurring transaction in the base list
+     * @return this scenario
+     * @throws IndexOutOfBoundsException if {@code index} is negative
+     */
+    public Scenario disable(int index) {
+        disabled.set(index);
+        return this;
+    }
+
+    /**
+     * Moves the schedule of a recurring transaction, including its final occurrence if it has one.
+     *
+     * @param index the position of the recurring transaction in the base list
+     * @param shift the amount of time by which to move its occurrences, which may be negative
+     * @return this scenario
+     */
+    public Scenario shift(int index, Period shift) {
+        shifts.merge(index, shift, Period::plus);
+        return this;
+    }
+
+    /**
+     * Scales the amounts of every recurring transaction, rounding each to the nearest cent.
+     *
+     * @param scale the factor by which to multiply amounts, such as {@code 1.03} for three percent inflation
+     * @return this scenario
+     */
+    public Scenario scale(double scale) {
+        factor *= scale;
+        return this;
+    }
+
+    /**
+     * Scales the amounts of the recurring transactions in a category, rounding each to the nearest cent.
+     *
+     * @param category the budget category whose amounts to scale
+     * @param scale the factor by which to multiply amounts
+     * @return this scenario
+     */
+    public Scenario scale(String category, double scale) {
+        categoryFactors.merge(category, scale, (first, second) -> first * second);
+        return this;
+    }
+
+    /**
+     * Applies the overrides of this scenario to a base list of recurring transactions.
+     *
+     * @param base the recurring transactions to which the overrides refer
+     * @return the recurring transactions of this scenario, in the order of the base list, of which those without
+     *         overrides are the instances in the base list
+     * @throws ArithmeticException if a scaled amount does not fit in an {@code int}
+     */
+    public List<RecurringTransaction> apply(List<RecurringTransaction> base) {
+        List<RecurringTransaction> result = new ArrayList<>(base.size());
+        for (int index = 0; index < base.size(); index++) {
+            if (disabled.get(index)) {
+                continue;
+            }
+            RecurringTransaction rt = base.get(index);
+            Period shift = shifts.getOrDefault(index, Period.ZERO);
+            double scale = factor * categoryFactors.getOrDefault(rt.getCategory(), 1.0);
+            if (shift.isZero() && scale == 1) {
+                result.add(rt);
+            } else {
+                result.add(override(rt, shift, scale));
+            }
+        }
+        return result;
+    }
+
+    private static RecurringTransaction override(RecurringTransaction rt, Period shift, double scale) {
+        return new RecurringTransaction(rt.getDescription(), Math.toIntExact(Math.round(rt.getAmount() * scale)),
+                rt.getCategory(), rt.getInitialOccurrence().plus(shift), shifted(rt.getFinalOccurrence(), shift),
+                rt.getPeriod());
+    }
+
+    private static LocalDate shifted(LocalDate date, Period shift) {
+        if (date == null) {
+            return null;
+        }
+        return date.plus(shift);
+    }
+
+}
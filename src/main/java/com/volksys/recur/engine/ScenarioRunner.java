@@ -0,0 +1,81 @@
+package com.volksys.recur.engine;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.PeriodIndex;
+import com.volksys.recur.model.RecurringTransaction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Evaluates many {@link Scenario}s of the same base list of recurring transactions concurrently.
+ *
+ * <p>The base list is loaded once and shared, unmodified, by every scenario, as is the index of the periods of the
+ * projection. Each scenario is populated sequentially into its own budgets as a separate task on a fork-join pool, so
+ * scenarios are evaluated in parallel with one another. Projections retaining only totals keep the memory used per
+ * scenario independent of the number of occurrences.
+ */
+public class ScenarioRunner {
+    private final List<RecurringTransaction> base;
+    private final Projection projection;
+    private final ForkJoinPool pool;
+    private final PeriodIndex index;
+
+    /**
+     * Constructor for evaluating scenarios on the common fork-join pool.
+     *
+     * @param base the recurring transactions to which the overrides of the scenarios refer
+     * @param projection the periods over which to evaluate each scenario
+     */
+    public ScenarioRunner(List<RecurringTransaction> base, Projection projection) {
+        this(base, projection, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param base the recurring transactions to which the overrides of the scenarios refer
+     * @param projection the periods over which to evaluate each scenario
+     * @param pool the pool on which to evaluate scenarios
+     */
+    public ScenarioRunner(List<RecurringTransaction> base, Projection projection, ForkJoinPool pool) {
+        this.base = Collections.unmodifiableList(new ArrayList<>(base));
+        this.projection = projection;
+        this.pool = pool;
+        this.index = BudgetPopulator.indexOf(projection.createBudgets());
+    }
+
+    /**
+     * Evaluates a single scenario.
+     *
+     * @param scenario the scenario to evaluate
+     * @return the populated budgets of the scenario, one per period of the projection
+     */
+    public List<Budget> evaluate(Scenario scenario) {
+        List<Budget> budgets = projection.createBudgets();
+        new BudgetPopulator(budgets, index).addAll(scenario.apply(base));
+        return budgets;
+    }
+
+    /**
+     * Evaluates several scenarios in parallel.
+     *
+     * @param scenarios the scenarios to evaluate
+     * @return the populated budgets of each scenario, in the order of {@code scenarios}
+     */
+    public List<List<Budget>> evaluateAll(List<Scenario> scenarios) {
+        List<ForkJoinTask<List<Budget>>> tasks = new ArrayList<>(scenarios.size());
+        for (Scenario scenario : scenarios) {
+            tasks.add(pool.submit(() -> evaluate(scenario)));
+        }
+        List<List<Budget>> results = new ArrayList<>(tasks.size());
+        for (ForkJoinTask<List<Budget>> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.volksys.recur.engine;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.RecurringTransaction;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings budgets up to date with successive loads of a schedule by applying only the rows that changed.
+ *
+ * <p>Rows are matched between loads by content: a recurring transaction equal to one already included is left in
+ * place, whatever its position in the file. Included recurring transactions with no equal in the new load are removed
+ * and new ones added through an {@link IncrementalPopulator}, so the work done for an edit is proportional to the
+ * occurrences of the edited rows rather than to the whole schedule. Added recurring transactions follow those left
+ * in place in the order of the transactions of each category.
+ */
+public class ScheduleReconciler {
+    private final IncrementalPopulator populator;
+    private Map<RecurringTransaction, Deque<RecurringTransaction>> included = new HashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param budgets (not empty) the empty budgets to keep up to date, whose periods must not overlap
+     * @throws IllegalArgumentException if {@code budgets} is empty or the periods of any two budgets overlap
+     */
+    public ScheduleReconciler(List<Budget> budgets) {
+        this.populator = new IncrementalPopulator(budgets);
+    }
+
+    /**
+     * The budgets being kept up to date.
+     *
+     * @return the budgets, in the order given to the constructor
+     */
+    public List<Budget> getBudgets() {
+        return populator.getBudgets();
+    }
+
+    /**
+     * Updates the budgets to include exactly the recurring transactions of a new load of the schedule.
+     *
+     * @param recurringTransactions the recurring transactions now defined by the schedule
+     * @return the budgets that changed, in order
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public List<Budget> reconcile(List<RecurringTransaction> recurringTransactions) {
+        Map<RecurringTransaction, Deque<RecurringTransaction>> next = new HashMap<>();
+        List<RecurringTransaction> added = new ArrayList<>();
+        for (RecurringTransaction recurringTransaction : recurringTransactions) {
+            RecurringTransaction kept = recurringTransaction;
+            Deque<RecurringTransaction> equal = included.get(recurringTransaction);
+            if (equal == null || equal.isEmpty()) {
+                added.add(recurringTransaction);
+            } else {
+                kept = equal.poll();
+            }
+            next.computeIfAbsent(kept, key -> new ArrayDeque<>()).add(kept);
+        }
+        for (Deque<RecurringTransaction> removed : included.values()) {
+            for (RecurringTransaction recurringTransaction : removed) {
+                populator.remove(recurringTransaction);
+            }
+        }
+        populator.addAll(added);
+        included = next;
+        return populator.takeChangedBudgets();
+    }
+
+}
@@ -0,0 +1,252 @@
+package com.volksys.recur.engine;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.PeriodIndex;
+import com.volksys.recur.model.RecurringTransaction;
+import com.volksys.recur.model.Retention;
+
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Adds recurring transactions to budgets that retain only totals, evaluating those with a fixed stride in bulk.
+ *
+ * <p>A recurring transaction whose period is a whole number of days or weeks occurs on an arithmetic progression of
+ * epoch days, so the number of its occurrences in a budget period is the difference of two quotients. Such
+ * transactions are grouped by stride and copied into primitive arrays, then each is counted in every budget period it
+ * spans by a loop of arithmetic over the period boundaries, with the stride invariant across the group. Totals and
+ * counts are accumulated per category and period in arrays, and each budget receives one addition per category at
+ * the end, rather than one per recurring transaction. Transactions with periods of months or years, whose
+ * occurrences follow the calendar, are added by a {@link BudgetPopulator} instead.
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public class StrideEvaluator {
+    private final List<Budget> budgets;
+    private final PeriodIndex index;
+    private final long[] starts;
+    private final long[] ends;
+    private final int[] positions;
+
+    /**
+     * Constructor.
+     *
+     * @param budgets (not empty) the budgets to populate, which must retain only totals and whose periods must not
+     *                overlap
+     * @throws IllegalArgumentException if {@code budgets} is empty, any of them retains more than totals, or the
+     *         periods of any two budgets overlap
+     */
+    public StrideEvaluator(List<Budget> budgets) {
+        this(budgets, BudgetPopulator.indexOf(budgets));
+    }
+
+    /**
+     * Constructor for populating budgets whose periods have already been indexed.
+     *
+     * @param budgets the budgets to populate, which must retain only totals
+     * @param index the index of the periods of {@code budgets}, in the same order, as returned by
+     *              {@link BudgetPopulator#indexOf(List)}
+     * @throws IllegalArgumentException if any of the budgets retains more than totals
+     */
+    public StrideEvaluator(List<Budget> budgets, PeriodIndex index) {
+        if (!retainsTotals(budgets)) {
+            throw new IllegalArgumentException("Only budgets retaining totals can be evaluated in bulk");
+        }
+        this.budgets = budgets;
+        this.index = index;
+        this.starts = index.getStarts();
+        this.ends = index.getEnds();
+        this.positions = index.getPositions();
+    }
+
+    /**
+     * Indicates whether every budget of a list retains only totals, and so may be populated by an evaluator.
+     *
+     * @param budgets the budgets of interest
+     * @return {@code true} if no budget retains transactions or schedules
+     */
+    public static boolean retainsTotals(List<Budget> budgets) {
+        for (Budget budget : budgets) {
+            if (budget.getRetention() != Retention.TOTALS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indicates whether a recurring transaction occurs at a fixed number of days from one occurrence to the next.
+     *
+     * @param recurringTransaction the transaction of interest
+     * @return {@code true} if the period of the transaction is a positive number of days or weeks
+     */
+    public static boolean hasFixedStride(RecurringTransaction recurringTransaction) {
+        Period period = recurringTransaction.getPeriod();
+        return period.getYears() == 0 && period.getMonths() == 0 && period.getDays() > 0;
+    }
+
+    /**
+     * Adds the occurrences of several recurring transactions to the budgets. Those with a fixed stride are evaluated
+     * in bulk, and the rest are added one at a time.
+     *
+     * @param recurringTransactions the transactions to add
+     * @throws ArithmeticException if the total for a category would overflow a {@code long}
+     */
+    public void addAll(List<RecurringTransaction> recurringTransactions) {
+        new BudgetPopulator(budgets, index).addAll(addFixedStride(recurringTransactions));
+    }
+
+    /**
+     * Adds the occurrences of those recurring transactions that have a fixed stride to the budgets, in bulk.
+     *
+     * @param recurringTransactions the transactions to add
+     * @return the transactions that were not added because their periods follow the calendar, in their original order
+     * @throws ArithmeticException if the total for a category would overflow a {@code long}
+     */
+    public List<RecurringTransaction> addFixedStride(List<RecurringTransaction> recurringTransactions) {
+        List<RecurringTransaction> fixed = new ArrayList<>();
+        List<RecurringTransaction> remaining = new ArrayList<>();
+        for (RecurringTransaction recurringTransaction : recurringTransactions) {
+            (hasFixedStride(recurringTransaction) ? fixed : remaining).add(recurringTransaction);
+        }
+        if (fixed.isEmpty()) {
+            return remaining;
+        }
+        fixed.sort(Comparator.comparingInt(rt -> rt.getPeriod().getDays()));
+        Accumulator accumulator = new Accumulator(starts.length);
+        int from = 0;
+        while (from < fixed.size()) {
+            int stride = fixed.get(from).getPeriod().getDays();
+            int to = from + 1;
+            while (to < fixed.size() && fixed.get(to).getPeriod().getDays() == stride) {
+                to++;
+            }
+            evaluate(fixed.subList(from, to), stride, accumulator);
+            from = to;
+        }
+        accumulator.addTo(budgets, positions);
+        return remaining;
+    }
+
+    /**
+     * Counts the occurrences of recurring transactions sharing a stride in every budget period they span.
+     */
+    private void evaluate(List<RecurringTransaction> group, long stride, Accumulator accumulator) {
+        int size = group.size();
+        long[] firsts = new long[size];
+        long[] limits = new long[size];
+        long[] amounts = new long[size];
+        int[] categoryIds = new int[size];
+        for (int i = 0; i < size; i++) {
+            RecurringTransaction recurringTransaction = group.get(i);
+            firsts[i] = recurringTransaction.getInitialOccurrence().toEpochDay();
+            limits[i] = limitOf(recurringTransaction, firsts[i], stride);
+            amounts[i] = recurringTransaction.getAmount();
+            categoryIds[i] = recurringTransaction.getCategoryId();
+        }
+        for (int i = 0; i < size; i++) {
+            long first = firsts[i];
+            long limit = limits[i];
+            long amount = amounts[i];
+            long last = limit == Long.MAX_VALUE ? Long.MAX_VALUE : first + (limit - 1) * stride;
+            long[] totals = accumulator.totalsFor(categoryIds[i]);
+            long[] counts = accumulator.countsFor(categoryIds[i]);
+            int bucket = firstBucketEndingAfter(first);
+            while (bucket < starts.length && starts[bucket] <= last) {
+                long before = Math.min(limit, Math.max(0, starts[bucket] - first + stride - 1) / stride);
+                long upTo = Math.min(limit, Math.max(0, ends[bucket] - first + stride - 1) / stride);
+                long count = upTo - before;
+                counts[bucket] = Math.addExact(counts[bucket], count);
+                totals[bucket] = Math.addExact(totals[bucket], Math.multiplyExact(amount, count));
+                bucket = upTo < limit ? bucketAfter(bucket, first + upTo * stride) : starts.length;
+            }
+        }
+    }
+
+    /**
+     * The position, in order of start, of the next budget period that may contain an occurrence on or after a given
+     * epoch day, skipping by binary search any that end before it, so that a stride longer than the periods costs work
+     * in proportion to the occurrences rather than to the periods.
+     */
+    private int bucketAfter(int bucket, long nextOccurrence) {
+        int next = bucket + 1;
+        if (next < ends.length && ends[next] <= nextOccurrence) {
+            return firstBucketEndingAfter(nextOccurrence);
+        }
+        return next;
+    }
+
+    /**
+     * The number of occurrences of a recurring transaction, which is {@link Long#MAX_VALUE} if it has no final
+     * occurrence.
+     */
+    private static long limitOf(RecurringTransaction recurringTransaction, long first, long stride) {
+        if (recurringTransaction.getFinalOccurrence() == null) {
+            return Long.MAX_VALUE;
+        }
+        long last = recurringTransaction.getFinalOccurrence().toEpochDay();
+        return last < first ? 0 : (last - first) / stride + 1;
+    }
+
+    /**
+     * The position, in order of start, of the first budget period ending after a given epoch day.
+     */
+    private int firstBucketEndingAfter(long epochDay) {
+        int slot = Arrays.binarySearch(ends, epochDay + 1);
+        return slot >= 0 ? slot : -slot - 1;
+    }
+
+    /**
+     * Totals and counts of occurrences per category and budget period, allocated for each category when first used.
+     */
+    private static final class Accumulator {
+        private final int buckets;
+        private long[][] totals = new long[0][];
+        private long[][] counts = new long[0][];
+
+        Accumulator(int buckets) {
+            this.buckets = buckets;
+        }
+
+        @SuppressWarnings("PMD.MethodReturnsInternalArray")
+        /* default */ long[] totalsFor(int categoryId) {
+            ensure(categoryId);
+            return totals[categoryId];
+        }
+
+        @SuppressWarnings("PMD.MethodReturnsInternalArray")
+        /* default */ long[] countsFor(int categoryId) {
+            ensure(categoryId);
+            return counts[categoryId];
+        }
+
+        private void ensure(int categoryId) {
+            if (categoryId >= totals.length) {
+                totals = Arrays.copyOf(totals, Math.max(categoryId + 1, totals.length * 2));
+                counts = Arrays.copyOf(counts, totals.length);
+            }
+            if (totals[categoryId] == null) {
+                totals[categoryId] = new long[buckets];
+                counts[categoryId] = new long[buckets];
+            }
+        }
+
+        /**
+         * Adds the accumulated totals to the budgets, given the position of each budget period in order of start.
+         */
+        /* default */ void addTo(List<Budget> budgets, int... positions) {
+            for (int categoryId = 0; categoryId < totals.length; categoryId++) {
+                if (totals[categoryId] == null) {
+                    continue;
+                }
+                for (int bucket = 0; bucket < buckets; bucket++) {
+                    budgets.get(positions[bucket]).addTotals(categoryId, totals[categoryId][bucket],
+                            counts[categoryId][bucket]);
+                }
+            }
+        }
+    }
+
+}
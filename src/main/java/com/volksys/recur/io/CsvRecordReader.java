@@ -0,0 +1,219 @@
+package com.volksys.recur.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads RFC 4180 comma-separated records from a character stream, one record at a time, into a reusable buffer.
+ *
+ * <p>Fields are exposed as offsets into the record buffer so that callers can parse numbers and dates without
+ * creating a {@code String} per field. Quoted fields may contain commas, doubled quotes and line breaks. Empty lines
+ * are skipped.
+ */
+class CsvRecordReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final char BYTE_ORDER_MARK = '\uFEFF'; // zero width no-break space
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private char[] record = new char[256];
+    private int length;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int fieldCount;
+    private long line;
+    private long recordLine;
+
+    /**
+     * Constructor.
+     *
+     * @param reader the source of the records; not closed by this reader
+     */
+    CsvRecordReader(Reader reader) {
+        this(reader, 1);
+    }
+
+    /**
+     * Constructor for a stream that begins part way through a larger file.
+     *
+     * @param reader the source of the records; not closed by this reader
+     * @param firstLine the line number of the first line of the stream within the larger file
+     */
+    CsvRecordReader(Reader reader, long firstLine) {
+        this.reader = reader;
+        this.line = firstLine;
+    }
+
+    /**
+     * Advances to the next non-empty record.
+     *
+     * @return {@code true} if a record was read, or {@code false} at the end of the stream
+     * @throws IOException if the underlying stream cannot be read
+     */
+    public boolean next() throws IOException {
+        do {
+            if (!readRecord()) {
+                return false;
+            }
+        } while (fieldCount == 1 && ends[0] == starts[0]);
+        return true;
+    }
+
+    @SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.ModifiedCyclomaticComplexity",
+            "PMD.StdCyclomaticComplexity"})
+    private boolean readRecord() throws IOException {
+        fieldCount = 0;
+        length = 0;
+        recordLine = line;
+        int ch = read();
+        if (ch < 0) {
+            return false;
+        }
+        if (ch == BYTE_ORDER_MARK && recordLine == 1) {
+            ch = read();
+        }
+        int fieldStart = 0;
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (ch < 0) {
+                    endField(fieldStart);
+                    return true;
+                }
+                if (ch == '"') {
+                    if (peek() == '"') {
+                        read();
+                        append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (ch == '\n') {
+                        line++;
+                    }
+                    append((char) ch);
+                }
+            } else if (ch == ',') {
+                endField(fieldStart);
+                fieldStart = length;
+            } else if (ch == '\n' || ch == '\r' || ch < 0) {
+                if (ch == '\r' && peek() == '\n') {
+                    read();
+                }
+                if (ch >= 0) {
+                    line++;
+                }
+                endField(fieldStart);
+                return true;
+            } else if (ch == '"' && length == fieldStart) {
+                quoted = true;
+            } else {
+                append((char) ch);
+            }
+            ch = read();
+        }
+    }
+
+    /**
+     * The physical line number, counting from one, on which the current record begins.
+     *
+     * @return the line number of the current record
+     */
+    public long getLineNumber() {
+        return recordLine;
+    }
+
+    /**
+     * The number of fields in the current record.
+     *
+     * @return the field count
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * The characters of the current record; valid only until the next call to {@link #next()}.
+     *
+     * @return the buffer holding the unescaped characters of every field in the current record
+     */
+    @SuppressWarnings("PMD.MethodReturnsInternalArray")
+    public char[] getBuffer() {
+        return record;
+    }
+
+    /**
+     * The offset of the first character of a field in {@link #getBuffer()}.
+     *
+     * @param field the zero-based field index
+     * @return the inclusive start offset of the field
+     */
+    public int getStart(int field) {
+        return starts[field];
+    }
+
+    /**
+     * The offset just past the last character of a field in {@link #getBuffer()}.
+     *
+     * @param field the zero-based field index
+     * @return the exclusive end offset of the field
+     */
+    public int getEnd(int field) {
+        return ends[field];
+    }
+
+    /**
+     * The value of a field as a string.
+     *
+     * @param field the zero-based field index
+     * @return a new string holding the value of the field
+     */
+    public String getString(int field) {
+        return new String(record, starts[field], ends[field] - starts[field]);
+    }
+
+    private void endField(int fieldStart) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+        }
+        starts[fieldCount] = fieldStart;
+        ends[fieldCount] = length;
+        fieldCount++;
+    }
+
+    private void append(char ch) {
+        if (length == record.length) {
+            record = Arrays.copyOf(record, length * 2);
+        }
+        record[length++] = ch;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int count = reader.read(buffer, 0, buffer.length);
+        while (count == 0) {
+            count = reader.read(buffer, 0, buffer.length);
+        }
+        position = 0;
+        limit = Math.max(count, 0);
+        return count > 0;
+    }
+
+}
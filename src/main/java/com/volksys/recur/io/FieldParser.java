@@ -0,0 +1,189 @@
+package com.volksys.recur.io;
+
+import java.time.LocalDate;
+
+/**
+ * Parses field values directly from a character buffer without creating intermediate strings.
+ *
+ * <p>Every method takes a buffer and the half-open range of the field within it, ignores leading and trailing
+ * whitespace, and throws {@link IllegalArgumentException} describing the offending value if it is malformed.
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+final class FieldParser {
+
+    private FieldParser() {
+    }
+
+    /**
+     * Parses a decimal amount of currency into hundredths of a unit. Digits beyond the hundredths place are rounded
+     * half away from zero.
+     *
+     * @param buffer the characters holding the field
+     * @param start the inclusive start of the field
+     * @param end the exclusive end of the field
+     * @param name the name of the field, for error messages
+     * @return the amount in hundredths of a unit
+     */
+    public static int parseCents(char[] buffer, int start, int end, String name) {
+        int offset = skipLeadingSpace(buffer, start, end);
+        int limit = skipTrailingSpace(buffer, offset, end);
+        boolean negative = offset < limit && buffer[offset] == '-';
+        if (offset < limit && (negative || buffer[offset] == '+')) {
+            offset++;
+        }
+        int point = indexOf(buffer, offset, limit, '.');
+        if (point == offset && point + 1 >= limit) {
+            throw invalid(buffer, start, end, name, "is not a decimal number");
+        }
+        long cents = digits(buffer, offset, point, start, end, name) * 100
+                + hundredths(buffer, point + 1, limit, start, end, name);
+        if (cents > Integer.MAX_VALUE) {
+            throw invalid(buffer, start, end, name, "is too large");
+        }
+        return (int) (negative ? -cents : cents);
+    }
+
+    private static int indexOf(char[] buffer, int start, int end, char ch) {
+        int index = start;
+        while (index < end && buffer[index] != ch) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Accumulates the digits following a decimal point into hundredths, rounding on the third digit. Yields zero when
+     * there is no decimal point, in which case {@code from} lies past {@code to}.
+     */
+    private static long hundredths(char[] buffer, int from, int to, int start, int end, String name) {
+        long value = 0;
+        for (int i = from; i < from + 2; i++) {
+            value = value * 10 + (i < to ? digit(buffer, i, start, end, name) : 0);
+        }
+        for (int i = from + 2; i < to; i++) {
+            int digit = digit(buffer, i, start, end, name);
+            if (i == from + 2 && digit >= 5) {
+                value++;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Parses an ISO {@code yyyy-MM-dd} date.
+     *
+     * @param buffer the characters holding the field
+     * @param start the inclusive start of the field
+     * @param end the exclusive end of the field
+     * @param name the name of the field, for error messages
+     * @return the date
+     * @throws java.time.DateTimeException if the date is well formed but does not exist
+     */
+    public static LocalDate parseDate(char[] buffer, int start, int end, String name) {
+        int offset = skipLeadingSpace(buffer, start, end);
+        int limit = skipTrailingSpace(buffer, offset, end);
+        if (limit - offset != 10 || buffer[offset + 4] != '-' || buffer[offset + 7] != '-') {
+            throw invalid(buffer, start, end, name, "is not formatted as yyyy-MM-dd");
+        }
+        return LocalDate.of((int) digits(buffer, offset, offset + 4, start, end, name),
+                (int) digits(buffer, offset + 5, offset + 7, start, end, name),
+                (int) digits(buffer, offset + 8, offset + 10, start, end, name));
+    }
+
+    /**
+     * Parses a non-negative decimal integer.
+     *
+     * @param buffer the characters holding the field
+     * @param start the inclusive start of the field
+     * @param end the exclusive end of the field
+     * @param name the name of the field, for error messages
+     * @return the integer
+     */
+    public static int parseInt(char[] buffer, int start, int end, String name) {
+        int offset = skipLeadingSpace(buffer, start, end);
+        int limit = skipTrailingSpace(buffer, offset, end);
+        if (offset == limit) {
+            throw invalid(buffer, start, end, name, "is not an integer");
+        }
+        return (int) digits(buffer, offset, limit, start, end, name);
+    }
+
+    /**
+     * Indicates whether a field is empty or holds only whitespace.
+     *
+     * @param buffer the characters holding the field
+     * @param start the inclusive start of the field
+     * @param end the exclusive end of the field
+     * @return {@code true} if the field holds nothing but whitespace
+     */
+    public static boolean isBlank(char[] buffer, int start, int end) {
+        return skipLeadingSpace(buffer, start, end) == end;
+    }
+
+    /**
+     * Indicates whether a field holds a given value, ignoring case and surrounding whitespace.
+     *
+     * @param buffer the characters holding the field
+     * @param start the inclusive start of the field
+     * @param end the exclusive end of the field
+     * @param value the value to compare with
+     * @return {@code true} if the field holds {@code value} without respect to case
+     */
+    public static boolean equalsIgnoreCase(char[] buffer, int start, int end, String value) {
+        int offset = skipLeadingSpace(buffer, start, end);
+        int limit = skipTrailingSpace(buffer, offset, end);
+        if (limit - offset != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.toLowerCase(buffer[offset + i]) != Character.toLowerCase(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Accumulates a run of decimal digits that must not exceed the range of an {@code int}.
+     */
+    private static long digits(char[] buffer, int from, int to, int start, int end, String name) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = value * 10 + digit(buffer, i, start, end, name);
+            if (value > Integer.MAX_VALUE) {
+                throw invalid(buffer, start, end, name, "is too large");
+            }
+        }
+        return value;
+    }
+
+    private static int digit(char[] buffer, int index, int start, int end, String name) {
+        char ch = buffer[index];
+        if (ch < '0' || ch > '9') {
+            throw invalid(buffer, start, end, name, "is not a number");
+        }
+        return ch - '0';
+    }
+
+    private static int skipLeadingSpace(char[] buffer, int start, int end) {
+        int offset = start;
+        while (offset < end && buffer[offset] <= ' ') {
+            offset++;
+        }
+        return offset;
+    }
+
+    private static int skipTrailingSpace(char[] buffer, int start, int end) {
+        int limit = end;
+        while (limit > start && buffer[limit - 1] <= ' ') {
+            limit--;
+        }
+        return limit;
+    }
+
+    private static IllegalArgumentException invalid(char[] buffer, int start, int end, String name, String problem) {
+        return new IllegalArgumentException(name + " " + problem + ": '" + new String(buffer, start, end - start)
+                + "'");
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.volksys.recur.io;
+
+import com.volksys.recur.model.RecurringTransaction;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of loading a schedule file: the enabled recurring transactions it defines and any rows that could not
+ * be loaded.
+ */
+public class LoadResult {
+    private final List<RecurringTransaction> recurringTransactions;
+    private final List<RowError> errors;
+    private final long rowCount;
+
+    /**
+     * Constructor.
+     *
+     * @param recurringTransactions the enabled recurring transactions, in file order
+     * @param errors the rows that were skipped because they could not be loaded, in file order
+     * @param rowCount the number of data rows read, including disabled and erroneous rows
+     */
+    public LoadResult(List<RecurringTransaction> recurringTransactions, List<RowError> errors, long rowCount) {
+        this.recurringTransactions = Collections.unmodifiableList(recurringTransactions);
+        this.errors = Collections.unmodifiableList(errors);
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * The enabled recurring transactions defined by the file.
+     *
+     * @return an unmodifiable list of recurring transactions in the order they appear in the file
+     */
+    public List<RecurringTransaction> getRecurringTransactions() {
+        return recurringTransactions;
+    }
+
+    /**
+     * The rows that could not be loaded.
+     *
+     * @return an unmodifiable list of errors in the order they appear in the file
+     */
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * The number of data rows read.
+     *
+     * @return the number of rows following the header, including disabled and erroneous rows
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+}
@@ -0,0 +1,366 @@
+package com.volksys.recur.io;
+
+import com.volksys.recur.model.RecurringTransaction;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Loads very large CSV schedule files by parsing chunks of a memory-mapped file in parallel.
+ *
+ * <p>The file is divided into segments which are scanned in parallel. A quote opens a quoted field only at the start
+ * of a field, as {@link CsvRecordReader} reads it, so the scanner tracks one of four states: at the start of an
+ * unquoted field, within an unquoted field, within a quoted field, or just after a quote within a quoted field. As the
+ * state at the start of a segment is not known until the segments before it have been scanned, each segment is
+ * scanned from all four states at once, and the states reached are then chained in file order. This tells where the
+ * first record boundary within each segment lies, even when quoted fields contain line breaks or unquoted fields
+ * contain quotes. The chunks between record boundaries are then parsed in parallel and their results concatenated
+ * in file order, so the outcome is the same as that of {@link ScheduleLoader}.
+ *
+ * <p>Only character sets in which quotes, commas and line breaks are encoded as single ASCII bytes that cannot occur
+ * within other characters, such as UTF-8 and the ISO-8859 family, are supported.
+ */
+@SuppressWarnings({"PMD.TooManyMethods", "PMD.GodClass"})
+public class MappedScheduleLoader {
+    private static final long DEFAULT_SEGMENT_SIZE = 8L << 20;
+    private static final byte LINE_FEED = '\n';
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+    private static final int STATES = 4;
+    private static final byte[] TRANSITIONS = new byte[STATES << 8];
+
+    static {
+        for (int state = 0; state < STATES; state++) {
+            for (int value = 0; value < 256; value++) {
+                TRANSITIONS[state << 8 | value] = (byte) transition(state, value);
+            }
+        }
+    }
+
+    private final Charset charset;
+    private final ForkJoinPool pool;
+    private final long segmentSize;
+    private final Supplier<ConcurrentMap<String, String>> descriptions;
+
+    /**
+     * Constructor for files encoded in UTF-8, parsed on the common fork-join pool.
+     */
+    public MappedScheduleLoader() {
+        this(StandardCharsets.UTF_8, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param charset the encoding of the files to be loaded
+     * @param pool the pool on which to scan and parse the files
+     * @throws IllegalArgumentException if {@code charset} does not encode delimiters as single ASCII bytes
+     */
+    public MappedScheduleLoader(Charset charset, ForkJoinPool pool) {
+        this(charset, pool, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param charset the encoding of the files to be loaded
+     * @param pool the pool on which to scan and parse the files
+     * @param segmentSize the approximate number of bytes parsed by each task
+     * @throws IllegalArgumentException if {@code charset} does not encode delimiters as single ASCII bytes
+     */
+    MappedScheduleLoader(Charset charset, ForkJoinPool pool, long segmentSize) {
+        this(charset, pool, segmentSize, ConcurrentHashMap::new);
+    }
+
+    /**
+     * Constructor for a loader sharing descriptions as a {@link ScheduleLoader} does.
+     *
+     * @param charset the encoding of the files to be loaded
+     * @param pool the pool on which to scan and parse the files
+     * @param descriptions the source of the instances of descriptions shared by each load
+     * @throws IllegalArgumentException if {@code charset} does not encode delimiters as single ASCII bytes
+     */
+    MappedScheduleLoader(Charset charset, ForkJoinPool pool, Supplier<ConcurrentMap<String, String>> descriptions) {
+        this(charset, pool, DEFAULT_SEGMENT_SIZE, descriptions);
+    }
+
+    private MappedScheduleLoader(Charset charset, ForkJoinPool pool, long segmentSize,
+            Supplier<ConcurrentMap<String, String>> descriptions) {
+        if (!Arrays.equals("\",\r\n".getBytes(charset), new byte[] {'"', ',', '\r', '\n'})) {
+            throw new IllegalArgumentException("Unsupported character set: " + charset);
+        }
+        this.charset = charset;
+        this.pool = pool;
+        this.segmentSize = segmentSize;
+        this.descriptions = descriptions;
+    }
+
+    /**
+     * Loads a schedule file.
+     *
+     * @param path the location of the file
+     * @return the recurring transactions defined by the file and any rows that could not be loaded
+     * @throws IOException if the file cannot be read or its header is missing a required column
+     */
+    public LoadResult load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return load(channel);
+        }
+    }
+
+    /**
+     * Loads a schedule file, computing the checksum of its contents from the same mapping as is parsed, alongside
+     * the parsing.
+     *
+     * @param path the location of the file
+     * @param crc the checksum to update with every byte of the file
+     * @return the recurring transactions defined by the file and any rows that could not be loaded
+     * @throws IOException if the file cannot be read or its header is missing a required column
+     */
+    public LoadResult load(Path path, CRC32 crc) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Future<Void> checksumming = pool.submit(() -> {
+                checksum(channel, crc);
+                return null;
+            });
+            LoadResult result = load(channel);
+            join(checksumming);
+            return result;
+        }
+    }
+
+    private LoadResult load(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int segmentCount = (int) Math.max(1, (size + segmentSize - 1) / segmentSize);
+        List<Callable<long[]>> scans = new ArrayList<>(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            long start = i * segmentSize;
+            scans.add(() -> scan(map(channel, start, Math.min(size, start + segmentSize))));
+        }
+        List<long[]> counts = invokeAll(scans);
+        List<Callable<long[]>> searches = new ArrayList<>(segmentCount);
+        int state = FIELD_START;
+        long lines = 1;
+        for (int i = 0; i < segmentCount; i++) {
+            long start = i * segmentSize;
+            int startState = state;
+            long startLine = lines;
+            searches.add(() -> findBoundary(map(channel, start, Math.min(size, start + segmentSize)), start,
+                    startState, startLine));
+            state = (int) counts.get(i)[state];
+            lines += counts.get(i)[STATES];
+        }
+        return parse(channel, boundaries(invokeAll(searches), size));
+    }
+
+    /**
+     * Determines the chunks to parse from the first record boundary found in each segment.
+     *
+     * @return pairs of chunk start offset and line number, followed by the file size
+     */
+    private static List<long[]> boundaries(List<long[]> found, long size) {
+        List<long[]> chunks = new ArrayList<>(found.size() + 1);
+        chunks.add(new long[] {0, 1});
+        for (long[] boundary : found.subList(1, found.size())) {
+            if (boundary[0] >= 0 && boundary[0] < size && boundary[0] > chunks.get(chunks.size() - 1)[0]) {
+                chunks.add(boundary);
+            }
+        }
+        chunks.add(new long[] {size, -1});
+        return chunks;
+    }
+
+    private LoadResult parse(FileChannel channel, List<long[]> chunks) throws IOException {
+        CsvRecordReader first = reader(channel, chunks.get(0)[0], chunks.get(1)[0], 1);
+        ScheduleRecordParser parser = ScheduleLoader.readHeader(first, descriptions.get());
+        List<Callable<LoadResult>> tasks = new ArrayList<>(chunks.size() - 1);
+        tasks.add(() -> ScheduleLoader.readRows(first, parser));
+        for (int i = 1; i < chunks.size() - 1; i++) {
+            long start = chunks.get(i)[0];
+            long end = chunks.get(i + 1)[0];
+            long line = chunks.get(i)[1];
+            tasks.add(() -> ScheduleLoader.readRows(reader(channel, start, end, line), parser));
+        }
+        List<RecurringTransaction> recurringTransactions = new ArrayList<>();
+        List<RowError> errors = new ArrayList<>();
+        long rowCount = 0;
+        for (LoadResult result : invokeAll(tasks)) {
+            recurringTransactions.addAll(result.getRecurringTransactions());
+            errors.addAll(result.getErrors());
+            rowCount += result.getRowCount();
+        }
+        return new LoadResult(recurringTransactions, errors, rowCount);
+    }
+
+    private CsvRecordReader reader(FileChannel channel, long start, long end, long line) throws IOException {
+        InputStream in = new ByteBufferInputStream(map(channel, start, end));
+        return new CsvRecordReader(new InputStreamReader(in, charset.newDecoder()), line);
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long start, long end) throws IOException {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IOException("Record at offset " + start + " is too large to map");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    }
+
+    /**
+     * The state of the scanner after a byte, following the rules of {@link CsvRecordReader}.
+     */
+    private static int transition(int state, int value) {
+        switch (value) {
+            case '"':
+                return state == QUOTED ? QUOTE_IN_QUOTED : state == UNQUOTED ? UNQUOTED : QUOTED;
+            case ',':
+            case '\r':
+            case LINE_FEED:
+                return state == QUOTED ? QUOTED : FIELD_START;
+            default:
+                return state == QUOTED ? QUOTED : UNQUOTED;
+        }
+    }
+
+    /**
+     * Scans a segment from every possible starting state, and counts its line feeds.
+     *
+     * @return the state reached from each starting state, indexed by that state, followed by the number of line feeds
+     */
+    private static long[] scan(ByteBuffer segment) {
+        int fieldStart = FIELD_START;
+        int unquoted = UNQUOTED;
+        int quoted = QUOTED;
+        int quoteInQuoted = QUOTE_IN_QUOTED;
+        long lineFeeds = 0;
+        for (int i = segment.position(); i < segment.limit(); i++) {
+            int value = segment.get(i) & 0xFF;
+            fieldStart = TRANSITIONS[fieldStart << 8 | value];
+            unquoted = TRANSITIONS[unquoted << 8 | value];
+            quoted = TRANSITIONS[quoted << 8 | value];
+            quoteInQuoted = TRANSITIONS[quoteInQuoted << 8 | value];
+            if (value == LINE_FEED) {
+                lineFeeds++;
+            }
+        }
+        return new long[] {fieldStart, unquoted, quoted, quoteInQuoted, lineFeeds};
+    }
+
+    /**
+     * Locates the first record boundary in a segment: the position following the first line feed that is not within
+     * a quoted field.
+     *
+     * @return the file offset of the boundary and the line number that begins there, or {@code -1} for the offset if
+     *         the segment holds no boundary
+     */
+    private static long[] findBoundary(ByteBuffer segment, long offset, int startState, long startLine) {
+        int state = startState;
+        long line = startLine;
+        for (int i = segment.position(); i < segment.limit(); i++) {
+            byte value = segment.get(i);
+            if (value == LINE_FEED) {
+                line++;
+                if (state != QUOTED) {
+                    return new long[] {offset + i + 1, line};
+                }
+            }
+            state = TRANSITIONS[state << 8 | value & 0xFF];
+        }
+        return new long[] {-1, line};
+    }
+
+    /**
+     * Updates a checksum with the contents of a file, a segment at a time.
+     */
+    private void checksum(FileChannel channel, CRC32 crc) throws IOException {
+        long size = channel.size();
+        for (long start = 0; start < size; start += segmentSize) {
+            crc.update(map(channel, start, Math.min(size, start + segmentSize)));
+        }
+    }
+
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) throws IOException {
+        List<Future<T>> futures = pool.invokeAll(tasks);
+        List<T> results = new ArrayList<>(futures.size());
+        for (Future<T> future : futures) {
+            results.add(join(future));
+        }
+        return results;
+    }
+
+    private static <T> T join(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading", interruptedException);
+        } catch (ExecutionException executionException) {
+            Throwable cause = executionException.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause.getMessage(), executionException);
+        }
+    }
+
+    /**
+     * Reads the bytes of a buffer as a stream.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        /**
+         * Constructor.
+         *
+         * @param buffer the bytes to read, from the current position to the limit
+         */
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Reads the next byte.
+         *
+         * @return the next byte, or {@code -1} at the end of the buffer
+         */
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        /**
+         * Reads bytes into an array.
+         *
+         * @return the number of bytes read, or {@code -1} at the end of the buffer
+         */
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.volksys.recur.io;
+
+/**
+ * A problem with a single row of a schedule file, which was skipped as a result.
+ */
+public class RowError {
+    private final long lineNumber;
+    private final String message;
+
+    /**
+     * Constructor.
+     *
+     * @param lineNumber the physical line number, counting from one, on which the row begins
+     * @param message a description of the problem
+     */
+    public RowError(long lineNumber, String message) {
+        this.lineNumber = lineNumber;
+        this.message = message;
+    }
+
+    /**
+     * The line on which the offending row begins.
+     *
+     * @return the physical line number, counting from one, on which the row begins
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * A description of the problem.
+     *
+     * @return a human-readable description of what is wrong with the row
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Describes the problem and where it occurred.
+     *
+     * @return the line number and description of the problem
+     */
+    @Override
+    public String toString() {
+        return "Line " + lineNumber + ": " + message;
+    }
+
+}
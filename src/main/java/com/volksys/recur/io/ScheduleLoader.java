@@ -0,0 +1,173 @@
+package com.volksys.recur.io;
+
+import com.volksys.recur.metrics.Counter;
+import com.volksys.recur.metrics.Metrics;
+import com.volksys.recur.model.RecurringTransaction;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Loads recurring transactions from a CSV schedule file.
+ *
+ * <p>The file is streamed through a buffered reader in an explicit character set, one record at a time, so memory
+ * use is bounded by the recurring transactions loaded rather than by the size of the file. Column positions are
+ * resolved once from the header. Rows that cannot be loaded are skipped and reported with their line numbers in the
+ * {@link LoadResult}; rows whose Enabled column is not {@code true} are skipped silently.
+ *
+ * <p>Descriptions repeated across the rows of a file share a single instance. A loader created via
+ * {@link #sharingDescriptions(Charset)} also shares them across every file it loads, which suits loading many similar
+ * files at once; the descriptions are then kept for as long as the loader is, and are also shared by the
+ * {@link MappedScheduleLoader} it creates via {@link #mapped(ForkJoinPool)}.
+ */
+public class ScheduleLoader {
+    private final Charset charset;
+    private final Supplier<ConcurrentMap<String, String>> descriptions;
+
+    /**
+     * Constructor for files encoded in UTF-8.
+     */
+    public ScheduleLoader() {
+        this(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param charset the encoding of the files to be loaded
+     */
+    public ScheduleLoader(Charset charset) {
+        this(charset, ConcurrentHashMap::new);
+    }
+
+    private ScheduleLoader(Charset charset, Supplier<ConcurrentMap<String, String>> descriptions) {
+        this.charset = charset;
+        this.descriptions = descriptions;
+    }
+
+    /**
+     * Creates a loader whose loads share the instances of repeated descriptions. The loader may be used by
+     * concurrent threads.
+     *
+     * @param charset the encoding of the files to be loaded
+     * @return a loader sharing descriptions across files
+     */
+    public static ScheduleLoader sharingDescriptions(Charset charset) {
+        ConcurrentMap<String, String> shared = new ConcurrentHashMap<>();
+        return new ScheduleLoader(charset, () -> shared);
+    }
+
+    /**
+     * Loads a schedule file.
+     *
+     * @param path the location of the file
+     * @return the recurring transactions defined by the file and any rows that could not be loaded
+     * @throws IOException if the file cannot be read or its header is missing a required column
+     */
+    public LoadResult load(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, charset)) {
+            return load(reader);
+        }
+    }
+
+    /**
+     * Loads a schedule file, computing the checksum of its contents from the same bytes as are parsed.
+     *
+     * @param path the location of the file
+     * @param crc the checksum to update with every byte of the file
+     * @return the recurring transactions defined by the file and any rows that could not be loaded
+     * @throws IOException if the file cannot be read or its header is missing a required column
+     */
+    public LoadResult load(Path path, CRC32 crc) throws IOException {
+        InputStream in = new CheckedInputStream(Files.newInputStream(path), crc);
+        try (Reader reader = new BufferedReader(new InputStreamReader(in, charset.newDecoder()))) {
+            return load(reader);
+        }
+    }
+
+    /**
+     * Loads a schedule from a character stream, which is read to the end but not closed.
+     *
+     * @param reader the source of the schedule
+     * @return the recurring transactions defined by the stream and any rows that could not be loaded
+     * @throws IOException if the stream cannot be read or its header is missing a required column
+     */
+    public LoadResult load(Reader reader) throws IOException {
+        CsvRecordReader records = new CsvRecordReader(reader);
+        return readRows(records, readHeader(records, descriptions.get()));
+    }
+
+    /**
+     * Creates a loader that parses memory-mapped files in parallel, with the same character set as this loader and
+     * sharing descriptions as this loader does.
+     *
+     * @param pool the pool on which to scan and parse the files
+     * @return a loader for very large files
+     * @throws IllegalArgumentException if the character set of this loader does not encode delimiters as single ASCII
+     *         bytes
+     */
+    public MappedScheduleLoader mapped(ForkJoinPool pool) {
+        return new MappedScheduleLoader(charset, pool, descriptions);
+    }
+
+    /**
+     * Reads the header record of a schedule.
+     *
+     * @param records the records of the schedule, positioned before the header
+     * @param descriptions the instances of the descriptions read so far, to be shared by the rows of the schedule
+     * @return a parser for the rows following the header
+     * @throws IOException if the header cannot be read or is missing a required column
+     */
+    /* default */ static ScheduleRecordParser readHeader(CsvRecordReader records,
+            ConcurrentMap<String, String> descriptions) throws IOException {
+        if (!records.next()) {
+            throw new IOException("Missing header");
+        }
+        return new ScheduleRecordParser(records, descriptions);
+    }
+
+    /**
+     * Reads the remaining rows of a schedule.
+     *
+     * @param records the records of the schedule, positioned after the header
+     * @param parser the parser for the rows of the schedule
+     * @return the recurring transactions and errors of the remaining rows
+     * @throws IOException if the records cannot be read
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    /* default */ static LoadResult readRows(CsvRecordReader records, ScheduleRecordParser parser) throws IOException {
+        List<RecurringTransaction> recurringTransactions = new ArrayList<>();
+        List<RowError> errors = new ArrayList<>();
+        long rowCount = 0;
+        while (records.next()) {
+            rowCount++;
+            try {
+                if (parser.isEnabled(records)) {
+                    recurringTransactions.add(parser.parse(records));
+                }
+            } catch (IllegalArgumentException | DateTimeException exception) {
+                errors.add(new RowError(records.getLineNumber(), exception.getMessage()));
+            }
+        }
+        Metrics.count(Counter.ROWS_PARSED, rowCount);
+        Metrics.count(Counter.ROWS_REJECTED, errors.size());
+        return new LoadResult(recurringTransactions, errors, rowCount);
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.volksys.recur.io;
+
+import com.volksys.recur.model.RecurringTransaction;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Converts CSV records of the recurring transaction schedule format into {@link RecurringTransaction}s.
+ *
+ * <p>Column positions are resolved once from the header record. Amounts, dates and periods are parsed directly from
+ * the record buffer by {@link FieldParser}: amounts exactly to cents without an intermediate {@code double}, and dates
+ * as fixed-width ISO {@code yyyy-MM-dd} without the {@code DateTimeFormatter} machinery. Units of time are matched
+ * without respect to case. Descriptions repeated across rows share a single instance; categories are interned by
+ * the {@link com.volksys.recur.model.CategoryRegistry}. A parser may be shared by threads parsing different rows.
+ */
+class ScheduleRecordParser {
+    private static final String FIELD_DESCRIPTION = "Description";
+    private static final String FIELD_AMOUNT = "Amount";
+    private static final String FIELD_START = "Start";
+    private static final String FIELD_END = "End";
+    private static final String FIELD_PERIOD = "Period";
+    private static final String FIELD_PERIOD_UNITS = "Units";
+    private static final String FIELD_CATEGORY = "Category";
+    private static final String FIELD_ENABLED = "Enabled";
+
+    private final int description;
+    private final int amount;
+    private final int start;
+    private final int end;
+    private final int period;
+    private final int units;
+    private final int category;
+    private final int enabled;
+    private final int fieldCount;
+    private final ConcurrentMap<String, String> descriptions;
+
+    /**
+     * Constructor.
+     *
+     * @param header the header record naming the columns
+     * @throws IOException if a required column is missing from the header
+     */
+    ScheduleRecordParser(CsvRecordReader header) throws IOException {
+        this(header, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Constructor for a parser sharing the instances of descriptions with other parsers.
+     *
+     * @param header the header record naming the columns
+     * @param descriptions the shared instances of descriptions, to which new descriptions are added
+     * @throws IOException if a required column is missing from the header
+     */
+    ScheduleRecordParser(CsvRecordReader header, ConcurrentMap<String, String> descriptions) throws IOException {
+        this.descriptions = descriptions;
+        description = indexOf(header, FIELD_DESCRIPTION);
+        amount = indexOf(header, FIELD_AMOUNT);
+        start = indexOf(header, FIELD_START);
+        end = indexOf(header, FIELD_END);
+        period = indexOf(header, FIELD_PERIOD);
+        units = indexOf(header, FIELD_PERIOD_UNITS);
+        category = indexOf(header, FIELD_CATEGORY);
+        enabled = indexOf(header, FIELD_ENABLED);
+        fieldCount = header.getFieldCount();
+    }
+
+    private static int indexOf(CsvRecordReader header, String name) throws IOException {
+        for (int i = 0; i < header.getFieldCount(); i++) {
+            if (matches(header, i, name)) {
+                return i;
+            }
+        }
+        throw new IOException("Missing column '" + name + "' in header on line " + header.getLineNumber());
+    }
+
+    private static boolean matches(CsvRecordReader record, int field, String value) {
+        int offset = record.getStart(field);
+        if (record.getEnd(field) - offset != value.length()) {
+            return false;
+        }
+        char[] buffer = record.getBuffer();
+        for (int i = 0; i < value.length(); i++) {
+            if (buffer[offset + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indicates whether a record's Enabled column holds {@code true}, without respect to case.
+     *
+     * @param record the record to test
+     * @return {@code true} if the recurring transaction described by the record should be included
+     * @throws IllegalArgumentException if the record does not have as many fields as the header
+     */
+    public boolean isEnabled(CsvRecordReader record) {
+        if (record.getFieldCount() != fieldCount) {
+            throw new IllegalArgumentException("Expected " + fieldCount + " fields but found "
+                    + record.getFieldCount());
+        }
+        return FieldParser.equalsIgnoreCase(record.getBuffer(), record.getStart(enabled), record.getEnd(enabled),
+                "true");
+    }
+
+    /**
+     * Converts a record into a recurring transaction.
+     *
+     * @param record the record to convert
+     * @return the recurring transaction described by the record
+     * @throws IllegalArgumentException if a value is missing or malformed
+     */
+    public RecurringTransaction parse(CsvRecordReader record) {
+        char[] buffer = record.getBuffer();
+        int amountValue = FieldParser.parseCents(buffer, record.getStart(amount), record.getEnd(amount), FIELD_AMOUNT);
+        LocalDate startValue = FieldParser.parseDate(buffer, record.getStart(start), record.getEnd(start),
+                FIELD_START);
+        int count = FieldParser.parseInt(buffer, record.getStart(period), record.getEnd(period), FIELD_PERIOD);
+        return new RecurringTransaction(intern(record.getString(description).trim()), amountValue,
+                record.getString(category), startValue, parseEnd(record), parsePeriod(count, record));
+    }
+
+    private String intern(String value) {
+        String existing = descriptions.putIfAbsent(value, value);
+        return existing == null ? value : existing;
+    }
+
+    private LocalDate parseEnd(CsvRecordReader record) {
+        char[] buffer = record.getBuffer();
+        if (FieldParser.isBlank(buffer, record.getStart(end), record.getEnd(end))) {
+            return null;
+        }
+        return FieldParser.parseDate(buffer, record.getStart(end), record.getEnd(end), FIELD_END);
+    }
+
+    private Period parsePeriod(int count, CsvRecordReader record) {
+        char[] buffer = record.getBuffer();
+        int from = record.getStart(units);
+        int to = record.getEnd(units);
+        if (FieldParser.equalsIgnoreCase(buffer, from, to, "days")) {
+            return Period.ofDays(count);
+        } else if (FieldParser.equalsIgnoreCase(buffer, from, to, "weeks")) {
+            return Period.ofWeeks(count);
+        } else if (FieldParser.equalsIgnoreCase(buffer, from, to, "months")) {
+            return Period.ofMonths(count);
+        } else if (FieldParser.equalsIgnoreCase(buffer, from, to, "years")) {
+            return Period.ofYears(count);
+        }
+        throw new IllegalArgumentException("Unsupported unit of time: '" + record.getString(units) + "'");
+    }
+
+}
@@ -0,0 +1,231 @@
+package com.volksys.recur.io;
+
+import com.volksys.recur.model.RecurringTransaction;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * A compact binary image of a {@link LoadResult}, from which a schedule can be restored without parsing its CSV file.
+ *
+ * <p>A snapshot begins with a magic number, a format version and the size, modification time and checksum of the
+ * CSV file it was made from. The body is columnar: a dictionary of the distinct strings (descriptions, categories and
+ * error messages), followed by one array per property of the recurring transactions, holding dictionary indices,
+ * cents, epoch days and period components, and finally the row errors. Snapshots are read through a memory mapping.
+ */
+public final class ScheduleSnapshot {
+    private static final int MAGIC = 0x52435352;
+    private static final int VERSION = 1;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private final long sourceSize;
+    private final long sourceModified;
+    private final long sourceChecksum;
+    private final ByteBuffer body;
+
+    private ScheduleSnapshot(long sourceSize, long sourceModified, long sourceChecksum, ByteBuffer body) {
+        this.sourceSize = sourceSize;
+        this.sourceModified = sourceModified;
+        this.sourceChecksum = sourceChecksum;
+        this.body = body;
+    }
+
+    /**
+     * Writes a snapshot of a load result.
+     *
+     * @param path the file to write
+     * @param result the load result to record
+     * @param sourceSize the size in bytes of the CSV file the result was loaded from
+     * @param sourceModified the modification time, in milliseconds, of the CSV file
+     * @param sourceChecksum the checksum of the contents of the CSV file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, LoadResult result, long sourceSize, long sourceModified, long sourceChecksum)
+            throws IOException {
+        List<RecurringTransaction> list = result.getRecurringTransactions();
+        List<RowError> errors = result.getErrors();
+        Map<String, Integer> indices = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (RecurringTransaction rt : list) {
+            intern(rt.getDescription(), indices, strings);
+            intern(rt.getCategory(), indices, strings);
+        }
+        for (RowError error : errors) {
+            intern(error.getMessage(), indices, strings);
+        }
+        try (OutputStream file = Files.newOutputStream(path);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sourceSize);
+            out.writeLong(sourceModified);
+            out.writeLong(sourceChecksum);
+            out.writeLong(result.getRowCount());
+            out.writeInt(strings.size());
+            for (String string : strings) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            writeTransactions(out, list, indices);
+            out.writeInt(errors.size());
+            for (RowError error : errors) {
+                out.writeLong(error.getLineNumber());
+            }
+            for (RowError error : errors) {
+                out.writeInt(indices.get(error.getMessage()));
+            }
+        }
+    }
+
+    private static void intern(String string, Map<String, Integer> indices, List<String> strings) {
+        if (!indices.containsKey(string)) {
+            indices.put(string, strings.size());
+            strings.add(string);
+        }
+    }
+
+    private static void writeTransactions(DataOutputStream out, List<RecurringTransaction> list,
+            Map<String, Integer> indices) throws IOException {
+        out.writeInt(list.size());
+        writeColumn(out, list, rt -> indices.get(rt.getDescription()));
+        writeColumn(out, list, rt -> indices.get(rt.getCategory()));
+        writeColumn(out, list, RecurringTransaction::getAmount);
+        writeColumn(out, list, rt -> Math.toIntExact(rt.getInitialOccurrence().toEpochDay()));
+        writeColumn(out, list, rt -> epochDayOf(rt.getFinalOccurrence()));
+        writeColumn(out, list, rt -> rt.getPeriod().getYears());
+        writeColumn(out, list, rt -> rt.getPeriod().getMonths());
+        writeColumn(out, list, rt -> rt.getPeriod().getDays());
+    }
+
+    private static void writeColumn(DataOutputStream out, List<RecurringTransaction> list,
+            ToIntFunction<RecurringTransaction> property) throws IOException {
+        for (RecurringTransaction rt : list) {
+            out.writeInt(property.applyAsInt(rt));
+        }
+    }
+
+    /**
+     * Opens a snapshot, reading only its header.
+     *
+     * @param path the snapshot file
+     * @return the snapshot
+     * @throws IOException if the file cannot be read or is not a snapshot of a supported version
+     */
+    public static ScheduleSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot is too large: " + path);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a schedule snapshot: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported schedule snapshot version " + version + ": " + path);
+            }
+            return new ScheduleSnapshot(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.slice());
+        } catch (BufferUnderflowException underflowException) {
+            throw new IOException("Truncated schedule snapshot: " + path, underflowException);
+        }
+    }
+
+    /**
+     * The size of the CSV file from which this snapshot was made.
+     *
+     * @return the size in bytes
+     */
+    public long getSourceSize() {
+        return sourceSize;
+    }
+
+    /**
+     * The modification time of the CSV file from which this snapshot was made.
+     *
+     * @return the modification time in milliseconds since the epoch
+     */
+    public long getSourceModified() {
+        return sourceModified;
+    }
+
+    /**
+     * The checksum of the contents of the CSV file from which this snapshot was made.
+     *
+     * @return the checksum
+     */
+    public long getSourceChecksum() {
+        return sourceChecksum;
+    }
+
+    /**
+     * Restores the load result recorded by this snapshot.
+     *
+     * @return the recurring transactions and row errors, as originally loaded
+     * @throws IOException if the snapshot is truncated or corrupt
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public LoadResult read() throws IOException {
+        ByteBuffer buffer = body.duplicate();
+        try {
+            final long rowCount = buffer.getLong();
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            int count = buffer.getInt();
+            List<RecurringTransaction> list = new ArrayList<>(count);
+            int[][] columns = new int[8][count];
+            for (int[] column : columns) {
+                buffer.asIntBuffer().get(column);
+                buffer.position(buffer.position() + 4 * count);
+            }
+            for (int i = 0; i < count; i++) {
+                list.add(new RecurringTransaction(strings[columns[0][i]], columns[2][i], strings[columns[1][i]],
+                        LocalDate.ofEpochDay(columns[3][i]), dateOf(columns[4][i]),
+                        Period.of(columns[5][i], columns[6][i], columns[7][i])));
+            }
+            int errorCount = buffer.getInt();
+            long[] lines = new long[errorCount];
+            buffer.asLongBuffer().get(lines);
+            buffer.position(buffer.position() + 8 * errorCount);
+            List<RowError> errors = new ArrayList<>(errorCount);
+            for (long line : lines) {
+                errors.add(new RowError(line, strings[buffer.getInt()]));
+            }
+            return new LoadResult(list, errors, rowCount);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException exception) {
+            throw new IOException("Corrupt schedule snapshot", exception);
+        }
+    }
+
+    private static int epochDayOf(LocalDate date) {
+        return date == null ? NO_DATE : Math.toIntExact(date.toEpochDay());
+    }
+
+    private static LocalDate dateOf(int epochDay) {
+        if (epochDay == NO_DATE) {
+            return null;
+        }
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+}
@@ -0,0 +1,212 @@
+package com.volksys.recur.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * Caches the results of loading CSV schedule files as {@link ScheduleSnapshot}s, so that an unchanged file need not be
+ * parsed again.
+ *
+ * <p>Each CSV file has one snapshot in the cache directory, named after its absolute path. A snapshot is used when
+ * the file's size and modification time match those recorded in it; when only the modification time differs, the
+ * file's checksum is compared instead, so touching a file does not force it to be parsed again. Unreadable snapshots
+ * are treated as missing. A snapshot that cannot be written does not fail the load; the first such failure is
+ * reported on standard error and the rest are ignored.
+ */
+@SuppressWarnings("PMD.SystemPrintln")
+public class SnapshotCache {
+    private static final int CHECKSUM_CHUNK_SIZE = 1 << 26;
+
+    private final Path directory;
+    private final AtomicBoolean writeFailureReported = new AtomicBoolean();
+
+    /**
+     * A means of loading a schedule file when no valid snapshot of it exists.
+     */
+    public interface Source {
+        /**
+         * Loads a schedule file.
+         *
+         * @param path the location of the file
+         * @return the recurring transactions defined by the file and any rows that could not be loaded
+         * @throws IOException if the file cannot be loaded
+         */
+        LoadResult load(Path path) throws IOException;
+    }
+
+    /**
+     * A means of loading a schedule file that computes the checksum of the file as it reads it, so that the file
+     * need not be read a second time to record its checksum in a snapshot.
+     */
+    public interface CheckedSource {
+        /**
+         * Loads a schedule file.
+         *
+         * @param path the location of the file
+         * @param crc the checksum to update with every byte of the file that is parsed
+         * @return the recurring transactions defined by the file and any rows that could not be loaded
+         * @throws IOException if the file cannot be loaded
+         */
+        LoadResult load(Path path, CRC32 crc) throws IOException;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param directory the directory in which to keep snapshots, which is created when first needed
+     */
+    public SnapshotCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Loads a schedule file from its snapshot, or from the file itself if the snapshot is missing or out of date, in
+     * which case a new snapshot is written unless the file changed while it was being loaded. The file is checksummed
+     * before it is loaded, and so is read twice when no snapshot of it is usable; prefer
+     * {@link #load(Path, CheckedSource)} where the source can compute the checksum itself.
+     *
+     * @param path the location of the schedule file
+     * @param source the means of loading the file if necessary
+     * @return the recurring transactions defined by the file and any rows that could not be loaded
+     * @throws IOException if the file cannot be loaded
+     */
+    public LoadResult load(Path path, Source source) throws IOException {
+        return load(path, (file, crc) -> {
+            update(crc, file);
+            return source.load(file);
+        });
+    }
+
+    /**
+     * Loads a schedule file from its snapshot, or from the file itself if the snapshot is missing or out of date, in
+     * which case a new snapshot is written, with the checksum computed as the file was loaded, unless the file
+     * changed while it was being loaded.
+     *
+     * @param path the location of the schedule file
+     * @param source the means of loading and checksumming the file if necessary
+     * @return the recurring transactions defined by the file and any rows that could not be loaded
+     * @throws IOException if the file cannot be loaded
+     */
+    public LoadResult load(Path path, CheckedSource source) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        Path snapshotPath = snapshotPathFor(path);
+        LoadResult cached = readSnapshot(snapshotPath, path, size, modified);
+        if (cached != null) {
+            return cached;
+        }
+        CRC32 crc = new CRC32();
+        LoadResult result = source.load(path, crc);
+        BasicFileAttributes loaded = Files.readAttributes(path, BasicFileAttributes.class);
+        if (loaded.size() == size && loaded.lastModifiedTime().toMillis() == modified) {
+            tryWrite(snapshotPath, result, size, modified, crc.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Reads the snapshot of a schedule file if it is current, refreshing its recorded modification time if the file
+     * was touched without being changed.
+     *
+     * @return the recorded load result, or {@code null} if there is no usable snapshot of the file as it stands
+     */
+    private LoadResult readSnapshot(Path snapshotPath, Path path, long size, long modified) {
+        if (!Files.isRegularFile(snapshotPath)) {
+            return null;
+        }
+        try {
+            ScheduleSnapshot snapshot = ScheduleSnapshot.open(snapshotPath);
+            if (snapshot.getSourceSize() != size) {
+                return null;
+            }
+            if (snapshot.getSourceModified() == modified) {
+                return snapshot.read();
+            }
+            long checksum = checksum(path);
+            if (snapshot.getSourceChecksum() != checksum) {
+                return null;
+            }
+            LoadResult result = snapshot.read();
+            tryWrite(snapshotPath, result, size, modified, checksum);
+            return result;
+        } catch (IOException unusable) {
+            return null;
+        }
+    }
+
+    /**
+     * The location of the snapshot of a schedule file.
+     *
+     * @param path the location of the schedule file
+     * @return the location of its snapshot in this cache
+     */
+    public Path snapshotPathFor(Path path) {
+        byte[] name = path.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8);
+        return directory.resolve(UUID.nameUUIDFromBytes(name) + ".snapshot");
+    }
+
+    /**
+     * Writes a snapshot, reporting the first failure to do so on standard error.
+     */
+    private void tryWrite(Path snapshotPath, LoadResult result, long size, long modified, long checksum) {
+        try {
+            write(snapshotPath, result, size, modified, checksum);
+        } catch (IOException ioException) {
+            if (!writeFailureReported.getAndSet(true)) {
+                System.err.println("Snapshots cannot be saved in " + directory + ": " + ioException);
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot to a temporary file and moves it into place, so that a partially written snapshot is never
+     * read.
+     */
+    private void write(Path snapshotPath, LoadResult result, long size, long modified, long checksum)
+            throws IOException {
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, "snapshot", ".tmp");
+        try {
+            ScheduleSnapshot.write(temporary, result, size, modified, checksum);
+            Files.move(temporary, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Computes the CRC-32 checksum of a file's contents.
+     *
+     * @param path the file
+     * @return the checksum
+     * @throws IOException if the file cannot be read
+     */
+    public static long checksum(Path path) throws IOException {
+        CRC32 crc = new CRC32();
+        update(crc, path);
+        return crc.getValue();
+    }
+
+    private static void update(CRC32 crc, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += CHECKSUM_CHUNK_SIZE) {
+                ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(CHECKSUM_CHUNK_SIZE, size - position));
+                crc.update(chunk);
+            }
+        }
+    }
+
+}
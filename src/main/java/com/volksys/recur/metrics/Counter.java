@@ -0,0 +1,42 @@
+package com.volksys.recur.metrics;
+
+/**
+ * The events counted by {@link Metrics}.
+ */
+public enum Counter {
+    /**
+     * Data rows read from schedule files, whether loaded, disabled or rejected.
+     */
+    ROWS_PARSED,
+
+    /**
+     * Data rows of schedule files that could not be loaded.
+     */
+    ROWS_REJECTED,
+
+    /**
+     * Occurrences of recurring transactions generated as dates, rows or transactions.
+     */
+    OCCURRENCES_GENERATED,
+
+    /**
+     * Occurrences of recurring transactions passed over by seeking to the first occurrence in a range, rather than
+     * generated.
+     */
+    OCCURRENCES_SKIPPED,
+
+    /**
+     * Occurrences of recurring transactions added to budgets.
+     */
+    OCCURRENCES_ADDED,
+
+    /**
+     * Occurrences of recurring transactions removed from budgets.
+     */
+    OCCURRENCES_REMOVED,
+
+    /**
+     * Individual transactions added to budgets.
+     */
+    TRANSACTIONS_ADDED
+}
@@ -0,0 +1,45 @@
+package com.volksys.recur.metrics;
+
+import java.util.Map;
+import javax.management.MXBean;
+
+/**
+ * The management interface through which {@link Metrics} are exposed over JMX.
+ */
+@MXBean
+public interface ManagedMetrics {
+
+    /**
+     * Indicates whether events are being recorded.
+     *
+     * @return {@code true} if metrics are enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * The number of each kind of event recorded.
+     *
+     * @return the count of each {@link Counter}, keyed by its name
+     */
+    Map<String, Long> getCounts();
+
+    /**
+     * The time spent in each stage of the pipeline.
+     *
+     * @return the total elapsed time of each {@link Stage} in nanoseconds, keyed by its name
+     */
+    Map<String, Long> getStageNanos();
+
+    /**
+     * An estimate of the memory allocated in each stage of the pipeline.
+     *
+     * @return the total bytes allocated by the thread that ran each {@link Stage}, keyed by its name
+     */
+    Map<String, Long> getStageAllocatedBytes();
+
+    /**
+     * Sets every count, time and allocation estimate back to zero.
+     */
+    void reset();
+
+}
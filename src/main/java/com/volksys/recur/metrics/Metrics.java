@@ -0,0 +1,273 @@
+package com.volksys.recur.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counts events and times the stages of the load, populate and report pipeline.
+ *
+ * <p>Metrics are disabled until {@link #setEnabled(boolean)} is called, and while disabled each instrumented call
+ * costs a single read of a flag: nothing is counted, no clock is read and {@link #time(Stage)} returns a shared
+ * timing that does nothing. Rows and occurrences are counted in bulk where they occur, once per chunk of rows,
+ * recurring transaction or budget rather than one by one, so enabling metrics adds little to a run either. Counts
+ * are safe to record from concurrent threads.
+ *
+ * <p>The allocation recorded for a stage is an estimate: it is read from the thread that ran the stage, where the JVM
+ * supports it, and excludes any worker threads the stage used. The recorded metrics may be read as a
+ * {@linkplain #getSummary() summary} or, once {@linkplain #register() registered}, over JMX.
+ */
+public final class Metrics implements ManagedMetrics {
+    /**
+     * The name under which the metrics are registered with the platform MBean server.
+     */
+    public static final String OBJECT_NAME = "com.volksys.recur:type=Metrics";
+
+    private static final Metrics INSTANCE = new Metrics();
+    private static final Timing NO_TIMING = () -> { };
+    private static volatile boolean enabled;
+
+    private final LongAdder[] counts = adders(Counter.values().length);
+    private final LongAdder[] nanos = adders(Stage.values().length);
+    private final LongAdder[] allocatedBytes = adders(Stage.values().length);
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private Metrics() {
+    }
+
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    private static LongAdder[] adders(int length) {
+        LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * The metrics of this JVM.
+     *
+     * @return the shared metrics
+     */
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts or stops recording events. Metrics already recorded are kept.
+     *
+     * @param enable {@code true} to start recording events, or {@code false} to stop
+     */
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    /**
+     * Records a number of events, if metrics are enabled.
+     *
+     * @param counter the kind of event
+     * @param delta the number of events
+     */
+    public static void count(Counter counter, long delta) {
+        if (enabled) {
+            INSTANCE.counts[counter.ordinal()].add(delta);
+        }
+    }
+
+    /**
+     * Starts timing a stage of the pipeline, if metrics are enabled. The time and allocation are recorded when the
+     * returned timing is closed.
+     *
+     * @param stage the stage to time
+     * @return the timing of the stage, which should be closed in a {@code try}-with-resources statement
+     */
+    public static Timing time(Stage stage) {
+        return enabled ? INSTANCE.new StageTiming(stage) : NO_TIMING;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server under {@link #OBJECT_NAME}, unless already registered.
+     *
+     * @throws JMException if the metrics cannot be registered
+     */
+    public static void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (!server.isRegistered(name)) {
+            server.registerMBean(INSTANCE, name);
+        }
+    }
+
+    /**
+     * Indicates whether events are being recorded.
+     *
+     * @return {@code true} if metrics are enabled
+     */
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The number of events of a given kind recorded.
+     *
+     * @param counter the kind of event
+     * @return the number of events recorded
+     */
+    public long getCount(Counter counter) {
+        return counts[counter.ordinal()].sum();
+    }
+
+    /**
+     * The time spent in a given stage of the pipeline.
+     *
+     * @param stage the stage of interest
+     * @return the total elapsed time of the stage in nanoseconds
+     */
+    public long getNanos(Stage stage) {
+        return nanos[stage.ordinal()].sum();
+    }
+
+    /**
+     * An estimate of the memory allocated in a given stage of the pipeline.
+     *
+     * @param stage the stage of interest
+     * @return the total bytes allocated by the thread that ran the stage, or zero if the JVM does not measure
+     *         allocation
+     */
+    public long getAllocatedBytes(Stage stage) {
+        return allocatedBytes[stage.ordinal()].sum();
+    }
+
+    /**
+     * The number of each kind of event recorded.
+     *
+     * @return the count of each {@link Counter}, keyed by its name, in the order of declaration
+     */
+    @Override
+    public Map<String, Long> getCounts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Counter counter : Counter.values()) {
+            result.put(counter.name(), getCount(counter));
+        }
+        return result;
+    }
+
+    /**
+     * The time spent in each stage of the pipeline.
+     *
+     * @return the total elapsed time of each {@link Stage} in nanoseconds, keyed by its name, in the order of
+     *         declaration
+     */
+    @Override
+    public Map<String, Long> getStageNanos() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            result.put(stage.name(), getNanos(stage));
+        }
+        return result;
+    }
+
+    /**
+     * An estimate of the memory allocated in each stage of the pipeline.
+     *
+     * @return the total bytes allocated by the thread that ran each {@link Stage}, keyed by its name, in the order
+     *         of declaration
+     */
+    @Override
+    public Map<String, Long> getStageAllocatedBytes() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            result.put(stage.name(), getAllocatedBytes(stage));
+        }
+        return result;
+    }
+
+    /**
+     * Sets every count, time and allocation estimate back to zero.
+     */
+    @Override
+    public void reset() {
+        for (LongAdder[] adders : new LongAdder[][] {counts, nanos, allocatedBytes}) {
+            for (LongAdder adder : adders) {
+                adder.reset();
+            }
+        }
+    }
+
+    /**
+     * A human-readable summary of the recorded metrics: the time and allocation of each stage, then the count of
+     * each kind of event.
+     *
+     * @return the summary, one metric per line
+     */
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder(512);
+        summary.append(String.format(Locale.ROOT, "%-22s %12s %14s%n", "Stage", "Time (ms)", "Allocated (KB)"));
+        for (Stage stage : Stage.values()) {
+            summary.append(String.format(Locale.ROOT, "%-22s %12.3f %14d%n", stage, getNanos(stage) / 1e6,
+                    getAllocatedBytes(stage) >> 10));
+        }
+        summary.append(String.format(Locale.ROOT, "%-22s %12s%n", "Counter", "Count"));
+        for (Counter counter : Counter.values()) {
+            summary.append(String.format(Locale.ROOT, "%-22s %12d%n", counter, getCount(counter)));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * The bytes allocated so far by the current thread, if the JVM measures them.
+     */
+    private long allocatedByCurrentThread() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotSpot = (com.sun.management.ThreadMXBean) threads;
+            if (hotSpot.isThreadAllocatedMemorySupported() && hotSpot.isThreadAllocatedMemoryEnabled()) {
+                return Math.max(0, hotSpot.getThreadAllocatedBytes(Thread.currentThread().getId()));
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The timing of a stage of the pipeline, recorded when closed.
+     */
+    @FunctionalInterface
+    public interface Timing extends AutoCloseable {
+        /**
+         * Records the time and allocation since the timing began.
+         */
+        @Override
+        void close();
+    }
+
+    /**
+     * Times a stage from its construction until it is closed.
+     */
+    private final class StageTiming implements Timing {
+        private final Stage stage;
+        private final long startNanos;
+        private final long startBytes;
+
+        StageTiming(Stage stage) {
+            this.stage = stage;
+            this.startBytes = allocatedByCurrentThread();
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Records the time and allocation since construction.
+         */
+        @Override
+        public void close() {
+            nanos[stage.ordinal()].add(System.nanoTime() - startNanos);
+            allocatedBytes[stage.ordinal()].add(Math.max(0, allocatedByCurrentThread() - startBytes));
+        }
+    }
+
+}
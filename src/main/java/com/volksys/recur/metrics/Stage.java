@@ -0,0 +1,21 @@
+package com.volksys.recur.metrics;
+
+/**
+ * The stages of the pipeline timed by {@link Metrics}.
+ */
+public enum Stage {
+    /**
+     * Loading recurring transactions from a schedule file or its snapshot.
+     */
+    LOAD,
+
+    /**
+     * Populating budgets with the occurrences of recurring transactions.
+     */
+    POPULATE,
+
+    /**
+     * Rendering the report of populated budgets.
+     */
+    RENDER
+}
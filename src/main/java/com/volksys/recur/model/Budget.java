@@ -1,17 +1,40 @@
 package com.volksys.recur.model;
 
+import com.volksys.recur.metrics.Counter;
+import com.volksys.recur.metrics.Metrics;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * Models a budget for a given period of time.
+ *
+ * <p>Per-category totals and the sorted list of categories are maintained as transactions are added, so reading
+ * them does not require revisiting the transactions. A budget created with {@link Retention#TOTALS} keeps nothing
+ * else, and may be populated in bulk via {@link #addOccurrences(String, int, long)}. A budget created with
+ * {@link Retention#SCHEDULES} keeps only the recurring transactions, regenerating their occurrences whenever the
+ * transactions for a category are read. Otherwise the transactions of each category are kept in an
+ * {@link OccurrenceStore} as rows of primitive values, and recreated as they are read.
+ *
+ * <p>Budgets of every retention may be populated via {@link #addOccurrences(RecurringTransaction, long)}, after which
+ * the occurrences of a recurring transaction can be taken out again via
+ * {@link #removeOccurrences(RecurringTransaction, long)}.
+ *
+ * <p>Categories are held in an array indexed by their ids in the default {@link CategoryRegistry}, so adding a
+ * transaction does not hash its category name.
  */
+@SuppressWarnings({"PMD.GodClass", "PMD.TooManyMethods"})
 public class Budget {
     private final LocalDateRange dateRange;
-    private final Map<String, List<Transaction>> categorizedTransactions;
+    private final Retention retention;
+    private CategoryLine[] lines;
+    private final List<String> categories;
+    private final List<String> categoriesView;
+    private StringDictionary descriptions;
 
     /**
      * Constructor.
@@ -19,8 +42,21 @@ public class Budget {
      * @param dateRange the period of time covered by this budget
      */
     public Budget(LocalDateRange dateRange) {
+        this(dateRange, Retention.TRANSACTIONS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param dateRange the period of time covered by this budget
+     * @param retention what to keep about the transactions added to this budget
+     */
+    public Budget(LocalDateRange dateRange, Retention retention) {
         this.dateRange = dateRange;
-        this.categorizedTransactions = new HashMap<>();
+        this.retention = retention;
+        this.lines = new CategoryLine[0];
+        this.categories = new ArrayList<>();
+        this.categoriesView = Collections.unmodifiableList(categories);
     }
 
     /**
@@ -32,57 +68,389 @@ public class Budget {
         return dateRange;
     }
 
+    /**
+     * What this budget keeps about the transactions added to it.
+     *
+     * @return the retention of this budget
+     */
+    public Retention getRetention() {
+        return retention;
+    }
+
     /**
      * The budget line items (categories) in this budget.
      *
-     * @return the categories for this budget
+     * @return an unmodifiable, alphabetically ordered view of the categories for this budget
      */
     public List<String> getCategories() {
-        List<String> categories = new ArrayList<>(categorizedTransactions.keySet());
-        Collections.sort(categories);
-        return categories;
+        return categoriesView;
     }
 
     /**
-     * The budget line items (categories) and amounts to budget for each.
+     * The amount to budget for a given category.
      *
+     * @param category the budget category of interest
      * @return the budget for this period (in cents)
+     * @throws ArithmeticException if the budget does not fit in an {@code int}; see {@link #getTotalFor(String)}
      */
     public int getBudgetFor(String category) {
-        int accumulator = 0;
-        for (Transaction transaction : getTransactionsFor(category)) {
-            accumulator += transaction.getAmount();
-        }
-        return accumulator;
+        return Math.toIntExact(getTotalFor(category));
     }
 
     /**
-     * The transactions budgeted for a given category.
+     * The amount to budget for a given category, without risk of overflow for large budgets.
      *
-     * @return transactions accommodated by this budget for the given category
+     * @param category the budget category of interest
+     * @return the sum of the amounts of the transactions budgeted for the given category (in cents)
+     */
+    public long getTotalFor(String category) {
+        CategoryLine line = lineOf(category);
+        return line == null ? 0 : line.total;
+    }
+
+    /**
+     * The number of transactions budgeted for a given category.
+     *
+     * @param category the budget category of interest
+     * @return the number of transactions accommodated by this budget for the given category
+     */
+    public long getCountFor(String category) {
+        CategoryLine line = lineOf(category);
+        return line == null ? 0 : line.count;
+    }
+
+    /**
+     * The transactions budgeted for a given category. Always empty for budgets that retain only totals. For budgets
+     * that retain schedules, the transactions are regenerated by every call; prefer
+     * {@link #iterateTransactionsFor(String)} when they need only be visited.
+     *
+     * @return an unmodifiable list of the transactions accommodated by this budget for the given category, each of
+     *         which is recreated whenever it is read
      */
     public List<Transaction> getTransactionsFor(String category) {
-        List<Transaction> transactions = categorizedTransactions.get(category);
-        if (transactions == null) {
-            transactions = new ArrayList<>();
+        CategoryLine line = lineOf(category);
+        if (line == null || retention == Retention.TOTALS) {
+            return Collections.emptyList();
+        }
+        if (retention == Retention.TRANSACTIONS) {
+            return line.transactions.asList();
         }
-        return transactions;
+        List<Transaction> transactions = new ArrayList<>();
+        for (Transaction transaction : iterateTransactionsFor(category)) {
+            transactions.add(transaction);
+        }
+        return Collections.unmodifiableList(transactions);
+    }
+
+    /**
+     * The transactions budgeted for a given category, in the same order as {@link #getTransactionsFor(String)}. For
+     * budgets that retain schedules, each iteration regenerates the transactions one at a time, without holding them
+     * all in memory.
+     *
+     * @param category the budget category of interest
+     * @return the transactions accommodated by this budget for the given category
+     */
+    public Iterable<Transaction> iterateTransactionsFor(String category) {
+        CategoryLine line = lineOf(category);
+        if (line == null || retention == Retention.TOTALS) {
+            return Collections.emptyList();
+        }
+        if (retention == Retention.TRANSACTIONS) {
+            return line.transactions.asList();
+        }
+        List<RecurringTransaction> schedules = line.schedules;
+        return () -> new RegeneratingIterator(schedules.iterator(), dateRange);
     }
 
     /**
      * Add a new transaction.
      *
      * @param transaction (not null) the transaction to add to the budget
+     * @throws IllegalStateException if this budget retains schedules, from which the transaction could not be
+     *         regenerated
+     * @throws ArithmeticException if the total for the transaction's category would overflow a {@code long}
      */
     public void addTransaction(Transaction transaction) {
+        if (retention == Retention.SCHEDULES) {
+            throw new IllegalStateException("Transactions cannot be added to a budget that retains schedules");
+        }
         if (!getDateRange().contains(transaction.getDate())) {
             return;
         }
-        List<Transaction> transactions = categorizedTransactions.get(transaction.getCategory());
-        if (transactions == null) {
-            transactions = new ArrayList<>();
-            categorizedTransactions.put(transaction.getCategory(), transactions);
+        Metrics.count(Counter.TRANSACTIONS_ADDED, 1);
+        CategoryLine line = lineFor(transaction.getCategoryId());
+        line.total = Math.addExact(line.total, transaction.getAmount());
+        line.count++;
+        if (retention == Retention.TRANSACTIONS) {
+            line.transactions.add(transaction);
+        }
+    }
+
+    /**
+     * Add several occurrences of a transaction to the totals for a category without materializing them. The caller is
+     * responsible for ensuring that the occurrences fall within this budget's date range.
+     *
+     * @param category the budget category of the occurrences
+     * @param amount the amount of each occurrence in hundredths of a whole currency unit
+     * @param count (not negative) the number of occurrences
+     * @throws IllegalStateException if this budget retains transactions or schedules, which would then be missing
+     * @throws ArithmeticException if the total for the category would overflow a {@code long}
+     */
+    public void addOccurrences(String category, int amount, long count) {
+        if (retention != Retention.TOTALS) {
+            throw new IllegalStateException("Occurrences cannot be added to a budget that retains " + retention);
+        }
+        Metrics.count(Counter.OCCURRENCES_ADDED, count);
+        addToTotals(CategoryRegistry.getDefault().register(category), amount, count);
+    }
+
+    /**
+     * Add the occurrences of a recurring transaction within this budget's date range. Only a budget that retains
+     * transactions materializes them. The caller is responsible for ensuring that {@code count} is the number of
+     * occurrences within this budget's date range.
+     *
+     * @param recurringTransaction the recurring transaction that occurs within this budget's date range
+     * @param count (not negative) the number of its occurrences within this budget's date range
+     * @throws ArithmeticException if the total for the category would overflow a {@code long}
+     */
+    public void addOccurrences(RecurringTransaction recurringTransaction, long count) {
+        if (count == 0) {
+            return;
+        }
+        Metrics.count(Counter.OCCURRENCES_ADDED, count);
+        addToTotals(recurringTransaction.getCategoryId(), recurringTransaction.getAmount(), count);
+        CategoryLine line = lines[recurringTransaction.getCategoryId()];
+        if (retention == Retention.TRANSACTIONS) {
+            line.transactions.add(recurringTransaction, dateRange);
+        } else if (retention == Retention.SCHEDULES) {
+            line.schedules.add(recurringTransaction);
+        }
+    }
+
+    /**
+     * Adds occurrences already totalled elsewhere to the totals for a category, without materializing them. The caller
+     * is responsible for ensuring that the occurrences fall within this budget's date range.
+     *
+     * @param categoryId the identifier of the budget category in the default {@link CategoryRegistry}
+     * @param total the sum of the amounts of the occurrences in hundredths of a whole currency unit
+     * @param count (not negative) the number of occurrences
+     * @throws IllegalStateException if this budget retains transactions or schedules, which would then be missing
+     * @throws ArithmeticException if the total for the category would overflow a {@code long}
+     */
+    public void addTotals(int categoryId, long total, long count) {
+        if (retention != Retention.TOTALS) {
+            throw new IllegalStateException("Totals cannot be added to a budget that retains " + retention);
+        }
+        if (count == 0) {
+            return;
+        }
+        Metrics.count(Counter.OCCURRENCES_ADDED, count);
+        CategoryLine line = lineFor(categoryId);
+        line.total = Math.addExact(line.total, total);
+        line.count += count;
+    }
+
+    /**
+     * Removes the occurrences of a recurring transaction previously added via
+     * {@link #addOccurrences(RecurringTransaction, long)}. If it was added more than once, the occurrences added last
+     * are removed. A category left without transactions is removed from this budget.
+     *
+     * @param recurringTransaction the recurring transaction, which is compared by identity unless this budget retains
+     *        only totals
+     * @param count the number of occurrences with which it was added
+     * @throws IllegalArgumentException if the recurring transaction has not been added to this budget
+     */
+    @SuppressWarnings("PMD.NullAssignment")
+    public void removeOccurrences(RecurringTransaction recurringTransaction, long count) {
+        if (count == 0) {
+            return;
+        }
+        int categoryId = recurringTransaction.getCategoryId();
+        CategoryLine line = lineAt(categoryId);
+        if (line == null || line.count < count || !line.removeSource(recurringTransaction, retention)) {
+            throw new IllegalArgumentException("Recurring transaction '" + recurringTransaction.getDescription()
+                    + "' is not included in the budget for " + dateRange);
+        }
+        Metrics.count(Counter.OCCURRENCES_REMOVED, count);
+        line.total = Math.subtractExact(line.total, Math.multiplyExact(count, (long) recurringTransaction.getAmount()));
+        line.count -= count;
+        if (line.count == 0) {
+            lines[categoryId] = null;
+            categories.remove(Collections.binarySearch(categories, recurringTransaction.getCategory()));
+        }
+    }
+
+    private void addToTotals(int categoryId, int amount, long count) {
+        if (count == 0) {
+            return;
+        }
+        CategoryLine line = lineFor(categoryId);
+        line.total = Math.addExact(line.total, Math.multiplyExact(count, (long) amount));
+        line.count += count;
+    }
+
+    /**
+     * Adds everything budgeted in another budget for the same period to this budget. Within each category, the
+     * transactions of {@code other} follow those already in this budget, so merging partial budgets in a fixed order
+     * yields the same budget however the work was divided.
+     *
+     * @param other the budget to merge into this one, which is not modified
+     * @throws IllegalArgumentException if {@code other} covers a different period of time
+     * @throws IllegalStateException if this budget retains transactions or schedules but {@code other} does not
+     * @throws ArithmeticException if the total for a category would overflow a {@code long}
+     */
+    public void merge(Budget other) {
+        if (!dateRange.equals(other.dateRange)) {
+            throw new IllegalArgumentException("Cannot merge a budget for " + other.dateRange + " into one for "
+                    + dateRange);
+        }
+        if (retention != Retention.TOTALS && other.retention != retention) {
+            throw new IllegalStateException("A budget that retains " + retention + " cannot merge one that does not");
+        }
+        for (String category : other.categories) {
+            int categoryId = CategoryRegistry.getDefault().idOf(category);
+            CategoryLine source = other.lines[categoryId];
+            CategoryLine line = lineFor(categoryId);
+            line.total = Math.addExact(line.total, source.total);
+            line.count += source.count;
+            if (retention == Retention.TRANSACTIONS) {
+                line.transactions.addAll(source.transactions);
+            } else if (retention == Retention.SCHEDULES) {
+                line.schedules.addAll(source.schedules);
+            }
+        }
+    }
+
+    private CategoryLine lineOf(String category) {
+        return lineAt(CategoryRegistry.getDefault().idOf(category));
+    }
+
+    private CategoryLine lineAt(int categoryId) {
+        if (categoryId < 0 || categoryId >= lines.length) {
+            return null;
+        }
+        return lines[categoryId];
+    }
+
+    private CategoryLine lineFor(int categoryId) {
+        if (categoryId >= lines.length) {
+            lines = Arrays.copyOf(lines, Math.max(categoryId + 1, lines.length * 2));
+        }
+        CategoryLine line = lines[categoryId];
+        if (line == null) {
+            line = new CategoryLine(retention == Retention.TRANSACTIONS ? new OccurrenceStore(categoryId,
+                    getDescriptions()) : null, retention == Retention.SCHEDULES ? new ArrayList<>() : null);
+            lines[categoryId] = line;
+            String category = CategoryRegistry.getDefault().nameOf(categoryId);
+            int position = Collections.binarySearch(categories, category);
+            categories.add(-position - 1, category);
+        }
+        return line;
+    }
+
+    /**
+     * The dictionary of the descriptions of the transactions retained, created when the first category line that
+     * retains transactions is.
+     */
+    private StringDictionary getDescriptions() {
+        if (descriptions == null) {
+            descriptions = new StringDictionary();
+        }
+        return descriptions;
+    }
+
+    /**
+     * The transactions or recurring transactions, running total and occurrence count for a single category.
+     */
+    private static class CategoryLine {
+        private final OccurrenceStore transactions;
+        private final List<RecurringTransaction> schedules;
+        private long total;
+        private long count;
+
+        /**
+         * Constructor.
+         *
+         * @param transactions the store in which to keep the category's transactions, or {@code null} if they are not
+         *                     retained
+         * @param schedules the list in which to keep the category's recurring transactions, or {@code null} if they
+         *                  are not retained
+         */
+        CategoryLine(OccurrenceStore transactions, List<RecurringTransaction> schedules) {
+            this.transactions = transactions;
+            this.schedules = schedules;
+        }
+
+        /**
+         * Removes the last occurrences added of a recurring transaction from the transactions or recurring
+         * transactions retained, if any.
+         *
+         * @param recurringTransaction the recurring transaction to remove, compared by identity
+         * @param retention the retention of the budget
+         * @return {@code false} if nothing could be removed although the budget retains transactions or schedules
+         */
+        /* default */ boolean removeSource(RecurringTransaction recurringTransaction, Retention retention) {
+            if (retention == Retention.TRANSACTIONS) {
+                return transactions.remove(recurringTransaction);
+            }
+            if (retention == Retention.SCHEDULES) {
+                for (int i = schedules.size() - 1; i >= 0; i--) {
+                    if (schedules.get(i) == recurringTransaction) {
+                        schedules.remove(i);
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Regenerates the occurrences of a sequence of recurring transactions within a date range, one recurring
+     * transaction after another.
+     */
+    private static class RegeneratingIterator implements Iterator<Transaction> {
+        private final Iterator<RecurringTransaction> schedules;
+        private final LocalDateRange dateRange;
+        private Iterator<Transaction> occurrences = Collections.emptyIterator();
+
+        /**
+         * Constructor.
+         *
+         * @param schedules the recurring transactions whose occurrences to regenerate
+         * @param dateRange the period of time in which to regenerate them
+         */
+        RegeneratingIterator(Iterator<RecurringTransaction> schedules, LocalDateRange dateRange) {
+            this.schedules = schedules;
+            this.dateRange = dateRange;
+        }
+
+        /**
+         * Indicates whether there is another transaction.
+         *
+         * @return {@code true} if there is another transaction
+         */
+        @Override
+        public boolean hasNext() {
+            while (!occurrences.hasNext() && schedules.hasNext()) {
+                occurrences = schedules.next().occurrencesIn(dateRange).iterator();
+            }
+            return occurrences.hasNext();
+        }
+
+        /**
+         * The next transaction, which is the next occurrence of the current recurring transaction or else the first
+         * occurrence of the next recurring transaction that occurs within the date range.
+         *
+         * @return the next transaction
+         */
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return occurrences.next();
         }
-        transactions.add(transaction);
     }
 }
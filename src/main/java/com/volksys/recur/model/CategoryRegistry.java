@@ -0,0 +1,91 @@
+package com.volksys.recur.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns budget category names and assigns each a dense integer id, in the order in which they are registered.
+ *
+ * <p>Categories are registered once per recurring transaction as schedules are loaded, so that budgets can index
+ * their line items by id in an array rather than hashing the category name of every occurrence. Every registered name
+ * resolves to a single shared instance. Registries are safe for use by concurrent threads; lookups of registered
+ * names do not lock.
+ *
+ * <p>Categories are never unregistered. The default registry is shared by the whole process, so a long-running
+ * process, such as one started with {@code --serve} or {@code --watch}, keeps the name of every category it has ever
+ * loaded, even after the schedule that used it has changed. Each {@link Budget} holds an array slot for every id up to
+ * the highest among its categories, so its size grows with the number of categories registered before them. This is
+ * negligible for the hundreds of categories of a household or business schedule, but a process fed an unbounded
+ * variety of category names should be restarted from time to time.
+ */
+public final class CategoryRegistry {
+    private static final CategoryRegistry DEFAULT = new CategoryRegistry();
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[16];
+    private int size;
+
+    /**
+     * The registry used by {@link RecurringTransaction}s, {@link Transaction}s and {@link Budget}s.
+     *
+     * @return the shared registry
+     */
+    public static CategoryRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * The id of a category, registering it if necessary.
+     *
+     * @param name the name of the category
+     * @return its id, which is never negative
+     * @throws NullPointerException if {@code name} is null
+     */
+    public int register(String name) {
+        Integer id = ids.get(Objects.requireNonNull(name, "name"));
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(name);
+            if (id == null) {
+                if (size == names.length) {
+                    names = Arrays.copyOf(names, size * 2);
+                }
+                names[size] = name;
+                id = size++;
+                ids.put(name, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * The id of a category, if it has been registered.
+     *
+     * @param name the name of the category
+     * @return its id, or {@code -1} if it has not been registered
+     */
+    public int idOf(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * The name of a registered category.
+     *
+     * @param id the id of the category
+     * @return the shared instance of its name
+     * @throws IllegalArgumentException if no category has the given id
+     */
+    public String nameOf(int id) {
+        String[] current = names;
+        if (id < 0 || id >= current.length || current[id] == null) {
+            throw new IllegalArgumentException("No category has id " + id);
+        }
+        return current[id];
+    }
+
+}
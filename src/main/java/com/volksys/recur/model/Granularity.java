@@ -0,0 +1,73 @@
+package com.volksys.recur.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * The length of the calendar periods into which a projection is divided.
+ */
+public enum Granularity {
+    /**
+     * One period per day.
+     */
+    DAY(Period.ofDays(1)),
+
+    /**
+     * One period per ISO week, beginning on Monday.
+     */
+    WEEK(Period.ofWeeks(1)),
+
+    /**
+     * One period per calendar month.
+     */
+    MONTH(Period.ofMonths(1)),
+
+    /**
+     * One period per calendar quarter, beginning in January, April, July and October.
+     */
+    QUARTER(Period.ofMonths(3)),
+
+    /**
+     * One period per calendar year.
+     */
+    YEAR(Period.ofYears(1));
+
+    private final Period length;
+
+    Granularity(Period length) {
+        this.length = length;
+    }
+
+    /**
+     * The start of the period containing a date.
+     *
+     * @param date any date
+     * @return the first day of the calendar period containing {@code date}
+     */
+    public LocalDate startOf(LocalDate date) {
+        switch (this) {
+            case WEEK:
+                return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH:
+                return date.withDayOfMonth(1);
+            case QUARTER:
+                return LocalDate.of(date.getYear(), date.getMonth().firstMonthOfQuarter(), 1);
+            case YEAR:
+                return date.withDayOfYear(1);
+            default:
+                return date;
+        }
+    }
+
+    /**
+     * The start of the period following the one that starts on a given date.
+     *
+     * @param start the first day of a period
+     * @return the first day of the following period
+     */
+    public LocalDate next(LocalDate start) {
+        return start.plus(length);
+    }
+}
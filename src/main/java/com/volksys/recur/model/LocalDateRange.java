@@ -52,4 +52,42 @@ public class LocalDateRange {
         return !localDate.isBefore(startInclusive) && localDate.isBefore(endExclusive);
     }
 
+    /**
+     * Indicates whether another object is a date range covering the same dates.
+     *
+     * @param other the object to compare with
+     * @return {@code true} if {@code other} is a date range with the same start and end
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof LocalDateRange)) {
+            return false;
+        }
+        LocalDateRange range = (LocalDateRange) other;
+        return startInclusive.equals(range.startInclusive) && endExclusive.equals(range.endExclusive);
+    }
+
+    /**
+     * A hash code consistent with {@link #equals(Object)}.
+     *
+     * @return the hash code of this date range
+     */
+    @Override
+    public int hashCode() {
+        return 31 * startInclusive.hashCode() + endExclusive.hashCode();
+    }
+
+    /**
+     * A representation of this date range for diagnostic purposes.
+     *
+     * @return the start and end of this date range in ISO format
+     */
+    @Override
+    public String toString() {
+        return "[" + startInclusive + ", " + endExclusive + ")";
+    }
+
 }
@@ -0,0 +1,220 @@
+package com.volksys.recur.model;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Stores the transactions of a single budget category as parallel primitive arrays rather than as objects.
+ *
+ * <p>Each transaction occupies one row of three columns: its date as an epoch day, its amount in cents and the id of
+ * its description in a {@link StringDictionary} shared by the categories of a budget. The category is common to every
+ * row. Transactions are recreated from their rows only when read through {@link #asList()}.
+ *
+ * <p>Consecutive rows are grouped into runs, each recording the recurring transaction whose occurrences it holds, or
+ * {@code null} for transactions added individually, so that the occurrences of a recurring transaction can later be
+ * removed by its identity.
+ */
+final class OccurrenceStore {
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int[] EMPTY = {};
+    private static final RecurringTransaction[] NO_SOURCES = {};
+
+    private final int categoryId;
+    private final StringDictionary descriptions;
+    private final List<Transaction> view = new RowView();
+    private int[] epochDays = EMPTY;
+    private int[] amounts = EMPTY;
+    private int[] descriptionIds = EMPTY;
+    private int size;
+    private RecurringTransaction[] runSources = NO_SOURCES;
+    private int[] runLengths = EMPTY;
+    private int runCount;
+
+    /**
+     * Constructor.
+     *
+     * @param categoryId the id of the category of every transaction in this store
+     * @param descriptions the dictionary in which to record the descriptions of the transactions
+     */
+    /* default */ OccurrenceStore(int categoryId, StringDictionary descriptions) {
+        this.categoryId = categoryId;
+        this.descriptions = descriptions;
+    }
+
+    /**
+     * Appends a transaction that does not belong to a recurring transaction.
+     *
+     * @param transaction a transaction in this store's category
+     */
+    /* default */ void add(Transaction transaction) {
+        ensureCapacity(size + 1);
+        epochDays[size] = Math.toIntExact(transaction.getDate().toEpochDay());
+        amounts[size] = transaction.getAmount();
+        descriptionIds[size] = descriptions.idOf(transaction.getDescription());
+        size++;
+        appendRun(null, 1);
+    }
+
+    /**
+     * Appends the occurrences of a recurring transaction within a date range as a single run.
+     *
+     * @param recurringTransaction a recurring transaction in this store's category
+     * @param range the dates of the occurrences to append
+     */
+    /* default */ void add(RecurringTransaction recurringTransaction, LocalDateRange range) {
+        int descriptionId = descriptions.idOf(recurringTransaction.getDescription());
+        int amount = recurringTransaction.getAmount();
+        int start = size;
+        ensureCapacity(Math.addExact(size, Math.toIntExact(recurringTransaction.countOccurrencesIn(range))));
+        recurringTransaction.forEachOccurrenceIn(range, epochDay -> {
+            epochDays[size] = Math.toIntExact(epochDay);
+            amounts[size] = amount;
+            descriptionIds[size] = descriptionId;
+            size++;
+        });
+        appendRun(recurringTransaction, size - start);
+    }
+
+    /**
+     * Removes the last run of occurrences of a recurring transaction.
+     *
+     * @param recurringTransaction the recurring transaction, compared by identity
+     * @return {@code true} if a run was removed, or {@code false} if this store holds no run of the recurring
+     *         transaction
+     */
+    /* default */ boolean remove(RecurringTransaction recurringTransaction) {
+        int offset = size;
+        for (int run = runCount - 1; run >= 0; run--) {
+            offset -= runLengths[run];
+            if (runSources[run] == recurringTransaction) {
+                removeRows(offset, runLengths[run]);
+                removeRun(run);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void removeRows(int offset, int length) {
+        int tail = size - offset - length;
+        System.arraycopy(epochDays, offset + length, epochDays, offset, tail);
+        System.arraycopy(amounts, offset + length, amounts, offset, tail);
+        System.arraycopy(descriptionIds, offset + length, descriptionIds, offset, tail);
+        size -= length;
+    }
+
+    /**
+     * Removes a run, joining the runs either side of it if both hold individually added transactions.
+     */
+    @SuppressWarnings("PMD.NullAssignment")
+    private void removeRun(int run) {
+        int following = runCount - run - 1;
+        System.arraycopy(runSources, run + 1, runSources, run, following);
+        System.arraycopy(runLengths, run + 1, runLengths, run, following);
+        runCount--;
+        runSources[runCount] = null;
+        if (run > 0 && run < runCount && runSources[run - 1] == null && runSources[run] == null) {
+            runLengths[run - 1] += runLengths[run];
+            removeRun(run);
+        }
+    }
+
+    /**
+     * Appends every transaction in another store for the same category, in order.
+     *
+     * @param other the store whose transactions to append, which is not modified
+     */
+    /* default */ void addAll(OccurrenceStore other) {
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.epochDays, 0, epochDays, size, other.size);
+        System.arraycopy(other.amounts, 0, amounts, size, other.size);
+        if (other.descriptions == descriptions) {
+            System.arraycopy(other.descriptionIds, 0, descriptionIds, size, other.size);
+        } else {
+            int[] remapped = new int[other.descriptions.size()];
+            Arrays.fill(remapped, -1);
+            for (int row = 0; row < other.size; row++) {
+                int id = other.descriptionIds[row];
+                if (remapped[id] < 0) {
+                    remapped[id] = descriptions.idOf(other.descriptions.get(id));
+                }
+                descriptionIds[size + row] = remapped[id];
+            }
+        }
+        size += other.size;
+        for (int run = 0; run < other.runCount; run++) {
+            appendRun(other.runSources[run], other.runLengths[run]);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > epochDays.length) {
+            int length = Math.max(Math.max(INITIAL_CAPACITY, capacity), epochDays.length * 2);
+            epochDays = Arrays.copyOf(epochDays, length);
+            amounts = Arrays.copyOf(amounts, length);
+            descriptionIds = Arrays.copyOf(descriptionIds, length);
+        }
+    }
+
+    /**
+     * Records that the last rows appended belong to a recurring transaction, extending the last run instead if both
+     * hold individually added transactions.
+     */
+    private void appendRun(RecurringTransaction source, int length) {
+        if (source == null && runCount > 0 && runSources[runCount - 1] == null) {
+            runLengths[runCount - 1] += length;
+            return;
+        }
+        if (runCount == runLengths.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, runCount * 2);
+            runSources = Arrays.copyOf(runSources, capacity);
+            runLengths = Arrays.copyOf(runLengths, capacity);
+        }
+        runSources[runCount] = source;
+        runLengths[runCount] = length;
+        runCount++;
+    }
+
+    /**
+     * The transactions in this store.
+     *
+     * @return an unmodifiable view of the transactions, in the order in which they were added, which reflects later
+     *         additions and recreates a transaction from its row each time one is read
+     */
+    /* default */ List<Transaction> asList() {
+        return view;
+    }
+
+    /**
+     * Presents the rows of the store as transactions.
+     */
+    private class RowView extends AbstractList<Transaction> implements RandomAccess {
+        /**
+         * Recreates the transaction in a given row.
+         *
+         * @param row the row of interest
+         * @return the transaction stored in the row
+         */
+        @Override
+        public Transaction get(int row) {
+            if (row < 0 || row >= size) {
+                throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+            }
+            return new Transaction(descriptions.get(descriptionIds[row]), amounts[row], categoryId,
+                    LocalDate.ofEpochDay(epochDays[row]));
+        }
+
+        /**
+         * The number of transactions in the store.
+         *
+         * @return the number of rows
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.volksys.recur.model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Locates the period containing a given date among a set of non-overlapping periods.
+ *
+ * <p>Periods may be of any length, may be supplied in any order and may leave gaps between them. Lookups are
+ * answered from a table keyed by epoch day when the periods span a modest number of days, and by binary search over
+ * the period boundaries otherwise.
+ */
+public class PeriodIndex {
+    private static final int MAX_TABLE_DAYS = 1 << 16;
+
+    private final long[] starts;
+    private final long[] ends;
+    private final int[] positions;
+    private final int[] table;
+    private final LocalDateRange span;
+
+    /**
+     * Constructor.
+     *
+     * @param periods (not empty) the periods to index
+     * @throws IllegalArgumentException if {@code periods} is empty or any two periods overlap
+     */
+    public PeriodIndex(List<LocalDateRange> periods) {
+        if (periods.isEmpty()) {
+            throw new IllegalArgumentException("At least one period is required");
+        }
+        Integer[] order = new Integer[periods.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> periods.get(i).getStartInclusive()));
+        starts = new long[order.length];
+        ends = new long[order.length];
+        positions = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            LocalDateRange period = periods.get(order[i]);
+            starts[i] = period.getStartInclusive().toEpochDay();
+            ends[i] = period.getEndExclusive().toEpochDay();
+            positions[i] = order[i];
+            if (i > 0 && starts[i] < ends[i - 1]) {
+                throw new IllegalArgumentException("Periods must not overlap");
+            }
+        }
+        long last = ends[ends.length - 1];
+        span = new LocalDateRange(LocalDate.ofEpochDay(starts[0]), LocalDate.ofEpochDay(last));
+        table = last - starts[0] <= MAX_TABLE_DAYS ? buildTable((int) (last - starts[0])) : new int[0];
+    }
+
+    private int[] buildTable(int days) {
+        int[] result = new int[days];
+        Arrays.fill(result, -1);
+        for (int i = 0; i < starts.length; i++) {
+            Arrays.fill(result, (int) (starts[i] - starts[0]), (int) (ends[i] - starts[0]), positions[i]);
+        }
+        return result;
+    }
+
+    /**
+     * The number of periods in this index.
+     *
+     * @return the number of indexed periods
+     */
+    public int size() {
+        return positions.length;
+    }
+
+    /**
+     * The dates from the start of the earliest period to the end of the latest period.
+     *
+     * @return a date range enclosing every indexed period
+     */
+    public LocalDateRange getSpan() {
+        return span;
+    }
+
+    /**
+     * The first day of each period, in order of start.
+     *
+     * @return a new array of the epoch days on which the periods start, in ascending order
+     */
+    public long[] getStarts() {
+        return starts.clone();
+    }
+
+    /**
+     * The day following each period, in order of start.
+     *
+     * @return a new array of the epoch days on which the periods end (exclusive), in ascending order
+     */
+    public long[] getEnds() {
+        return ends.clone();
+    }
+
+    /**
+     * The position of each period in the list supplied at construction, in order of start.
+     *
+     * @return a new array mapping the rank of each period by start to its position
+     */
+    public int[] getPositions() {
+        return positions.clone();
+    }
+
+    /**
+     * Locates the period containing a given date.
+     *
+     * @param date the date to locate
+     * @return the position of the containing period in the list supplied at construction, or {@code -1} if no
+     *         period contains {@code date}
+     */
+    public int indexOf(LocalDate date) {
+        return indexOf(date.toEpochDay());
+    }
+
+    /**
+     * Locates the period containing a given epoch day.
+     *
+     * @param epochDay the date to locate, expressed as a count of days since 1970-01-01
+     * @return the position of the containing period in the list supplied at construction, or {@code -1} if no
+     *         period contains {@code epochDay}
+     */
+    public int indexOf(long epochDay) {
+        long offset = epochDay - starts[0];
+        if (table.length > 0) {
+            return offset >= 0 && offset < table.length ? table[(int) offset] : -1;
+        }
+        int slot = Arrays.binarySearch(starts, epochDay);
+        if (slot < 0) {
+            slot = -slot - 2;
+        }
+        return slot >= 0 && epochDay < ends[slot] ? positions[slot] : -1;
+    }
+
+}
@@ -1,19 +1,43 @@
 package com.volksys.recur.model;
 
+import com.volksys.recur.metrics.Counter;
+import com.volksys.recur.metrics.Metrics;
+
 import java.time.LocalDate;
 import java.time.Period;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Represents a financial transaction that occurs on a regular basis.
+ *
+ * <p>The category is registered with the default {@link CategoryRegistry} on construction, so recurring transactions
+ * loaded from many rows naming the same category share a single instance of its name.
+ *
+ * <p>Occurrences are counted in periods from the initial occurrence rather than from the previous occurrence, so
+ * month-based schedules keep their day of month: a transaction first occurring on January 31 every month occurs on
+ * February 28 and then on March 31.
+ *
+ * <p>A transaction without a final occurrence has infinitely many occurrences, so iterating over all of them never
+ * ends. Use {@link #occurrencesIn(LocalDateRange)}, {@link #stream(LocalDateRange)} or
+ * {@link #forEachOccurrenceIn(LocalDateRange, LongConsumer)} to visit the occurrences within a horizon instead.
  */
+@SuppressWarnings("PMD.TooManyMethods")
 public class RecurringTransaction implements Iterable<Transaction> {
     private final int amount;
     private final String category;
+    private final int categoryId;
     private final LocalDate initialOccurrence;
     private final LocalDate finalOccurrence;
     private final Period period;
     private final String description;
+    private final Schedule schedule;
 
     /**
      * Constructor.
@@ -24,15 +48,18 @@ public class RecurringTransaction implements Iterable<Transaction> {
      * @param initialOccurrence The first occurrence of this transaction
      * @param finalOccurrence (nullable) The last occurrence of this transaction
      * @param period The amount of time that passes between occurrences of this transaction
+     * @throws NullPointerException if {@code category} is null
      */
     public RecurringTransaction(String description, int amount, String category,
                                 LocalDate initialOccurrence, LocalDate finalOccurrence, Period period) {
         this.description = description;
         this.amount = amount;
-        this.category = category;
+        this.categoryId = CategoryRegistry.getDefault().register(Objects.requireNonNull(category, "category"));
+        this.category = CategoryRegistry.getDefault().nameOf(categoryId);
         this.initialOccurrence = initialOccurrence;
         this.finalOccurrence = finalOccurrence;
         this.period = period;
+        this.schedule = Schedule.compile(initialOccurrence, finalOccurrence, period);
     }
 
     /**
@@ -62,6 +89,15 @@ public class RecurringTransaction implements Iterable<Transaction> {
         return category;
     }
 
+    /**
+     * The id of the budget category to which this transaction belongs.
+     *
+     * @return the id of the category in the default {@link CategoryRegistry}
+     */
+    public int getCategoryId() {
+        return categoryId;
+    }
+
     /**
      * The date of the initial occurrence of this transaction.
      *
@@ -96,32 +132,282 @@ public class RecurringTransaction implements Iterable<Transaction> {
      */
     @Override
     public Iterator<Transaction> iterator() {
-        return new Iterator<Transaction>() {
-            private LocalDate date = initialOccurrence;
-
-            /**
-             * Indicates whether there is another transaction.
-             *
-             * @return {@code true} if there is another transaction
-             */
-            @Override
-            public boolean hasNext() {
-                return finalOccurrence == null || !date.isAfter(finalOccurrence);
+        return new OccurrenceIterator(0, schedule.stepsBefore(null));
+    }
+
+    /**
+     * Spliterator over all occurrences of this transaction in chronological order. It reports its exact size if this
+     * transaction has a final occurrence, in which case it splits in halves by the number of occurrences. Otherwise it
+     * reports an infinite estimate and splits off batches of the earliest occurrences, growing with each split, so the
+     * remainder never jumps beyond the occurrences that can be dated.
+     *
+     * @return all occurrences of this transaction in natural (ascending) chronological order
+     */
+    @Override
+    public Spliterator<Transaction> spliterator() {
+        return new OccurrenceSpliterator(0, schedule.stepsBefore(null), finalOccurrence != null);
+    }
+
+    /**
+     * Stream of the occurrences of this transaction that fall within a given date range, in chronological order. The
+     * stream is finite even if this transaction has no final occurrence, knows its exact size, and splits evenly for
+     * parallel processing: the occurrence at any position is computed from its number of steps from the initial
+     * occurrence, without visiting its predecessors, for every period of whole days, weeks, months or years.
+     *
+     * @param range the dates of interest
+     * @return the occurrences of this transaction falling within {@code range}
+     */
+    public Stream<Transaction> stream(LocalDateRange range) {
+        long start = schedule.stepsBefore(range.getStartInclusive());
+        long end = schedule.stepsBefore(range.getEndExclusive());
+        countSeek(start, end);
+        return StreamSupport.stream(new OccurrenceSpliterator(start, end, true), false);
+    }
+
+    /**
+     * Occurrences of this transaction that fall within a given date range, in chronological order. The first
+     * occurrence is located arithmetically rather than by stepping from the initial occurrence, so the cost of
+     * iteration is proportional to the number of occurrences in the range regardless of how long ago this
+     * transaction began.
+     *
+     * @param range the dates of interest
+     * @return the occurrences of this transaction falling within {@code range}
+     */
+    public Iterable<Transaction> occurrencesIn(LocalDateRange range) {
+        return () -> {
+            long start = schedule.stepsBefore(range.getStartInclusive());
+            long end = schedule.stepsBefore(range.getEndExclusive());
+            countSeek(start, end);
+            return new OccurrenceIterator(start, end);
+        };
+    }
+
+    /**
+     * Visits the dates of the occurrences of this transaction that fall within a given date range, in chronological
+     * order, without creating a {@link Transaction} or a {@link LocalDate} for each.
+     *
+     * @param range the dates of interest
+     * @param action the action to perform with the date of each occurrence, expressed as a count of days since
+     *               1970-01-01
+     */
+    public void forEachOccurrenceIn(LocalDateRange range, LongConsumer action) {
+        long start = schedule.stepsBefore(range.getStartInclusive());
+        long end = schedule.stepsBefore(range.getEndExclusive());
+        countSeek(start, end);
+        for (long step = start; step < end; step++) {
+            action.accept(schedule.epochDayAfter(step));
+        }
+    }
+
+    private static void countSeek(long start, long end) {
+        Metrics.count(Counter.OCCURRENCES_SKIPPED, start);
+        Metrics.count(Counter.OCCURRENCES_GENERATED, Math.max(0, end - start));
+    }
+
+    /**
+     * The date of the first occurrence of this transaction on or after a given date.
+     *
+     * @param date the earliest date of interest
+     * @return the date of the earliest occurrence that is not before {@code date}, or {@code null} if there is no
+     *         such occurrence
+     */
+    public LocalDate firstOccurrenceOnOrAfter(LocalDate date) {
+        return schedule.firstOccurrenceOnOrAfter(date);
+    }
+
+    /**
+     * The number of occurrences of this transaction that fall within a given date range. The count is computed
+     * arithmetically without visiting the individual occurrences wherever the period allows.
+     *
+     * @param range the dates of interest
+     * @return the number of occurrences of this transaction falling within {@code range}
+     */
+    public long countOccurrencesIn(LocalDateRange range) {
+        return schedule.countOccurrencesIn(range);
+    }
+
+    /**
+     * Indicates whether another object is a recurring transaction with the same description, amount, category and
+     * schedule.
+     *
+     * @param other the object to compare
+     * @return {@code true} if {@code other} describes the same recurring transaction
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof RecurringTransaction)) {
+            return false;
+        }
+        RecurringTransaction rt = (RecurringTransaction) other;
+        return amount == rt.amount && categoryId == rt.categoryId && Objects.equals(description, rt.description)
+                && initialOccurrence.equals(rt.initialOccurrence)
+                && Objects.equals(finalOccurrence, rt.finalOccurrence) && period.equals(rt.period);
+    }
+
+    /**
+     * A hash code consistent with {@link #equals(Object)}.
+     *
+     * @return the hash code of this recurring transaction
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(description, amount, categoryId, initialOccurrence, finalOccurrence, period);
+    }
+
+    /**
+     * Iterates over a range of the occurrences of this transaction, numbered by their steps from the initial
+     * occurrence.
+     */
+    private class OccurrenceIterator implements Iterator<Transaction> {
+        private final long endStep;
+        private long step;
+
+        /**
+         * Constructor.
+         *
+         * @param step the number of steps to the first occurrence to return
+         * @param endStep the number of steps to the first occurrence not to return
+         */
+        OccurrenceIterator(long step, long endStep) {
+            this.step = step;
+            this.endStep = endStep;
+        }
+
+        /**
+         * Indicates whether there is another transaction.
+         *
+         * @return {@code true} if there is another transaction
+         */
+        @Override
+        public boolean hasNext() {
+            return step < endStep;
+        }
+
+        /**
+         * The next transaction chronologically.
+         *
+         * @return the transaction that occurs soonest after the transaction returned by the last invocation of
+         *         this method, or the first transaction if this method has not previously been invoked.
+         */
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
+            return occurrenceAfter(step++);
+        }
+    }
+
+    /**
+     * The occurrence reached a given number of steps after the initial occurrence.
+     */
+    private Transaction occurrenceAfter(long steps) {
+        return new Transaction(description, amount, categoryId, LocalDate.ofEpochDay(schedule.epochDayAfter(steps)));
+    }
+
+    /**
+     * Spliterator over a range of occurrences, numbered by their steps from the initial occurrence.
+     */
+    private class OccurrenceSpliterator implements Spliterator<Transaction> {
+        private static final int BATCH_UNIT = 1 << 10;
+        private static final int MAX_BATCH = 1 << 25;
+
+        private final boolean sized;
+        private final long endStep;
+        private long step;
+        private int batch;
 
-            /**
-             * The next transaction chronologically.
-             *
-             * @return the transaction that occurs soonest after the transaction returned by the last invocation of
-             *         this method, or the first transaction if this method has not previously been invoked.
-             */
-            @Override
-            public Transaction next() {
-                Transaction transaction = new Transaction(description, amount, category, date);
-                date = date.plus(period);
-                return transaction;
+        /**
+         * Constructor.
+         *
+         * @param step the number of steps to the first occurrence to return
+         * @param endStep the number of steps to the first occurrence not to return
+         * @param sized {@code true} if {@code endStep} is the exact end of the occurrences, or {@code false} if it
+         *              stands for an infinite number of them
+         */
+        OccurrenceSpliterator(long step, long endStep, boolean sized) {
+            this.step = step;
+            this.endStep = endStep;
+            this.sized = sized;
+        }
+
+        /**
+         * Performs an action on the next occurrence, if any.
+         *
+         * @param action the action to perform
+         * @return {@code true} if there was another occurrence
+         */
+        @Override
+        public boolean tryAdvance(Consumer<? super Transaction> action) {
+            if (step >= endStep) {
+                return false;
             }
-        };
+            action.accept(occurrenceAfter(step++));
+            return true;
+        }
+
+        /**
+         * Performs an action on each remaining occurrence, in chronological order.
+         *
+         * @param action the action to perform
+         */
+        @Override
+        public void forEachRemaining(Consumer<? super Transaction> action) {
+            long end = endStep;
+            long next = step;
+            step = end;
+            for (; next < end; next++) {
+                action.accept(occurrenceAfter(next));
+            }
+        }
+
+        /**
+         * Splits off the earlier half of the remaining occurrences or, if they are infinite, a batch of the earliest
+         * occurrences, which is larger than the batch split off before.
+         *
+         * @return a spliterator over the earlier occurrences, or {@code null} if fewer than two occurrences remain
+         */
+        @Override
+        public Spliterator<Transaction> trySplit() {
+            long middle;
+            if (sized) {
+                middle = step + (endStep - step) / 2;
+            } else {
+                batch = Math.min(batch + BATCH_UNIT, MAX_BATCH);
+                middle = step + batch;
+            }
+            if (middle == step) {
+                return null;
+            }
+            Spliterator<Transaction> prefix = new OccurrenceSpliterator(step, middle, true);
+            step = middle;
+            return prefix;
+        }
+
+        /**
+         * The number of occurrences remaining.
+         *
+         * @return the exact number of remaining occurrences, or {@link Long#MAX_VALUE} if they are infinite
+         */
+        @Override
+        public long estimateSize() {
+            return sized ? endStep - step : Long.MAX_VALUE;
+        }
+
+        /**
+         * The characteristics of the occurrences: ordered, distinct, non-null and immutable, and sized unless
+         * infinite.
+         *
+         * @return the characteristics as {@link Spliterator} flags
+         */
+        @Override
+        public int characteristics() {
+            int characteristics = ORDERED | DISTINCT | NONNULL | IMMUTABLE;
+            return sized ? characteristics | SIZED | SUBSIZED : characteristics;
+        }
     }
 
 }
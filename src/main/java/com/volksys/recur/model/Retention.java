@@ -0,0 +1,23 @@
+package com.volksys.recur.model;
+
+/**
+ * What a {@link Budget} keeps in memory about the transactions it accommodates.
+ */
+public enum Retention {
+    /**
+     * Every transaction is retained and available from {@link Budget#getTransactionsFor(String)}.
+     */
+    TRANSACTIONS,
+
+    /**
+     * Only per-category totals and occurrence counts are retained, so memory does not grow with transactions.
+     */
+    TOTALS,
+
+    /**
+     * Per-category totals and occurrence counts are retained along with the recurring transactions that contributed
+     * to each category, from which the transactions are regenerated on demand. Memory grows with the number of
+     * recurring transactions rather than the number of their occurrences.
+     */
+    SCHEDULES
+}
@@ -0,0 +1,310 @@
+package com.volksys.recur.model;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Period;
+import java.time.chrono.IsoChronology;
+
+/**
+ * Date arithmetic over the occurrences of a recurring transaction. Occurrences are numbered by the count of steps
+ * from the initial occurrence, which lets them be located and counted without visiting their predecessors.
+ *
+ * <p>A schedule is compiled for its period when it is created. Periods of whole days or weeks step by a fixed number
+ * of epoch days. Periods of whole months or years, optionally with some days, are anchored to the initial
+ * occurrence: the occurrence after {@code n} steps falls {@code n} periods after the initial occurrence, with its day
+ * of month clamped to the length of its own month only, so a schedule starting on January 31 occurs on February 28
+ * and then on March 31. Occurrences are computed as epoch days without creating dates. Periods with negative
+ * components are stepped from one occurrence to the next, resuming from the last occurrence looked up, and periods
+ * that do not advance the date yield only the initial occurrence.
+ */
+@SuppressWarnings({"PMD.AbstractNaming", "PMD.TooManyMethods"})
+abstract class Schedule {
+    private static final long DAYS_0000_TO_1970 = 719_528L;
+
+    /* default */ final long initialDay;
+    private long occurrenceLimit;
+
+    private Schedule(LocalDate initialOccurrence) {
+        this.initialDay = initialOccurrence.toEpochDay();
+    }
+
+    /**
+     * Compiles the schedule of a recurring transaction.
+     *
+     * @param initialOccurrence the first occurrence
+     * @param finalOccurrence (nullable) the last occurrence
+     * @param period the amount of time that passes between occurrences
+     * @return a schedule specialized for {@code period}
+     */
+    /* default */ static Schedule compile(LocalDate initialOccurrence, LocalDate finalOccurrence, Period period) {
+        Schedule schedule;
+        long limit = Long.MAX_VALUE;
+        if (period.isNegative() && initialOccurrence.plus(period).isAfter(initialOccurrence)) {
+            schedule = new Stepped(initialOccurrence, period);
+        } else if (period.isNegative() || period.isZero()) {
+            schedule = new SingleOccurrence(initialOccurrence);
+            limit = 1;
+        } else if (period.toTotalMonths() > 0) {
+            schedule = new MonthStride(initialOccurrence, period.toTotalMonths(), period.getDays());
+        } else {
+            schedule = new DayStride(initialOccurrence, period.getDays());
+        }
+        if (finalOccurrence != null) {
+            limit = Math.min(limit, schedule.occurrencesBefore(finalOccurrence.plusDays(1)));
+        }
+        schedule.occurrenceLimit = limit;
+        return schedule;
+    }
+
+    /**
+     * The date of the first occurrence on or after a given date.
+     *
+     * @param date the earliest date of interest
+     * @return the date of the earliest occurrence that is not before {@code date}, or {@code null} if there is no
+     *         such occurrence
+     */
+    public LocalDate firstOccurrenceOnOrAfter(LocalDate date) {
+        long steps = occurrencesBefore(date);
+        if (steps >= occurrenceLimit) {
+            return null;
+        }
+        return LocalDate.ofEpochDay(epochDayAfter(steps));
+    }
+
+    /**
+     * The number of occurrences that fall within a given date range.
+     *
+     * @param range the dates of interest
+     * @return the number of occurrences falling within {@code range}
+     */
+    public long countOccurrencesIn(LocalDateRange range) {
+        return stepsBefore(range.getEndExclusive()) - stepsBefore(range.getStartInclusive());
+    }
+
+    /**
+     * The number of occurrences before a given date, which is also the number of steps from the initial occurrence
+     * to the first occurrence on or after the date.
+     *
+     * @param date (nullable) the date of interest, or {@code null} for the number of all occurrences
+     * @return the number of steps, which is {@link Long#MAX_VALUE} if {@code date} is {@code null} and there is no
+     *         final occurrence
+     */
+    public long stepsBefore(LocalDate date) {
+        return date == null ? occurrenceLimit : Math.min(occurrencesBefore(date), occurrenceLimit);
+    }
+
+    /**
+     * The epoch day of the occurrence reached a given number of steps after the initial occurrence.
+     *
+     * @param steps the number of steps, which must be less than the number of occurrences
+     * @return the date of the occurrence, expressed as a count of days since 1970-01-01
+     */
+    /* default */ abstract long epochDayAfter(long steps);
+
+    /**
+     * The number of occurrences, disregarding the final occurrence, that fall before a given date.
+     */
+    private long occurrencesBefore(LocalDate date) {
+        return date.toEpochDay() <= initialDay ? 0 : stepsBeforeLaterDate(date);
+    }
+
+    /**
+     * The number of occurrences, disregarding the final occurrence, that fall before a date after the initial
+     * occurrence.
+     */
+    /* default */ abstract long stepsBeforeLaterDate(LocalDate date);
+
+    /**
+     * Occurs every given number of days.
+     */
+    private static final class DayStride extends Schedule {
+        private final long stride;
+
+        DayStride(LocalDate initialOccurrence, long stride) {
+            super(initialOccurrence);
+            this.stride = stride;
+        }
+
+        @Override
+        /* default */ long epochDayAfter(long steps) {
+            return initialDay + steps * stride;
+        }
+
+        @Override
+        /* default */ long stepsBeforeLaterDate(LocalDate date) {
+            return (date.toEpochDay() - initialDay + stride - 1) / stride;
+        }
+    }
+
+    /**
+     * Occurs every given number of months and days, anchored to the initial occurrence.
+     */
+    private static final class MonthStride extends Schedule {
+        private final long initialMonth;
+        private final int initialDayOfMonth;
+        private final long stride;
+        private final long days;
+
+        MonthStride(LocalDate initialOccurrence, long stride, long days) {
+            super(initialOccurrence);
+            this.initialMonth = monthIndex(initialOccurrence);
+            this.initialDayOfMonth = initialOccurrence.getDayOfMonth();
+            this.stride = stride;
+            this.days = days;
+        }
+
+        @Override
+        /* default */ long epochDayAfter(long steps) {
+            long month = initialMonth + steps * stride;
+            long year = Math.floorDiv(month, 12);
+            int monthOfYear = (int) Math.floorMod(month, 12) + 1;
+            int dayOfMonth = Math.min(initialDayOfMonth, lengthOf(year, monthOfYear));
+            return epochDay(year, monthOfYear, dayOfMonth) + steps * days;
+        }
+
+        @Override
+        /* default */ long stepsBeforeLaterDate(LocalDate date) {
+            if (days > 0) {
+                return search(date.toEpochDay());
+            }
+            long targetMonth = monthIndex(date);
+            long steps = (targetMonth - initialMonth + stride - 1) / stride;
+            if (initialMonth + steps * stride == targetMonth
+                    && Math.min(initialDayOfMonth, date.lengthOfMonth()) < date.getDayOfMonth()) {
+                steps++;
+            }
+            return steps;
+        }
+
+        /**
+         * Finds the first occurrence on or after an epoch day by doubling, then halving, the number of steps, since
+         * periods mixing months and days do not divide evenly into months.
+         */
+        private long search(long epochDay) {
+            long high = 1;
+            while (epochDayAfter(high) < epochDay) {
+                high *= 2;
+            }
+            long low = high / 2;
+            while (low < high) {
+                long middle = (low + high) >>> 1;
+                if (epochDayAfter(middle) < epochDay) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Occurs every period from the previous occurrence, for periods with negative components that nevertheless
+     * advance the date.
+     */
+    private static final class Stepped extends Schedule {
+        private final Cursor origin;
+        private final Period period;
+        private volatile Cursor cursor;
+
+        Stepped(LocalDate initialOccurrence, Period period) {
+            super(initialOccurrence);
+            this.origin = new Cursor(0, initialOccurrence);
+            this.period = period;
+            this.cursor = origin;
+        }
+
+        @Override
+        /* default */ long epochDayAfter(long steps) {
+            Cursor reached = cursor;
+            if (reached.steps > steps) {
+                reached = origin;
+            }
+            LocalDate occurrence = reached.occurrence;
+            for (long step = reached.steps; step < steps; step++) {
+                occurrence = occurrence.plus(period);
+            }
+            cursor = new Cursor(steps, occurrence);
+            return occurrence.toEpochDay();
+        }
+
+        @Override
+        /* default */ long stepsBeforeLaterDate(LocalDate date) {
+            Cursor reached = cursor;
+            if (!reached.occurrence.isBefore(date)) {
+                reached = origin;
+            }
+            long steps = reached.steps;
+            LocalDate occurrence = reached.occurrence;
+            while (occurrence.isBefore(date)) {
+                occurrence = occurrence.plus(period);
+                steps++;
+            }
+            cursor = new Cursor(steps, occurrence);
+            return steps;
+        }
+    }
+
+    /**
+     * An occurrence of a stepped schedule and its number of steps from the initial occurrence, from which the next
+     * lookup resumes, so that visiting the occurrences in order steps through each only once.
+     */
+    private static final class Cursor {
+        private final long steps;
+        private final LocalDate occurrence;
+
+        Cursor(long steps, LocalDate occurrence) {
+            this.steps = steps;
+            this.occurrence = occurrence;
+        }
+    }
+
+    /**
+     * Occurs only on the initial occurrence, for periods that do not advance the date.
+     */
+    private static final class SingleOccurrence extends Schedule {
+        SingleOccurrence(LocalDate initialOccurrence) {
+            super(initialOccurrence);
+        }
+
+        @Override
+        /* default */ long epochDayAfter(long steps) {
+            return initialDay;
+        }
+
+        @Override
+        /* default */ long stepsBeforeLaterDate(LocalDate date) {
+            return 1;
+        }
+    }
+
+    private static long monthIndex(LocalDate date) {
+        return date.getYear() * 12L + date.getMonthValue() - 1;
+    }
+
+    private static int lengthOf(long year, int monthOfYear) {
+        return Month.of(monthOfYear).length(IsoChronology.INSTANCE.isLeapYear(year));
+    }
+
+    /**
+     * The epoch day of a date in the proleptic Gregorian calendar, computed as by {@link LocalDate#toEpochDay()}
+     * without creating the date.
+     */
+    private static long epochDay(long year, int monthOfYear, int dayOfMonth) {
+        long total = 365 * year;
+        if (year >= 0) {
+            total += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        } else {
+            total -= year / -4 - year / -100 + year / -400;
+        }
+        total += (367 * monthOfYear - 362) / 12 + dayOfMonth - 1;
+        if (monthOfYear > 2) {
+            total--;
+            if (!IsoChronology.INSTANCE.isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.volksys.recur.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns dense integer ids to distinct strings, in the order in which they are first seen, so that repeated strings
+ * can be stored as ids and share a single instance.
+ */
+final class StringDictionary {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    /**
+     * The id of a string, assigning the next id if the string has not been seen before.
+     *
+     * @param string the string to look up
+     * @return its id
+     */
+    /* default */ int idOf(String string) {
+        Integer id = ids.get(string);
+        if (id == null) {
+            id = strings.size();
+            ids.put(string, id);
+            strings.add(string);
+        }
+        return id;
+    }
+
+    /**
+     * The string with a given id.
+     *
+     * @param id an id previously returned by {@link #idOf(String)}
+     * @return the first instance of the string seen by this dictionary
+     */
+    /* default */ String get(int id) {
+        return strings.get(id);
+    }
+
+    /**
+     * The number of distinct strings seen.
+     *
+     * @return one more than the largest id assigned
+     */
+    /* default */ int size() {
+        return strings.size();
+    }
+}
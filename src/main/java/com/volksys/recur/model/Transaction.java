@@ -1,6 +1,7 @@
 package com.volksys.recur.model;
 
 import java.time.LocalDate;
+import java.util.Objects;
 
 /**
  * Represents a single financial transaction.
@@ -9,6 +10,7 @@ public class Transaction {
     private final String description;
     private final int amount;
     private final String category;
+    private final int categoryId;
     private final LocalDate date;
 
     /**
@@ -18,11 +20,27 @@ public class Transaction {
      * @param amount the amount of the transaction in hundredths of a whole currency unit.
      * @param category the name of the budget category to which this transaction belongs
      * @param date the date of the transaction
+     * @throws NullPointerException if {@code category} is null
      */
     public Transaction(String description, int amount, String category, LocalDate date) {
+        this(description, amount, CategoryRegistry.getDefault().register(Objects.requireNonNull(category, "category")),
+                date);
+    }
+
+    /**
+     * Constructor for a transaction in a registered category.
+     *
+     * @param description A description of this transaction
+     * @param amount the amount of the transaction in hundredths of a whole currency unit.
+     * @param categoryId the id of the budget category to which this transaction belongs in the default
+     *        {@link CategoryRegistry}
+     * @param date the date of the transaction
+     */
+    /* default */ Transaction(String description, int amount, int categoryId, LocalDate date) {
         this.description = description;
         this.amount = amount;
-        this.category = category;
+        this.category = CategoryRegistry.getDefault().nameOf(categoryId);
+        this.categoryId = categoryId;
         this.date = date;
     }
 
@@ -53,6 +71,15 @@ public class Transaction {
         return category;
     }
 
+    /**
+     * The id of the budget category to which this transaction belongs.
+     *
+     * @return the id of the category in the default {@link CategoryRegistry}
+     */
+    public int getCategoryId() {
+        return categoryId;
+    }
+
     /**
      * The date of this transaction.
      *
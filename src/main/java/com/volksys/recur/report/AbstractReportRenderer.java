@@ -0,0 +1,105 @@
+package com.volksys.recur.report;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+
+/**
+ * A base for renderers writing to a character stream.
+ *
+ * <p>Amounts are formatted from cents with integer arithmetic and dates from their fields, without going through
+ * {@code double}, {@code DecimalFormat} or {@code DateTimeFormatter}. Output should be buffered by the writer
+ * supplied.
+ */
+public abstract class AbstractReportRenderer implements ReportRenderer {
+    private final Writer out;
+
+    /**
+     * Constructor.
+     *
+     * @param out the destination of the report, which should be buffered
+     */
+    protected AbstractReportRenderer(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Completes the report and flushes it to the destination, which is left open.
+     *
+     * @throws IOException if the report cannot be written
+     */
+    @Override
+    public void finish() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * The destination of the report.
+     *
+     * @return the writer given to the constructor
+     */
+    protected Writer getWriter() {
+        return out;
+    }
+
+    /**
+     * Writes an amount of cents as a decimal number with two fractional digits, such as {@code -1234.05}.
+     *
+     * @param cents the amount in hundredths of a whole currency unit
+     * @param omitZeroWhole whether to omit a whole part of zero, writing {@code .05} rather than {@code 0.05}
+     * @param symbol the currency symbol to write between the sign and the digits, which may be empty
+     * @throws IOException if the report cannot be written
+     */
+    protected void writeAmount(long cents, boolean omitZeroWhole, String symbol) throws IOException {
+        if (cents < 0) {
+            out.write('-');
+        }
+        out.write(symbol);
+        long whole = Math.abs(cents / 100);
+        int fraction = (int) Math.abs(cents % 100);
+        if (whole != 0 || !omitZeroWhole) {
+            writeDigits(whole);
+        }
+        out.write('.');
+        out.write('0' + fraction / 10);
+        out.write('0' + fraction % 10);
+    }
+
+    /**
+     * Writes a non-negative integer in decimal.
+     *
+     * @param value the integer
+     * @throws IOException if the report cannot be written
+     */
+    protected void writeDigits(long value) throws IOException {
+        if (value >= 10) {
+            writeDigits(value / 10);
+        }
+        out.write((int) ('0' + value % 10));
+    }
+
+    /**
+     * Writes a date in ISO {@code yyyy-MM-dd} format.
+     *
+     * @param date the date
+     * @throws IOException if the report cannot be written
+     */
+    protected void writeDate(LocalDate date) throws IOException {
+        int year = date.getYear();
+        if (year < 1000 || year > 9999) {
+            out.write(date.toString());
+            return;
+        }
+        writeDigits(year);
+        out.write('-');
+        writeTwoDigits(date.getMonthValue());
+        out.write('-');
+        writeTwoDigits(date.getDayOfMonth());
+    }
+
+    private void writeTwoDigits(int value) throws IOException {
+        out.write('0' + value / 10);
+        out.write('0' + value % 10);
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.volksys.recur.report;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.Transaction;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Renders a report as RFC 4180 CSV with the columns Start, End, Category, Date, Description, Amount and Count.
+ *
+ * <p>Each category of each period has a total row, with empty Date and Description, whose Amount is the category's
+ * total and whose Count is its number of transactions. When transactions were retained, the total row is followed by
+ * one row per transaction, with a Count of 1. End is the last day of the period, inclusive.
+ */
+public class CsvReportRenderer extends AbstractReportRenderer {
+    private static final String HEADER = "Start,End,Category,Date,Description,Amount,Count\r\n";
+    private static final String NEW_LINE = "\r\n";
+
+    private boolean started;
+
+    /**
+     * Constructor.
+     *
+     * @param out the destination of the report, which should be buffered
+     */
+    public CsvReportRenderer(Writer out) {
+        super(out);
+    }
+
+    /**
+     * Renders the rows of a period, preceded by the header row if this is the first period.
+     *
+     * @param budget the budget to render
+     * @throws IOException if the report cannot be written
+     */
+    @Override
+    public void renderPeriod(Budget budget) throws IOException {
+        Writer out = getWriter();
+        if (!started) {
+            out.write(HEADER);
+            started = true;
+        }
+        String period = budget.getDateRange().getStartInclusive() + ","
+                + budget.getDateRange().getEndExclusive().minusDays(1) + ",";
+        for (String category : budget.getCategories()) {
+            String prefix = period + quote(category) + ",";
+            out.write(prefix);
+            out.write(",,");
+            writeAmount(budget.getTotalFor(category), false, "");
+            out.write(',');
+            writeDigits(budget.getCountFor(category));
+            out.write(NEW_LINE);
+            for (Transaction transaction : budget.iterateTransactionsFor(category)) {
+                out.write(prefix);
+                writeDate(transaction.getDate());
+                out.write(',');
+                out.write(quote(transaction.getDescription()));
+                out.write(',');
+                writeAmount(transaction.getAmount(), false, "");
+                out.write(",1");
+                out.write(NEW_LINE);
+            }
+        }
+    }
+
+    /**
+     * Completes the report, writing the header row if no period was rendered.
+     *
+     * @throws IOException if the report cannot be written
+     */
+    @Override
+    public void finish() throws IOException {
+        if (!started) {
+            getWriter().write(HEADER);
+            started = true;
+        }
+        super.finish();
+    }
+
+    /**
+     * Quotes a field if it contains a delimiter, quote or line break.
+     */
+    private static String quote(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == ',' || ch == '"' || ch == '\n' || ch == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.volksys.recur.report;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.Retention;
+import com.volksys.recur.model.Transaction;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.function.Predicate;
+
+/**
+ * Renders a report as a JSON array with one object per period.
+ *
+ * <p>Each period has {@code start}, {@code end} (exclusive) and {@code categories}; each category has {@code name},
+ * {@code total}, {@code count} and, when transactions were retained, {@code transactions}, each with {@code date},
+ * {@code description} and {@code amount}. Amounts are decimal numbers with two fractional digits.
+ */
+public class JsonReportRenderer extends AbstractReportRenderer {
+    private final Predicate<String> categoryFilter;
+    private boolean started;
+
+    /**
+     * Constructor.
+     *
+     * @param out the destination of the report, which should be buffered
+     */
+    public JsonReportRenderer(Writer out) {
+        this(out, category -> true);
+    }
+
+    /**
+     * Constructor for a report of only some categories.
+     *
+     * @param out the destination of the report, which should be buffered
+     * @param categoryFilter selects the categories to render in each period
+     */
+    public JsonReportRenderer(Writer out, Predicate<String> categoryFilter) {
+        super(out);
+        this.categoryFilter = categoryFilter;
+    }
+
+    /**
+     * Renders the object for a period, preceded by the opening of the array if this is the first period.
+     *
+     * @param budget the budget to render
+     * @throws IOException if the report cannot be written
+     */
+    @Override
+    public void renderPeriod(Budget budget) throws IOException {
+        Writer out = getWriter();
+        out.write(started ? ",\n" : "[\n");
+        started = true;
+        out.write("{\"start\":\"");
+        writeDate(budget.getDateRange().getStartInclusive());
+        out.write("\",\"end\":\"");
+        writeDate(budget.getDateRange().getEndExclusive());
+        out.write("\",\"categories\":[");
+        boolean first = true;
+        for (String category : budget.getCategories()) {
+            if (!categoryFilter.test(category)) {
+                continue;
+            }
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            out.write("\n{\"name\":");
+            writeString(category);
+            out.write(",\"total\":");
+            writeAmount(budget.getTotalFor(category), false, "");
+            out.write(",\"count\":");
+            writeDigits(budget.getCountFor(category));
+            if (budget.getRetention() != Retention.TOTALS) {
+                writeTransactions(budget, category);
+            }
+            out.write('}');
+        }
+        out.write("]}");
+    }
+
+    private void writeTransactions(Budget budget, String category) throws IOException {
+        Writer out = getWriter();
+        out.write(",\"transactions\":[");
+        boolean first = true;
+        for (Transaction transaction : budget.iterateTransactionsFor(category)) {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            out.write("\n{\"date\":\"");
+            writeDate(transaction.getDate());
+            out.write("\",\"description\":");
+            writeString(transaction.getDescription());
+            out.write(",\"amount\":");
+            writeAmount(transaction.getAmount(), false, "");
+            out.write('}');
+        }
+        out.write(']');
+    }
+
+    /**
+     * Completes the array of periods.
+     *
+     * @throws IOException if the report cannot be written
+     */
+    @Override
+    public void finish() throws IOException {
+        getWriter().write(started ? "\n]\n" : "[]\n");
+        started = true;
+        super.finish();
+    }
+
+    private void writeString(String value) throws IOException {
+        Writer out = getWriter();
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"' || ch == '\\') {
+                out.write('\\');
+                out.write(ch);
+            } else if (ch < ' ') {
+                out.write(String.format("\\u%04x", (int) ch));
+            } else {
+                out.write(ch);
+            }
+        }
+        out.write('"');
+    }
+
+}
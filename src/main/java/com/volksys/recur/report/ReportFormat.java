@@ -0,0 +1,50 @@
+package com.volksys.recur.report;
+
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * The formats in which a report can be rendered.
+ */
+public enum ReportFormat {
+    /**
+     * Human-readable text; see {@link TextReportRenderer}.
+     */
+    TEXT,
+
+    /**
+     * Comma-separated values; see {@link CsvReportRenderer}.
+     */
+    CSV,
+
+    /**
+     * JSON; see {@link JsonReportRenderer}.
+     */
+    JSON;
+
+    /**
+     * The extension conventionally given to files in this format.
+     *
+     * @return the extension, without a leading dot
+     */
+    public String getFileExtension() {
+        return this == TEXT ? "txt" : name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Creates a renderer for this format.
+     *
+     * @param out the destination of the report, which should be buffered
+     * @return a renderer writing to {@code out}
+     */
+    public ReportRenderer newRenderer(Writer out) {
+        switch (this) {
+            case CSV:
+                return new CsvReportRenderer(out);
+            case JSON:
+                return new JsonReportRenderer(out);
+            default:
+                return new TextReportRenderer(out);
+        }
+    }
+}
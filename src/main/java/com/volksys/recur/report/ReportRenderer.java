@@ -0,0 +1,26 @@
+package com.volksys.recur.report;
+
+import com.volksys.recur.model.Budget;
+
+import java.io.IOException;
+
+/**
+ * Renders a report of budgets one period at a time, so that the report can be streamed to its destination without
+ * being held in memory.
+ */
+public interface ReportRenderer {
+    /**
+     * Renders the budget for one period. Periods are rendered in the order in which they are given.
+     *
+     * @param budget the budget to render
+     * @throws IOException if the report cannot be written
+     */
+    void renderPeriod(Budget budget) throws IOException;
+
+    /**
+     * Completes the report and flushes it to its destination, which is left open.
+     *
+     * @throws IOException if the report cannot be written
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,74 @@
+package com.volksys.recur.report;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.Retention;
+import com.volksys.recur.model.Transaction;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Renders a human-readable report listing, for each period, the total of each category followed by its transactions,
+ * or by the number of transactions when only totals were retained.
+ */
+public class TextReportRenderer extends AbstractReportRenderer {
+    private static final String SYMBOL = "$";
+
+    private final String newLine = System.lineSeparator();
+
+    /**
+     * Constructor.
+     *
+     * @param out the destination of the report, which should be buffered
+     */
+    public TextReportRenderer(Writer out) {
+        super(out);
+    }
+
+    /**
+     * Renders the heading of a period followed by each category.
+     *
+     * @param budget the budget to render
+     * @throws IOException if the report cannot be written
+     */
+    @Override
+    public void renderPeriod(Budget budget) throws IOException {
+        Writer out = getWriter();
+        writeDate(budget.getDateRange().getStartInclusive());
+        out.write(" - ");
+        writeDate(budget.getDateRange().getEndExclusive().minusDays(1));
+        out.write(newLine);
+        out.write("=======================");
+        out.write(newLine);
+        for (String category : budget.getCategories()) {
+            out.write("  ");
+            out.write(category);
+            out.write(": ");
+            writeAmount(budget.getTotalFor(category), true, SYMBOL);
+            if (budget.getRetention() == Retention.TOTALS) {
+                out.write(" (");
+                writeDigits(budget.getCountFor(category));
+                out.write(" transactions)");
+                out.write(newLine);
+                continue;
+            }
+            out.write(newLine);
+            out.write("  - - - - - - - - - - - - - -");
+            out.write(newLine);
+            for (Transaction transaction : budget.iterateTransactionsFor(category)) {
+                out.write("  ");
+                writeDate(transaction.getDate());
+                out.write(' ');
+                out.write(transaction.getDescription());
+                out.write(' ');
+                writeAmount(transaction.getAmount(), true, SYMBOL);
+                out.write(newLine);
+            }
+            out.write(newLine);
+            out.write(newLine);
+        }
+        out.write(newLine);
+        out.write(newLine);
+    }
+
+}
@@ -0,0 +1,279 @@
+package com.volksys.recur.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.volksys.recur.engine.Projection;
+import com.volksys.recur.io.SnapshotCache;
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.Granularity;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.RecurringTransaction;
+import com.volksys.recur.model.Retention;
+import com.volksys.recur.report.JsonReportRenderer;
+import com.volksys.recur.report.ReportRenderer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+
+/**
+ * Serves projections of a schedule file as JSON over HTTP, keeping the schedule and recently requested projections
+ * in memory between requests.
+ *
+ * <p>{@code GET /budgets} answers with the periods of a projection in the format of {@link JsonReportRenderer},
+ * retaining only totals. The projection is chosen by the query parameters {@code start} and {@code end} (exclusive)
+ * or {@code years}, which default to the horizon given to the constructor, and {@code granularity}. The parameter
+ * {@code category} limits the report to a category and, for hierarchical names such as {@code Home:Utilities}, the
+ * categories beneath it; {@code date} limits it to the period containing that date. Invalid parameters are answered
+ * with status 400.
+ *
+ * <p>The schedule file is loaded again when its size or modification time changes, which starts a new version of the
+ * schedule and discards every cached projection. The version is sent with each answer as its {@code ETag}.
+ */
+public class BudgetServer {
+    /**
+     * The path at which projections are served.
+     */
+    public static final String CONTEXT = "/budgets";
+
+    private static final int MAX_HORIZON_YEARS = 200;
+
+    private final Path path;
+    private final SnapshotCache.Source source;
+    private final LocalDateRange defaultHorizon;
+    private final Granularity defaultGranularity;
+    private final ProjectionCache cache;
+    private volatile Schedule schedule = new Schedule(0, -1, -1, Collections.emptyList());
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Constructor.
+     *
+     * @param path the location of the schedule file
+     * @param source the means of loading the schedule file
+     * @param defaultHorizon the dates projected over when a request does not specify them
+     * @param defaultGranularity the length of the periods of a projection when a request does not specify it
+     * @param cacheCapacity (positive) the greatest number of projections to keep in memory
+     */
+    public BudgetServer(Path path, SnapshotCache.Source source, LocalDateRange defaultHorizon,
+            Granularity defaultGranularity, int cacheCapacity) {
+        this.path = path;
+        this.source = source;
+        this.defaultHorizon = defaultHorizon;
+        this.defaultGranularity = defaultGranularity;
+        this.cache = new ProjectionCache(cacheCapacity);
+    }
+
+    /**
+     * Loads the schedule file and starts answering requests.
+     *
+     * @param address the address on which to listen, whose port may be zero to choose any free port
+     * @throws IOException if the schedule file cannot be loaded or the server cannot listen on {@code address}
+     */
+    public void start(InetSocketAddress address) throws IOException {
+        currentSchedule();
+        server = HttpServer.create(address, 0);
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        server.setExecutor(executor);
+        server.createContext(CONTEXT, this::handle);
+        server.start();
+    }
+
+    /**
+     * Stops answering requests, abandoning any in progress.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * The address on which requests are answered.
+     *
+     * @return the address, including the port chosen if the server was started on port zero
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * The cache of projections.
+     *
+     * @return the projections kept in memory
+     */
+    public ProjectionCache getCache() {
+        return cache;
+    }
+
+    /**
+     * The schedule as of the last request, loading the file again if it has changed since.
+     */
+    private Schedule currentSchedule() throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        Schedule current = schedule;
+        if (current.isCurrent(attributes)) {
+            return current;
+        }
+        synchronized (this) {
+            current = schedule;
+            if (!current.isCurrent(attributes)) {
+                List<RecurringTransaction> recurringTransactions = source.load(path).getRecurringTransactions();
+                current = new Schedule(current.version + 1, attributes.size(),
+                        attributes.lastModifiedTime().toMillis(), recurringTransactions);
+                schedule = current;
+                cache.invalidate();
+            }
+            return current;
+        }
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Only GET is supported");
+                return;
+            }
+            Map<String, String> parameters;
+            LocalDateRange horizon;
+            Granularity granularity;
+            Predicate<Budget> periodFilter = budget -> true;
+            try {
+                parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+                horizon = horizonOf(parameters);
+                granularity = parameters.containsKey("granularity")
+                        ? Granularity.valueOf(parameters.get("granularity").toUpperCase(Locale.ROOT))
+                        : defaultGranularity;
+                if (parameters.containsKey("date")) {
+                    LocalDate date = LocalDate.parse(parameters.get("date"));
+                    periodFilter = budget -> budget.getDateRange().contains(date);
+                }
+            } catch (IllegalArgumentException | DateTimeException exception) {
+                sendError(exchange, 400, exception.getMessage());
+                return;
+            }
+            Schedule current;
+            try {
+                current = currentSchedule();
+            } catch (IOException | RuntimeException exception) {
+                sendError(exchange, 500, "The schedule could not be loaded: " + exception.getMessage());
+                return;
+            }
+            Projection projection = new Projection(horizon, granularity, Retention.TOTALS);
+            List<Budget> budgets = cache.get(current.version, horizon, granularity,
+                    () -> projection.project(current.recurringTransactions));
+            send(exchange, current.version, budgets, periodFilter, categoryFilter(parameters.get("category")));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private LocalDateRange horizonOf(Map<String, String> parameters) {
+        LocalDate start = parameters.containsKey("start") ? LocalDate.parse(parameters.get("start"))
+                : defaultHorizon.getStartInclusive();
+        LocalDate end;
+        if (parameters.containsKey("end")) {
+            end = LocalDate.parse(parameters.get("end"));
+        } else if (parameters.containsKey("years")) {
+            end = start.plusYears(Integer.parseInt(parameters.get("years")));
+        } else {
+            end = start.plus(Period.between(defaultHorizon.getStartInclusive(), defaultHorizon.getEndExclusive()));
+        }
+        if (end.isAfter(start.plusYears(MAX_HORIZON_YEARS))) {
+            throw new IllegalArgumentException("The horizon must not exceed " + MAX_HORIZON_YEARS + " years");
+        }
+        return new LocalDateRange(start, end);
+    }
+
+    private static Predicate<String> categoryFilter(String category) {
+        if (category == null) {
+            return name -> true;
+        }
+        String prefix = category + ':';
+        return name -> name.equals(category) || name.startsWith(prefix);
+    }
+
+    private static void send(HttpExchange exchange, long version, List<Budget> budgets,
+            Predicate<Budget> periodFilter, Predicate<String> categoryFilter) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.getResponseHeaders().set("ETag", "\"" + version + "\"");
+        exchange.sendResponseHeaders(200, 0);
+        Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+        ReportRenderer renderer = new JsonReportRenderer(out, categoryFilter);
+        for (Budget budget : budgets) {
+            if (periodFilter.test(budget)) {
+                renderer.renderPeriod(budget);
+            }
+        }
+        renderer.finish();
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Parses a query string of the form {@code name=value&name=value}, of which the last value of each name is kept.
+     */
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            String name = separator < 0 ? parameter : parameter.substring(0, separator);
+            String value = separator < 0 ? "" : parameter.substring(separator + 1);
+            parameters.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+        return parameters;
+    }
+
+    /**
+     * A version of the schedule, with the attributes of the file from which it was loaded.
+     */
+    private static final class Schedule {
+        private final long version;
+        private final long size;
+        private final long modified;
+        private final List<RecurringTransaction> recurringTransactions;
+
+        Schedule(long version, long size, long modified, List<RecurringTransaction> recurringTransactions) {
+            this.version = version;
+            this.size = size;
+            this.modified = modified;
+            this.recurringTransactions = recurringTransactions;
+        }
+
+        /* default */ boolean isCurrent(BasicFileAttributes attributes) {
+            return attributes.size() == size && attributes.lastModifiedTime().toMillis() == modified;
+        }
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.volksys.recur.server;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.Granularity;
+import com.volksys.recur.model.LocalDateRange;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of populated budgets, keyed by the version of the schedule projected and by the horizon and
+ * granularity of the projection, which evicts the least recently used projection when full.
+ *
+ * <p>Projections are computed outside the lock guarding the cache, so a slow projection does not hold up lookups of
+ * others; two threads missing the same key at once may both compute it, and the second result is kept. The cached
+ * budgets are shared by every caller and must not be changed.
+ */
+public class ProjectionCache {
+    private final Map<ProjectionKey, List<Budget>> projections;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity (positive) the greatest number of projections to keep
+     * @throws IllegalArgumentException if {@code capacity} is not positive
+     */
+    public ProjectionCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.projections = new LinkedHashMap<ProjectionKey, List<Budget>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ProjectionKey, List<Budget>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * The budgets of a projection, computing them if they are not cached.
+     *
+     * @param version the version of the schedule projected
+     * @param horizon the dates projected over
+     * @param granularity the length of the periods into which the horizon is divided
+     * @param projection computes the populated budgets if they are not cached
+     * @return the populated budgets, which must not be changed
+     */
+    public List<Budget> get(long version, LocalDateRange horizon, Granularity granularity,
+            Supplier<List<Budget>> projection) {
+        ProjectionKey key = new ProjectionKey(version, horizon, granularity);
+        synchronized (projections) {
+            List<Budget> budgets = projections.get(key);
+            if (budgets != null) {
+                return budgets;
+            }
+        }
+        List<Budget> budgets = projection.get();
+        synchronized (projections) {
+            projections.put(key, budgets);
+        }
+        return budgets;
+    }
+
+    /**
+     * Discards every cached projection, such as when the schedule changes.
+     */
+    public void invalidate() {
+        synchronized (projections) {
+            projections.clear();
+        }
+    }
+
+    /**
+     * The number of cached projections.
+     *
+     * @return the number of projections held
+     */
+    public int size() {
+        synchronized (projections) {
+            return projections.size();
+        }
+    }
+
+    /**
+     * Identifies a projection of a version of the schedule.
+     */
+    private static final class ProjectionKey {
+        private final long version;
+        private final LocalDateRange horizon;
+        private final Granularity granularity;
+
+        ProjectionKey(long version, LocalDateRange horizon, Granularity granularity) {
+            this.version = version;
+            this.horizon = horizon;
+            this.granularity = granularity;
+        }
+
+        /**
+         * Indicates whether another object identifies the same projection of the same version of the schedule.
+         *
+         * @param other the object to compare
+         * @return {@code true} if {@code other} is an equal key
+         */
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof ProjectionKey)) {
+                return false;
+            }
+            ProjectionKey key = (ProjectionKey) other;
+            return version == key.version && horizon.equals(key.horizon) && granularity == key.granularity;
+        }
+
+        /**
+         * A hash code consistent with {@link #equals(Object)}.
+         *
+         * @return the hash code of this key
+         */
+        @Override
+        public int hashCode() {
+            return Objects.hash(version, horizon, granularity);
+        }
+    }
+
+}
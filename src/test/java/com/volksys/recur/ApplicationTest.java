@@ -1,10 +1,17 @@
 package com.volksys.recur;
 
 import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.RecurringTransaction;
+import com.volksys.recur.model.Retention;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -12,6 +19,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 /**
  * Unit tests for {@link ApplicationTest}.
  */
+@SuppressWarnings({"PMD.AvoidDuplicateLiterals", "PMD.JUnitTestContainsTooManyAsserts"})
 public class ApplicationTest {
 
     /** Budget periods are generated correctly. */
@@ -35,6 +43,73 @@ public class ApplicationTest {
         }
     }
 
+    /** Each occurrence is added only to the budget whose period contains it. */
+    @Test
+    @DisplayName("Occurrences are routed to the budget containing them")
+    public void testPopulateMonthlyBudgets() {
+        Application application = new Application(2012, "no/such/file");
+        List<Budget> budgets = application.getBudgets();
+        RecurringTransaction daily = new RecurringTransaction("bar", 100, "foo", LocalDate.of(1995, 6, 1), null,
+                Period.ofDays(1));
+        application.populateMonthlyBudgets(budgets, Collections.singletonList(daily));
+        for (Budget budget : budgets) {
+            int days = budget.getDateRange().getStartInclusive().lengthOfMonth();
+            assertEquals(days, budget.getTransactionsFor("foo").size());
+            assertEquals(days * 100, budget.getBudgetFor("foo"));
+        }
+    }
+
+    /** Budget layouts other than calendar months are populated. */
+    @Test
+    @DisplayName("Bi-weekly budgets are populated")
+    public void testPopulateBiWeeklyBudgets() {
+        Application application = new Application(2012, "no/such/file") {
+            @Override
+            protected List<Budget> getBudgets() {
+                List<Budget> budgets = new ArrayList<>();
+                LocalDate start = LocalDate.of(2012, 1, 6);
+                for (int i = 0; i < 26; i++) {
+                    budgets.add(new Budget(new LocalDateRange(start, start.plusWeeks(2))));
+                    start = start.plusWeeks(2);
+                }
+                return budgets;
+            }
+        };
+        List<Budget> budgets = application.getBudgets();
+        RecurringTransaction weekly = new RecurringTransaction("bar", 100, "foo", LocalDate.of(2011, 12, 30), null,
+                Period.ofWeeks(1));
+        application.populateMonthlyBudgets(budgets, weekly);
+        for (Budget budget : budgets) {
+            assertEquals(2, budget.getTransactionsFor("foo").size());
+        }
+    }
+
+    /** Budgets retaining only totals agree with budgets retaining every transaction. */
+    @Test
+    @DisplayName("Budget totals match totals of populated transactions")
+    public void testPopulateBudgetTotals() {
+        List<RecurringTransaction> recurringTransactions = Arrays.asList(
+                new RecurringTransaction("a", 100, "foo", LocalDate.of(1995, 6, 1), null, Period.ofDays(1)),
+                new RecurringTransaction("b", 2500, "foo", LocalDate.of(2011, 1, 31), null, Period.ofMonths(1)),
+                new RecurringTransaction("c", -700, "bar", LocalDate.of(2012, 3, 9), LocalDate.of(2012, 9, 1),
+                        Period.ofWeeks(2)));
+        Application application = new Application(2012, "no/such/file");
+        List<Budget> expected = application.getBudgets();
+        assertEquals(Retention.TRANSACTIONS, expected.get(0).getRetention());
+        application.populateMonthlyBudgets(expected, recurringTransactions);
+        Application totalsApplication = new Application(2012, "no/such/file", Retention.TOTALS);
+        List<Budget> actual = totalsApplication.getBudgets();
+        assertEquals(Retention.TOTALS, actual.get(0).getRetention());
+        totalsApplication.populateMonthlyBudgets(actual, recurringTransactions);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getCategories(), actual.get(i).getCategories());
+            for (String category : expected.get(i).getCategories()) {
+                assertEquals(expected.get(i).getTotalFor(category), actual.get(i).getTotalFor(category));
+                assertEquals(expected.get(i).getTransactionsFor(category).size(), actual.get(i).getCountFor(category));
+            }
+        }
+    }
+
     private void verify(LocalDate date, int expectedYear, int expectedMonth, int expectedDay) {
         assertEquals(expectedYear, date.getYear());
         assertEquals(expectedMonth, date.getMonthValue());
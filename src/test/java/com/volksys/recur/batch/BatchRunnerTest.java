@@ -0,0 +1,119 @@
+package com.volksys.recur.batch;
+
+import com.volksys.recur.engine.Projection;
+import com.volksys.recur.io.ScheduleLoader;
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.Granularity;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.Retention;
+import com.volksys.recur.report.ReportFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link BatchRunner}.
+ */
+@SuppressWarnings({"PMD.AvoidDuplicateLiterals", "PMD.JUnitTestContainsTooManyAsserts"})
+public class BatchRunnerTest {
+    private static final String HEADER = "Description,Amount,Start,End,Period,Units,Category,Enabled\n";
+    private static final LocalDate START = LocalDate.of(2017, 1, 1);
+
+    private Path directory;
+    private BatchRunner runner;
+
+    /** Writes three schedules, one of which cannot be loaded, to a temporary directory. */
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("batch");
+        write("a.csv", HEADER + "Rent,1200.00,2015-01-01,,1,MONTHS,Home,TRUE\n");
+        write("b.csv", HEADER + "Rent,900.00,2017-07-01,,1,MONTHS,Home,TRUE\n"
+                + "Coffee,3.5,2017-03-02,2017-03-11,1,DAYS,Food,TRUE\n");
+        write("c.csv", "Description,Amount\n");
+        write("notes.txt", "not a schedule");
+        Projection projection = new Projection(new LocalDateRange(START, START.plusYears(1)), Granularity.MONTH,
+                Retention.TOTALS);
+        ScheduleLoader loader = ScheduleLoader.sharingDescriptions(StandardCharsets.UTF_8);
+        runner = new BatchRunner(projection, loader::load, 2);
+    }
+
+    /** Deletes the temporary directory. */
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /** Directories are listed by name and manifests line by line, relative to the manifest. */
+    @Test
+    @DisplayName("Schedules are listed from a directory or manifest")
+    public void testSchedulesIn() throws IOException {
+        assertEquals(Arrays.asList(directory.resolve("a.csv"), directory.resolve("b.csv"),
+                directory.resolve("c.csv")), BatchRunner.schedulesIn(directory));
+        Path manifest = write("manifest.txt", "# households\nb.csv\n\n  a.csv\n");
+        assertEquals(Arrays.asList(directory.toAbsolutePath().resolve("b.csv"),
+                directory.toAbsolutePath().resolve("a.csv")), BatchRunner.schedulesIn(manifest));
+    }
+
+    /** A roll-up combines every file that could be loaded, recording those that could not, however many workers. */
+    @Test
+    @DisplayName("Roll-ups combine every loadable file")
+    public void testRollUp() throws IOException, InterruptedException {
+        BatchResult result = runner.rollUp(BatchRunner.schedulesIn(directory));
+        assertEquals(3, result.getFileCount());
+        assertEquals(1, result.getFailures().size());
+        assertTrue(result.getFailures().containsKey(directory.resolve("c.csv")));
+        assertTrue(result.getFilesPerSecond() > 0);
+        List<Budget> budgets = result.getBudgets();
+        assertEquals(12, budgets.size());
+        assertEquals(120_000, budgets.get(0).getTotalFor("Home"));
+        assertEquals(3_500, budgets.get(2).getTotalFor("Food"));
+        assertEquals(210_000, budgets.get(6).getTotalFor("Home"));
+        BatchRunner single = new BatchRunner(new Projection(new LocalDateRange(START, START.plusYears(1)),
+                Granularity.MONTH, Retention.TOTALS), new ScheduleLoader()::load, 1);
+        BatchResult sequential = single.rollUp(BatchRunner.schedulesIn(directory));
+        assertEquals(result.getFailures(), sequential.getFailures());
+        assertEquals(210_000, sequential.getBudgets().get(6).getTotalFor("Home"));
+        assertEquals(3_500, sequential.getBudgets().get(2).getTotalFor("Food"));
+    }
+
+    /** Each file is reported to its own file, named after it with the extension of the format. */
+    @Test
+    @DisplayName("Each file is reported separately")
+    public void testRunEach() throws IOException, InterruptedException {
+        Path output = Files.createDirectory(directory.resolve("out"));
+        List<Path> files = BatchRunner.schedulesIn(directory);
+        BatchResult result = runner.runEach(files, ReportFormat.JSON, output);
+        assertEquals(1, result.getFailures().size());
+        assertTrue(result.getBudgets().isEmpty());
+        String report = new String(Files.readAllBytes(output.resolve("b.json")), StandardCharsets.UTF_8);
+        assertTrue(report.contains("{\"name\":\"Food\",\"total\":35.00,\"count\":10}"));
+        assertTrue(Files.exists(output.resolve("a.json")));
+        assertThrows(IllegalArgumentException.class, () -> runner.runEach(files, ReportFormat.CSV, directory));
+        assertThrows(IllegalArgumentException.class,
+                () -> runner.runEach(Arrays.asList(files.get(0), output.resolve("a.csv")), ReportFormat.TEXT, output));
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.write(directory.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
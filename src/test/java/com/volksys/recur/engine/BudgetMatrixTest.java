@@ -0,0 +1,153 @@
+package com.volksys.recur.engine;
+
+import com.volksys.recur.io.ScheduleLoader;
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.Granularity;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.RecurringTransaction;
+import com.volksys.recur.model.Retention;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link BudgetMatrix}.
+ */
+@SuppressWarnings({"PMD.AvoidDuplicateLiterals", "PMD.JUnitTestContainsTooManyAsserts",
+        "PMD.AvoidInstantiatingObjectsInLoops"})
+public class BudgetMatrixTest {
+    private static final String SCHEDULE = "Description,Amount,Start,End,Period,Units,Category,Enabled\n"
+            + "Rent,1200.00,2015-01-31,,1,MONTHS,Home,TRUE\n"
+            + "Coffee,3.5,2017-03-02,2018-03-11,1,DAYS,Food,TRUE\n"
+            + "Groceries,80,2016-12-30,,1,WEEKS,Food,TRUE\n"
+            + "Insurance,400,2010-06-15,,1,YEARS,Home:Insurance,TRUE\n"
+            + "Refund,-25,2019-04-01,2019-04-01,1,DAYS,Misc,TRUE\n";
+    private static final LocalDate START = LocalDate.of(2017, 1, 1);
+
+    private Path path;
+
+    /** Chooses a location for the matrix. */
+    @BeforeEach
+    public void setUp() throws IOException {
+        path = Files.createTempFile("matrix", ".bin");
+    }
+
+    /** Deletes the matrix. */
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.delete(path);
+    }
+
+    /** Every cell holds the total and count of the budget of the same period and category. */
+    @Test
+    @DisplayName("Cells match the totals of populated budgets")
+    public void testMatchesBudgets() throws IOException {
+        List<RecurringTransaction> schedule = new ScheduleLoader().load(new StringReader(SCHEDULE))
+                .getRecurringTransactions();
+        for (Granularity granularity : Arrays.asList(Granularity.DAY, Granularity.WEEK, Granularity.QUARTER)) {
+            Projection projection = new Projection(new LocalDateRange(START, START.plusYears(3)), granularity,
+                    Retention.TOTALS);
+            List<Budget> budgets = projection.createBudgets();
+            new BudgetPopulator(budgets).addAll(schedule);
+            try (BudgetMatrix matrix = BudgetMatrix.create(path, projection)) {
+                matrix.addAll(schedule);
+                assertEquals(budgets.size(), matrix.getPeriodCount());
+                assertEquals(Arrays.asList("Home", "Food", "Home:Insurance", "Misc"), matrix.getCategories());
+                for (int period = 0; period < budgets.size(); period++) {
+                    Budget budget = budgets.get(period);
+                    assertEquals(budget.getDateRange(), matrix.getPeriod(period));
+                    for (String category : matrix.getCategories()) {
+                        assertEquals(budget.getTotalFor(category), matrix.getTotalFor(period, category));
+                        assertEquals(budget.getCountFor(category), matrix.getCountFor(period, category));
+                    }
+                }
+                assertEquals(0, matrix.getTotalFor(0, "Travel"));
+            }
+        }
+    }
+
+    /** A matrix can be closed, reopened, queried and added to again. */
+    @Test
+    @DisplayName("Matrices persist and reopen")
+    public void testReopen() throws IOException {
+        List<RecurringTransaction> schedule = new ScheduleLoader().load(new StringReader(SCHEDULE))
+                .getRecurringTransactions();
+        Projection projection = new Projection(new LocalDateRange(START, START.plusYears(3)), Granularity.MONTH,
+                Retention.TOTALS);
+        try (BudgetMatrix matrix = BudgetMatrix.create(path, projection)) {
+            matrix.addAll(schedule);
+        }
+        LocalDateRange year = new LocalDateRange(START.plusYears(1), START.plusYears(2));
+        try (BudgetMatrix matrix = BudgetMatrix.open(path)) {
+            assertEquals(36, matrix.getPeriodCount());
+            assertEquals(14, matrix.indexOf(LocalDate.of(2018, 3, 11)));
+            assertEquals(-1, matrix.indexOf(START.minusDays(1)));
+            assertEquals(120_000 * 12, matrix.getTotalFor("Home", year));
+            assertEquals(120_000 * 36, matrix.getTotalFor("Home", new LocalDateRange(START.minusYears(1),
+                    START.plusYears(4))));
+            assertEquals(-2_500, matrix.getTotalFor(27, "Misc"));
+            assertThrows(IllegalArgumentException.class,
+                    () -> matrix.getTotalFor("Home", new LocalDateRange(START.plusDays(1), START.plusYears(1))));
+            matrix.addAll(schedule);
+        }
+        try (BudgetMatrix matrix = BudgetMatrix.open(path)) {
+            assertEquals(120_000 * 24, matrix.getTotalFor("Home", year));
+            assertEquals(2, matrix.getCountFor(17, "Home:Insurance"));
+            assertEquals(4, matrix.getCategories().size());
+        }
+    }
+
+    /** Daily periods over decades for many categories span several mapped segments. */
+    @Test
+    @DisplayName("Large matrices span several segments")
+    public void testLarge() throws IOException {
+        LocalDateRange horizon = new LocalDateRange(START, START.plusYears(30));
+        Projection projection = new Projection(horizon, Granularity.DAY, Retention.TOTALS);
+        List<RecurringTransaction> schedule = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            schedule.add(new RecurringTransaction("Cost", i + 1, "Center:" + i, START, null, Period.ofDays(1)));
+        }
+        schedule.add(new RecurringTransaction("Audit", 1_000, "Audit", START.plusYears(29), null, Period.ofYears(5)));
+        try (BudgetMatrix matrix = BudgetMatrix.create(path, projection)) {
+            matrix.addAll(schedule);
+        }
+        long days = horizon.getEndExclusive().toEpochDay() - horizon.getStartInclusive().toEpochDay();
+        try (BudgetMatrix matrix = BudgetMatrix.open(path)) {
+            assertEquals(days, matrix.getPeriodCount());
+            for (int i = 0; i < 120; i++) {
+                assertEquals((i + 1) * days, matrix.getTotalFor("Center:" + i, horizon));
+            }
+            assertEquals(7 * 400, matrix.getTotalFor("Center:6", new LocalDateRange(START.plusDays(300),
+                    START.plusDays(700))));
+            assertEquals(1_000, matrix.getTotalFor("Audit", horizon));
+            assertEquals(0, matrix.getTotalFor("Audit", new LocalDateRange(START, START.plusYears(29))));
+            assertEquals(1, matrix.getCountFor(matrix.indexOf(START.plusYears(29)), "Audit"));
+        }
+    }
+
+    /** Files that do not hold a matrix are rejected. */
+    @Test
+    @DisplayName("Other files are rejected")
+    public void testNotAMatrix() throws IOException {
+        Files.write(path, new byte[64]);
+        assertThrows(IOException.class, () -> BudgetMatrix.open(path));
+        Files.write(path, "Description,Amount\n".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> BudgetMatrix.open(path));
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.volksys.recur.engine;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.Granularity;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.RecurringTransaction;
+import com.volksys.recur.model.Retention;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link BudgetQuery}.
+ */
+@SuppressWarnings({"PMD.AvoidDuplicateLiterals", "PMD.JUnitTestContainsTooManyAsserts",
+        "PMD.AvoidInstantiatingObjectsInLoops"})
+public class BudgetQueryTest {
+    private static final LocalDate START = LocalDate.of(2017, 1, 1);
+    private static final List<RecurringTransaction> SCHEDULE = Arrays.asList(
+            new RecurringTransaction("Rent", 100_000, "Home", START, null, Period.ofMonths(1)),
+            new RecurringTransaction("Power", 8_000, "Home:Utilities:Power", START.plusDays(4), null,
+                    Period.ofMonths(1)),
+            new RecurringTransaction("Water", 3_000, "Home:Utilities:Water", START.plusDays(9), null,
+                    Period.ofMonths(2)),
+            new RecurringTransaction("Groceries", 12_000, "Food", START.plusDays(2), null, Period.ofWeeks(1)),
+            new RecurringTransaction("Gift", 90_000, "Misc", START.plusMonths(11).plusDays(20), null,
+                    Period.ofYears(1)));
+
+    /** Range totals match the sum of the totals of the budgets in the range, for every range of whole periods. */
+    @Test
+    @DisplayName("Range totals match the budgets")
+    public void testRangeTotals() {
+        List<Budget> budgets = project();
+        BudgetQuery query = new BudgetQuery(budgets);
+        for (int from = 0; from < budgets.size(); from++) {
+            for (int to = from + 1; to <= budgets.size(); to++) {
+                LocalDateRange range = new LocalDateRange(START.plusMonths(from), START.plusMonths(to));
+                long expected = 0;
+                for (Budget budget : budgets.subList(from, to)) {
+                    expected += budget.getTotalFor("Food");
+                }
+                assertEquals(expected, query.getTotalFor("Food", range));
+            }
+        }
+        assertEquals(query.getTotalFor("Food"), query.getTotalFor("Food",
+                new LocalDateRange(START.minusYears(1), START.plusYears(2))));
+        assertEquals(0, query.getTotalFor("Travel", new LocalDateRange(START, START.plusMonths(3))));
+    }
+
+    /** Hierarchical categories roll up the totals of the categories beneath them. */
+    @Test
+    @DisplayName("Parent categories roll up their subcategories")
+    public void testRollUp() {
+        BudgetQuery query = new BudgetQuery(project());
+        assertEquals(Arrays.asList("Food", "Home", "Home:Utilities", "Home:Utilities:Power",
+                "Home:Utilities:Water", "Misc"), query.getCategories());
+        assertEquals(Arrays.asList("Food", "Home", "Misc"), query.getSubcategoriesOf(""));
+        assertEquals(Collections.singletonList("Home:Utilities"), query.getSubcategoriesOf("Home"));
+        LocalDateRange quarter = new LocalDateRange(START, START.plusMonths(3));
+        assertEquals(3 * 8_000 + 2 * 3_000, query.getTotalFor("Home:Utilities", quarter));
+        assertEquals(3 * 100_000 + 3 * 8_000 + 2 * 3_000, query.getTotalFor("Home", quarter));
+        assertEquals(12 * 100_000 + 12 * 8_000 + 6 * 3_000, query.getTotalFor("Home"));
+    }
+
+    /** Top-N rankings order subcategories by their totals in the range. */
+    @Test
+    @DisplayName("Subcategories are ranked by total")
+    public void testTop() {
+        BudgetQuery query = new BudgetQuery(project());
+        LocalDateRange quarter = new LocalDateRange(START, START.plusMonths(3));
+        assertEquals(Arrays.asList("Home", "Food"), query.top("", 2, quarter));
+        LocalDateRange december = new LocalDateRange(START.plusMonths(11), START.plusMonths(12));
+        assertEquals(Arrays.asList("Home", "Misc", "Food"), query.top("", 5, december));
+        assertEquals(Arrays.asList("Home:Utilities:Power", "Home:Utilities:Water"),
+                query.top("Home:Utilities", 5, quarter));
+        assertEquals(Collections.emptyList(), query.top("Travel", 5, quarter));
+    }
+
+    /** Ranges must begin and end on period boundaries. */
+    @Test
+    @DisplayName("Ranges splitting a period are rejected")
+    public void testPartialPeriod() {
+        BudgetQuery query = new BudgetQuery(project());
+        assertThrows(IllegalArgumentException.class,
+                () -> query.getTotalFor("Food", new LocalDateRange(START.plusDays(3), START.plusMonths(2))));
+    }
+
+    /** Running totals and roll-ups that overflow are reported rather than wrapping around. */
+    @Test
+    @DisplayName("Overflowing totals are rejected")
+    public void testOverflow() {
+        long count = Long.MAX_VALUE / 3 / 1_000_000;
+        List<Budget> budgets = new Projection(new LocalDateRange(START, START.plusMonths(4)), Granularity.MONTH,
+                Retention.TOTALS).createBudgets();
+        for (Budget budget : budgets) {
+            budget.addOccurrences("Home:Power", 1_000_000, count);
+        }
+        assertThrows(ArithmeticException.class, () -> new BudgetQuery(budgets));
+        Budget budget = new Budget(new LocalDateRange(START, START.plusMonths(1)), Retention.TOTALS);
+        budget.addOccurrences("Home:Power", 1_000_000, 2 * count);
+        budget.addOccurrences("Home:Water", 1_000_000, 2 * count);
+        assertThrows(ArithmeticException.class, () -> new BudgetQuery(Collections.singletonList(budget)));
+    }
+
+    private static List<Budget> project() {
+        return new Projection(new LocalDateRange(START, START.plusYears(1)), Granularity.MONTH, Retention.TOTALS)
+                .project(SCHEDULE);
+    }
+
+}
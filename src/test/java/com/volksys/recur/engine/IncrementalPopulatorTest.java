@@ -0,0 +1,151 @@
+package com.volksys.recur.engine;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.RecurringTransaction;
+import com.volksys.recur.model.Retention;
+import com.volksys.recur.model.Transaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link IncrementalPopulator}.
+ */
+@SuppressWarnings({"PMD.AvoidInstantiatingObjectsInLoops", "PMD.JUnitTestContainsTooManyAsserts",
+        "PMD.NullAssignment", "PMD.AvoidDuplicateLiterals"})
+public class IncrementalPopulatorTest {
+    private static final LocalDate START = LocalDate.of(2017, 1, 1);
+
+    /** After any sequence of edits, the budgets match those populated from scratch with the remaining schedules. */
+    @Test
+    @DisplayName("Incremental edits match population from scratch")
+    public void testMatchesRebuild() {
+        Random random = new Random(42);
+        for (Retention retention : Retention.values()) {
+            IncrementalPopulator populator = new IncrementalPopulator(budgets(retention));
+            List<RecurringTransaction> expected = new ArrayList<>();
+            for (int step = 0; step < 400; step++) {
+                int choice = random.nextInt(4);
+                if (expected.isEmpty() || choice < 2) {
+                    RecurringTransaction added = generate(random, step);
+                    populator.add(added);
+                    expected.add(added);
+                } else {
+                    RecurringTransaction edited = expected.get(random.nextInt(expected.size()));
+                    expected.remove(lastIndexOf(expected, edited));
+                    if (choice == 2) {
+                        populator.remove(edited);
+                    } else {
+                        RecurringTransaction replacement = generate(random, step);
+                        populator.update(edited, replacement);
+                        expected.add(replacement);
+                    }
+                }
+                if (step % 50 == 0 && !expected.isEmpty()) {
+                    RecurringTransaction again = expected.get(random.nextInt(expected.size()));
+                    populator.add(again);
+                    expected.add(again);
+                }
+            }
+            List<Budget> rebuilt = budgets(retention);
+            new BudgetPopulator(rebuilt).addAll(expected);
+            assertEquals(describe(rebuilt), describe(populator.getBudgets()), retention.toString());
+        }
+    }
+
+    /** Only the periods in which an edited schedule occurs are reported as changed. */
+    @Test
+    @DisplayName("Changed budgets are those in which edits occur")
+    public void testChangedBudgets() {
+        IncrementalPopulator populator = new IncrementalPopulator(budgets(Retention.TRANSACTIONS));
+        RecurringTransaction march = new RecurringTransaction("March", 100, "Food", START.plusMonths(2), null,
+                Period.ofYears(1));
+        RecurringTransaction weekly = new RecurringTransaction("Weekly", 100, "Food", START, null, Period.ofWeeks(1));
+        populator.add(weekly);
+        assertEquals(12, populator.takeChangedBudgets().size());
+        populator.add(march);
+        List<Budget> changed = populator.takeChangedBudgets();
+        assertEquals(Collections.singletonList(populator.getBudgets().get(2)), changed);
+        assertTrue(populator.takeChangedBudgets().isEmpty());
+        populator.remove(march);
+        assertEquals(changed, populator.takeChangedBudgets());
+        assertFalse(populator.contains(march));
+        assertTrue(populator.contains(weekly));
+        assertEquals(Arrays.asList("Food"), changed.get(0).getCategories());
+        assertEquals(4, changed.get(0).getCountFor("Food"));
+    }
+
+    /** Removing a schedule that is not included is an error, and removing the last occurrences drops the category. */
+    @Test
+    @DisplayName("Removal requires an included schedule")
+    public void testRemove() {
+        IncrementalPopulator populator = new IncrementalPopulator(budgets(Retention.TOTALS));
+        RecurringTransaction rent = new RecurringTransaction("Rent", 1000, "Housing", START, null, Period.ofMonths(1));
+        RecurringTransaction copy = new RecurringTransaction("Rent", 1000, "Housing", START, null,
+                Period.ofMonths(1));
+        populator.add(rent);
+        assertThrows(IllegalArgumentException.class, () -> populator.remove(copy));
+        populator.remove(rent);
+        assertThrows(IllegalArgumentException.class, () -> populator.remove(rent));
+        for (Budget budget : populator.getBudgets()) {
+            assertTrue(budget.getCategories().isEmpty());
+        }
+    }
+
+    private static int lastIndexOf(List<RecurringTransaction> list, RecurringTransaction recurringTransaction) {
+        for (int i = list.size() - 1; i >= 0; i--) {
+            if (list.get(i) == recurringTransaction) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static RecurringTransaction generate(Random random, int step) {
+        Period[] periods = {Period.ofDays(1), Period.ofWeeks(2), Period.ofMonths(1), Period.ofMonths(3),
+                Period.ofYears(1)};
+        LocalDate initial = START.minusDays(400).plusDays(random.nextInt(800));
+        LocalDate last = random.nextBoolean() ? null : initial.plusDays(random.nextInt(500));
+        return new RecurringTransaction("t" + step, random.nextInt(10_000) - 2_000, "c" + random.nextInt(6),
+                initial, last, periods[random.nextInt(periods.length)]);
+    }
+
+    private static List<Budget> budgets(Retention retention) {
+        List<Budget> budgets = new ArrayList<>();
+        for (int month = 0; month < 12; month++) {
+            budgets.add(new Budget(new LocalDateRange(START.plusMonths(month), START.plusMonths(month + 1)),
+                    retention));
+        }
+        return budgets;
+    }
+
+    private static String describe(List<Budget> budgets) {
+        StringBuilder builder = new StringBuilder();
+        for (Budget budget : budgets) {
+            builder.append(budget.getDateRange()).append('\n');
+            for (String category : budget.getCategories()) {
+                builder.append(category).append(' ').append(budget.getTotalFor(category)).append(' ')
+                        .append(budget.getCountFor(category)).append('\n');
+                for (Transaction transaction : budget.getTransactionsFor(category)) {
+                    builder.append("  ").append(transaction.getDescription()).append(' ')
+                            .append(transaction.getDate()).append('\n');
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+}
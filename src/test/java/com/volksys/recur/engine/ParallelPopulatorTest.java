@@ -0,0 +1,91 @@
+package com.volksys.recur.engine;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.RecurringTransaction;
+import com.volksys.recur.model.Retention;
+import com.volksys.recur.model.Transaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link ParallelPopulator}.
+ */
+@SuppressWarnings({"PMD.AvoidInstantiatingObjectsInLoops", "PMD.JUnitTestContainsTooManyAsserts",
+        "PMD.NullAssignment"})
+public class ParallelPopulatorTest {
+    private static final LocalDate START = LocalDate.of(2017, 1, 1);
+
+    /** Parallel population yields exactly the budgets, and transaction order, of sequential population. */
+    @Test
+    @DisplayName("Parallel population matches sequential population")
+    public void testMatchesSequential() {
+        List<RecurringTransaction> recurringTransactions = generate(500);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (Retention retention : Retention.values()) {
+                List<Budget> expected = budgets(retention);
+                new BudgetPopulator(expected).addAll(recurringTransactions);
+                for (int grain : new int[] {1, 7, 64, 1000}) {
+                    List<Budget> actual = budgets(retention);
+                    new ParallelPopulator(pool, grain).populate(actual, recurringTransactions);
+                    assertEquals(describe(expected), describe(actual), retention + " with grain " + grain);
+                }
+                List<Budget> derived = budgets(retention);
+                new ParallelPopulator(pool).populate(derived, recurringTransactions);
+                assertEquals(describe(expected), describe(derived), retention + " with derived grain");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static List<RecurringTransaction> generate(int count) {
+        Random random = new Random(count);
+        Period[] periods = {Period.ofDays(1), Period.ofWeeks(2), Period.ofMonths(1), Period.ofMonths(3),
+                Period.ofYears(1)};
+        List<RecurringTransaction> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDate initial = START.minusDays(400).plusDays(random.nextInt(800));
+            LocalDate last = random.nextBoolean() ? null : initial.plusDays(random.nextInt(500));
+            list.add(new RecurringTransaction("t" + i, random.nextInt(10_000) - 2_000, "c" + random.nextInt(12),
+                    initial, last, periods[random.nextInt(periods.length)]));
+        }
+        return list;
+    }
+
+    private static List<Budget> budgets(Retention retention) {
+        List<Budget> budgets = new ArrayList<>();
+        for (int month = 0; month < 12; month++) {
+            budgets.add(new Budget(new LocalDateRange(START.plusMonths(month), START.plusMonths(month + 1)),
+                    retention));
+        }
+        return budgets;
+    }
+
+    private static String describe(List<Budget> budgets) {
+        StringBuilder builder = new StringBuilder();
+        for (Budget budget : budgets) {
+            builder.append(budget.getDateRange()).append('\n');
+            for (String category : budget.getCategories()) {
+                builder.append(category).append(' ').append(budget.getTotalFor(category)).append(' ')
+                        .append(budget.getCountFor(category)).append('\n');
+                for (Transaction transaction : budget.getTransactionsFor(category)) {
+                    builder.append("  ").append(transaction.getDescription()).append(' ')
+                            .append(transaction.getDate()).append('\n');
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.volksys.recur.engine;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.Granularity;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.RecurringTransaction;
+import com.volksys.recur.model.Retention;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link Projection}.
+ */
+@SuppressWarnings({"PMD.AvoidDuplicateLiterals", "PMD.JUnitTestContainsTooManyAsserts",
+        "PMD.AvoidInstantiatingObjectsInLoops"})
+public class ProjectionTest {
+    private static final LocalDateRange HORIZON = new LocalDateRange(LocalDate.of(2017, 2, 15),
+            LocalDate.of(2020, 11, 20));
+
+    /** Periods are contiguous, aligned to the calendar and clipped to the horizon. */
+    @Test
+    @DisplayName("Periods tile the horizon at each granularity")
+    public void testCreateBudgets() {
+        for (Granularity granularity : Granularity.values()) {
+            List<Budget> budgets = new Projection(HORIZON, granularity, Retention.TOTALS).createBudgets();
+            assertEquals(HORIZON.getStartInclusive(), budgets.get(0).getDateRange().getStartInclusive());
+            assertEquals(HORIZON.getEndExclusive(), budgets.get(budgets.size() - 1).getDateRange().getEndExclusive());
+            for (int i = 1; i < budgets.size(); i++) {
+                LocalDate start = budgets.get(i).getDateRange().getStartInclusive();
+                assertEquals(budgets.get(i - 1).getDateRange().getEndExclusive(), start);
+                assertEquals(granularity.startOf(start), start, granularity.name());
+            }
+        }
+        assertEquals(1374, new Projection(HORIZON, Granularity.DAY, Retention.TOTALS).createBudgets().size());
+        assertEquals(16, new Projection(HORIZON, Granularity.QUARTER, Retention.TOTALS).createBudgets().size());
+        assertEquals(4, new Projection(HORIZON, Granularity.YEAR, Retention.TOTALS).createBudgets().size());
+        assertEquals(DayOfWeek.MONDAY, new Projection(HORIZON, Granularity.WEEK, Retention.TOTALS).createBudgets()
+                .get(1).getDateRange().getStartInclusive().getDayOfWeek());
+    }
+
+    /** Totals computed from schedules match those of materialized transactions at every granularity. */
+    @Test
+    @DisplayName("Totals projections match transaction projections")
+    public void testProject() {
+        List<RecurringTransaction> recurringTransactions = Arrays.asList(
+                new RecurringTransaction("rent", 120_000, "Housing", LocalDate.of(2015, 1, 31), null,
+                        Period.ofMonths(1)),
+                new RecurringTransaction("coffee", 350, "Food", LocalDate.of(2018, 3, 3), LocalDate.of(2019, 1, 1),
+                        Period.ofDays(2)),
+                new RecurringTransaction("insurance", 80_000, "Auto", LocalDate.of(2016, 7, 1), null,
+                        Period.ofYears(1)));
+        for (Granularity granularity : Granularity.values()) {
+            List<Budget> totals = new Projection(HORIZON, granularity, Retention.TOTALS)
+                    .project(recurringTransactions);
+            List<Budget> transactions = new Projection(HORIZON, granularity, Retention.TRANSACTIONS)
+                    .project(recurringTransactions);
+            long count = 0;
+            for (int i = 0; i < totals.size(); i++) {
+                for (String category : transactions.get(i).getCategories()) {
+                    assertEquals(transactions.get(i).getTotalFor(category), totals.get(i).getTotalFor(category));
+                    assertEquals(transactions.get(i).getTransactionsFor(category).size(),
+                            totals.get(i).getCountFor(category));
+                    count += totals.get(i).getCountFor(category);
+                }
+            }
+            assertEquals(45 + 153 + 4, count, granularity.name());
+        }
+    }
+
+}
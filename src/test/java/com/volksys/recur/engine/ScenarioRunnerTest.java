@@ -0,0 +1,80 @@
+package com.volksys.recur.engine;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.Granularity;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.RecurringTransaction;
+import com.volksys.recur.model.Retention;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit tests for {@link Scenario} and {@link ScenarioRunner}.
+ */
+@SuppressWarnings({"PMD.AvoidDuplicateLiterals", "PMD.JUnitTestContainsTooManyAsserts",
+        "PMD.AvoidInstantiatingObjectsInLoops"})
+public class ScenarioRunnerTest {
+    private static final LocalDate START = LocalDate.of(2017, 1, 1);
+    private static final Projection PROJECTION = new Projection(new LocalDateRange(START, START.plusYears(1)),
+            Granularity.QUARTER, Retention.TOTALS);
+    private static final List<RecurringTransaction> BASE = Arrays.asList(
+            new RecurringTransaction("Rent", 100_000, "Housing", START, null, Period.ofMonths(1)),
+            new RecurringTransaction("Power", 10_001, "Utilities", START.plusDays(14), null, Period.ofMonths(1)),
+            new RecurringTransaction("Insurance", 60_000, "Housing", START.plusMonths(2), null, Period.ofYears(1)));
+
+    /** Overrides disable, shift and scale recurring transactions, and leave the others shared with the base list. */
+    @Test
+    @DisplayName("Scenarios override the base schedules")
+    public void testApply() {
+        List<RecurringTransaction> applied = new Scenario("what-if").disable(0).shift(2, Period.ofMonths(1))
+                .shift(2, Period.ofMonths(1)).scale("Utilities", 1.5).apply(BASE);
+        assertEquals(2, applied.size());
+        assertEquals(15_002, applied.get(0).getAmount());
+        assertEquals(START.plusMonths(4), applied.get(1).getInitialOccurrence());
+        assertSame(BASE.get(2).getDescription(), applied.get(1).getDescription());
+        assertSame(BASE.get(1), new Scenario("base").apply(BASE).get(1));
+        assertEquals(BASE.subList(1, 3), new Scenario("longer").disable(0).disable(3).disable(4).disable(9)
+                .shift(7, Period.ofDays(1)).apply(BASE));
+    }
+
+    /** Scenarios evaluated in parallel yield the same budgets as each evaluated alone from its applied schedules. */
+    @Test
+    @DisplayName("Scenarios are evaluated independently in parallel")
+    public void testEvaluateAll() {
+        List<Scenario> scenarios = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            scenarios.add(new Scenario("inflation " + i).scale(1 + i / 100.0).shift(i % 3, Period.ofWeeks(i)));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<List<Budget>> results = new ScenarioRunner(BASE, PROJECTION, pool).evaluateAll(scenarios);
+            assertEquals(scenarios.size(), results.size());
+            for (int i = 0; i < scenarios.size(); i++) {
+                List<Budget> expected = PROJECTION.project(scenarios.get(i).apply(BASE));
+                List<Budget> actual = results.get(i);
+                assertEquals(4, actual.size());
+                for (int period = 0; period < expected.size(); period++) {
+                    for (String category : Arrays.asList("Housing", "Utilities")) {
+                        assertEquals(expected.get(period).getTotalFor(category),
+                                actual.get(period).getTotalFor(category));
+                    }
+                }
+            }
+            assertEquals(300_000 + 60_000, results.get(0).get(0).getTotalFor("Housing"));
+            assertEquals(Math.round(300_000 * 1.19) + 0, results.get(19).get(3).getTotalFor("Housing"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.volksys.recur.engine;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.RecurringTransaction;
+import com.volksys.recur.model.Retention;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ScheduleReconciler}.
+ */
+@SuppressWarnings({"PMD.AvoidDuplicateLiterals", "PMD.JUnitTestContainsTooManyAsserts",
+        "PMD.AvoidInstantiatingObjectsInLoops"})
+public class ScheduleReconcilerTest {
+    private static final LocalDate START = LocalDate.of(2017, 1, 1);
+
+    /** Reloading an unchanged schedule changes nothing, even if its rows are reordered. */
+    @Test
+    @DisplayName("Unchanged rows are not budgeted again")
+    public void testUnchanged() {
+        ScheduleReconciler reconciler = new ScheduleReconciler(budgets());
+        assertEquals(12, reconciler.reconcile(load("Rent", "Gym", "Gym")).size());
+        assertTrue(reconciler.reconcile(load("Gym", "Rent", "Gym")).isEmpty());
+        assertEquals(2 * 4500 + 120_000, reconciler.getBudgets().get(0).getTotalFor("Housing"));
+    }
+
+    /** Edited, added and removed rows change only the periods in which they occur, matching a full rebuild. */
+    @Test
+    @DisplayName("Changed rows are applied as deltas")
+    public void testChanged() {
+        ScheduleReconciler reconciler = new ScheduleReconciler(budgets());
+        reconciler.reconcile(load("Rent", "Gym", "Tax", "Tax"));
+        List<RecurringTransaction> edited = load("Rent", "Gym", "Tax");
+        edited.add(new RecurringTransaction("Tax", 30_000, "Government", START.plusMonths(3).plusDays(14), null,
+                Period.ofYears(1)));
+        edited.add(new RecurringTransaction("Gift", 5_000, "Misc", START.plusMonths(11).plusDays(24), null,
+                Period.ofYears(1)));
+        List<Budget> changed = reconciler.reconcile(edited);
+        assertEquals(Arrays.asList(reconciler.getBudgets().get(3), reconciler.getBudgets().get(11)), changed);
+        List<Budget> rebuilt = budgets();
+        new BudgetPopulator(rebuilt).addAll(edited);
+        for (int i = 0; i < rebuilt.size(); i++) {
+            Budget expected = rebuilt.get(i);
+            Budget actual = reconciler.getBudgets().get(i);
+            assertEquals(expected.getCategories(), actual.getCategories());
+            for (String category : expected.getCategories()) {
+                assertEquals(expected.getTotalFor(category), actual.getTotalFor(category));
+                assertEquals(expected.getCountFor(category), actual.getCountFor(category));
+            }
+        }
+    }
+
+    private static List<RecurringTransaction> load(String... descriptions) {
+        List<RecurringTransaction> list = new ArrayList<>();
+        for (String description : descriptions) {
+            switch (description) {
+                case "Rent":
+                    list.add(new RecurringTransaction("Rent", 120_000, "Housing", START.minusYears(2), null,
+                            Period.ofMonths(1)));
+                    break;
+                case "Gym":
+                    list.add(new RecurringTransaction("Gym", 4_500, "Housing", START.plusDays(9), null,
+                            Period.ofMonths(1)));
+                    break;
+                default:
+                    list.add(new RecurringTransaction(description, 25_000, "Government", START.plusMonths(3), null,
+                            Period.ofYears(1)));
+                    break;
+            }
+        }
+        return list;
+    }
+
+    private static List<Budget> budgets() {
+        List<Budget> budgets = new ArrayList<>();
+        for (int month = 0; month < 12; month++) {
+            budgets.add(new Budget(new LocalDateRange(START.plusMonths(month), START.plusMonths(month + 1)),
+                    Retention.TRANSACTIONS));
+        }
+        return budgets;
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.volksys.recur.engine;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.Granularity;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.RecurringTransaction;
+import com.volksys.recur.model.Retention;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link StrideEvaluator}.
+ */
+@SuppressWarnings({"PMD.AvoidDuplicateLiterals", "PMD.JUnitTestContainsTooManyAsserts",
+        "PMD.AvoidInstantiatingObjectsInLoops"})
+public class StrideEvaluatorTest {
+    private static final LocalDate START = LocalDate.of(2017, 1, 1);
+    private static final List<String> CATEGORIES = Arrays.asList("Food", "Home", "Travel", "Misc");
+
+    /** Bulk evaluation yields the same totals and counts as adding each recurring transaction in turn. */
+    @Test
+    @DisplayName("Bulk totals match those of a BudgetPopulator")
+    public void testMatchesPopulator() {
+        List<RecurringTransaction> schedule = randomSchedule(new Random(42), 400);
+        for (Granularity granularity : Granularity.values()) {
+            Projection projection = new Projection(new LocalDateRange(START, START.plusYears(3)), granularity,
+                    Retention.TOTALS);
+            List<Budget> expected = projection.createBudgets();
+            new BudgetPopulator(expected).addAll(schedule);
+            List<Budget> actual = projection.createBudgets();
+            new StrideEvaluator(actual).addAll(schedule);
+            assertSameTotals(expected, actual);
+        }
+    }
+
+    /** Strides far longer than the budget periods skip the periods between occurrences and still count each one. */
+    @Test
+    @DisplayName("Long strides over short periods match those of a BudgetPopulator")
+    public void testLongStrides() {
+        List<RecurringTransaction> schedule = new ArrayList<>();
+        for (int days : new int[] {8, 90, 365, 400, 1_000}) {
+            schedule.add(new RecurringTransaction("Every " + days, days, "Travel", START.minusDays(days / 2), null,
+                    Period.ofDays(days)));
+            schedule.add(new RecurringTransaction("Three of " + days, -days, "Misc", START.plusDays(days / 3),
+                    START.plusDays(days / 3 + 2L * days), Period.ofDays(days)));
+        }
+        for (Granularity granularity : Arrays.asList(Granularity.DAY, Granularity.WEEK)) {
+            Projection projection = new Projection(new LocalDateRange(START, START.plusYears(5)), granularity,
+                    Retention.TOTALS);
+            List<Budget> expected = projection.createBudgets();
+            new BudgetPopulator(expected).addAll(schedule);
+            List<Budget> actual = projection.createBudgets();
+            new StrideEvaluator(actual).addAll(schedule);
+            assertSameTotals(expected, actual);
+        }
+    }
+
+    /** Budget periods may be given in any order and with gaps between them. */
+    @Test
+    @DisplayName("Budget periods may be unordered and discontiguous")
+    public void testUnorderedPeriods() {
+        List<Budget> expected = new ArrayList<>();
+        List<Budget> actual = new ArrayList<>();
+        for (int month = 0; month < 36; month += 2) {
+            LocalDateRange range = new LocalDateRange(START.plusMonths(month), START.plusMonths(month + 1));
+            expected.add(new Budget(range, Retention.TOTALS));
+            actual.add(new Budget(range, Retention.TOTALS));
+        }
+        Collections.reverse(expected);
+        Collections.reverse(actual);
+        List<RecurringTransaction> schedule = randomSchedule(new Random(7), 100);
+        new BudgetPopulator(expected).addAll(schedule);
+        new StrideEvaluator(actual).addAll(schedule);
+        assertSameTotals(expected, actual);
+    }
+
+    /** Only fixed-stride transactions are evaluated in bulk, and the rest are returned in order. */
+    @Test
+    @DisplayName("Calendar periods are left for stepping")
+    public void testPartition() {
+        RecurringTransaction daily = new RecurringTransaction("a", 1, "Food", START, null, Period.ofDays(1));
+        RecurringTransaction monthly = new RecurringTransaction("b", 2, "Home", START, null, Period.ofMonths(1));
+        RecurringTransaction weekly = new RecurringTransaction("c", 3, "Food", START, null, Period.ofWeeks(1));
+        RecurringTransaction yearly = new RecurringTransaction("d", 4, "Home", START, null, Period.ofYears(1));
+        RecurringTransaction once = new RecurringTransaction("e", 5, "Misc", START, START, Period.ZERO);
+        assertTrue(StrideEvaluator.hasFixedStride(weekly));
+        assertFalse(StrideEvaluator.hasFixedStride(monthly));
+        List<Budget> budgets = new Projection(new LocalDateRange(START, START.plusYears(1)), Granularity.MONTH,
+                Retention.TOTALS).createBudgets();
+        assertEquals(Arrays.asList(monthly, yearly, once),
+                new StrideEvaluator(budgets).addFixedStride(Arrays.asList(daily, monthly, weekly, yearly, once)));
+        assertEquals(31 + 5 * 3, budgets.get(0).getTotalFor("Food"));
+        assertEquals(0, budgets.get(0).getTotalFor("Home"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new StrideEvaluator(Collections.singletonList(new Budget(new LocalDateRange(START,
+                        START.plusDays(1)), Retention.TRANSACTIONS))));
+    }
+
+    @SuppressWarnings("PMD.NullAssignment")
+    private static List<RecurringTransaction> randomSchedule(Random random, int size) {
+        List<RecurringTransaction> schedule = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            LocalDate initial = START.plusDays(random.nextInt(2_000) - 1_000);
+            LocalDate last = random.nextBoolean() ? null : initial.plusDays(random.nextInt(1_200) - 100);
+            Period period;
+            switch (random.nextInt(4)) {
+                case 0:
+                    period = Period.ofWeeks(1 + random.nextInt(4));
+                    break;
+                case 1:
+                    period = Period.ofMonths(1 + random.nextInt(3));
+                    break;
+                default:
+                    period = Period.ofDays(1 + random.nextInt(30));
+                    break;
+            }
+            schedule.add(new RecurringTransaction("Item " + i, random.nextInt(100_000) - 20_000,
+                    CATEGORIES.get(random.nextInt(CATEGORIES.size())), initial, last, period));
+        }
+        return schedule;
+    }
+
+    private static void assertSameTotals(List<Budget> expected, List<Budget> actual) {
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getCategories(), actual.get(i).getCategories());
+            for (String category : CATEGORIES) {
+                assertEquals(expected.get(i).getTotalFor(category), actual.get(i).getTotalFor(category));
+                assertEquals(expected.get(i).getCountFor(category), actual.get(i).getCountFor(category));
+            }
+        }
+    }
+
+}
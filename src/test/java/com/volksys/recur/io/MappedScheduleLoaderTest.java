@@ -0,0 +1,108 @@
+package com.volksys.recur.io;
+
+import com.volksys.recur.model.RecurringTransaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link MappedScheduleLoader}.
+ */
+@SuppressWarnings({"PMD.AvoidDuplicateLiterals", "PMD.JUnitTestContainsTooManyAsserts",
+        "PMD.AvoidInstantiatingObjectsInLoops"})
+public class MappedScheduleLoaderTest {
+    private static final String CSV = "\uFEFF" + "Description,Amount,Start,End,Period,Units,Category,Enabled\r\n"
+            + "Rent,1200.00,2015-01-01,,1,MONTHS,Housing,TRUE\r\n"
+            + "\"Gym, \"\"premium\"\"\nmembership\nplan\",45,2016-01-31,,1,MONTHS,\"Health\",TRUE\n"
+            + "\n"
+            + "Broken,x,2016-01-31,,1,MONTHS,Health,TRUE\n"
+            + "\"Caf\u00e9\",3.5,2017-01-01,,1,DAYS,Food,TRUE\n" // e with acute accent
+            + "12\" pipe,30,2016-05-01,,1,YEARS,Home,TRUE\n"
+            + "Old,1,2010-01-01,,2,WEEKS,Misc,FALSE\n"
+            + "\"Short\nrow\",1,2010-01-01,,2,WEEKS\n"
+            + "\"\",7,2016-01-01,,1,DAYS,\"Odd \"\"\n\" quote\",TRUE\n"
+            + "Last,2,2017-03-04,2018-03-04,1,YEARS,Misc,TRUE";
+
+    /** Every way of dividing a file into chunks, even around quotes within fields, matches loading it sequentially. */
+    @Test
+    @DisplayName("Chunked loading matches sequential loading")
+    public void testChunks() throws IOException {
+        LoadResult expected = new ScheduleLoader().load(new StringReader(CSV));
+        Path path = Files.createTempFile("schedule", ".csv");
+        try {
+            Files.write(path, CSV.getBytes(StandardCharsets.UTF_8));
+            for (int segmentSize = 1; segmentSize <= CSV.length() + 1; segmentSize++) {
+                LoadResult actual = new MappedScheduleLoader(StandardCharsets.UTF_8, ForkJoinPool.commonPool(),
+                        segmentSize).load(path);
+                assertEquals(expected.getRowCount(), actual.getRowCount());
+                assertEquals(describe(expected), describe(actual), "segment size " + segmentSize);
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /** A mapped loader created by a loader sharing descriptions shares them too. */
+    @Test
+    @DisplayName("Mapped loaders share descriptions with their loader")
+    public void testSharedDescriptions() throws IOException {
+        Path path = Files.createTempFile("schedule", ".csv");
+        try {
+            Files.write(path, CSV.getBytes(StandardCharsets.UTF_8));
+            ScheduleLoader loader = ScheduleLoader.sharingDescriptions(StandardCharsets.UTF_8);
+            RecurringTransaction sequential = loader.load(path).getRecurringTransactions().get(0);
+            RecurringTransaction mapped = loader.mapped(ForkJoinPool.commonPool()).load(path)
+                    .getRecurringTransactions().get(0);
+            assertEquals("Rent", mapped.getDescription());
+            assertSame(sequential.getDescription(), mapped.getDescription());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /** A file without a header is rejected. */
+    @Test
+    @DisplayName("Empty files are rejected")
+    public void testEmpty() throws IOException {
+        Path path = Files.createTempFile("schedule", ".csv");
+        try {
+            assertThrows(IOException.class, () -> new MappedScheduleLoader().load(path));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /** Character sets that encode delimiters differently from ASCII are refused. */
+    @Test
+    @DisplayName("Incompatible character sets are rejected")
+    public void testCharset() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new MappedScheduleLoader(StandardCharsets.UTF_16, ForkJoinPool.commonPool()));
+    }
+
+    private static String describe(LoadResult result) {
+        StringBuilder builder = new StringBuilder();
+        List<RecurringTransaction> list = result.getRecurringTransactions();
+        for (RecurringTransaction rt : list) {
+            builder.append(rt.getDescription()).append('|').append(rt.getAmount()).append('|')
+                    .append(rt.getInitialOccurrence()).append('|').append(rt.getFinalOccurrence()).append('|')
+                    .append(rt.getPeriod()).append('|').append(rt.getCategory()).append('\n');
+        }
+        for (RowError error : result.getErrors()) {
+            builder.append(error).append('\n');
+        }
+        return builder.toString();
+    }
+
+}
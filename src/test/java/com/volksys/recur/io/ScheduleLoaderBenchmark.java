@@ -0,0 +1,127 @@
+package com.volksys.recur.io;
+
+import com.volksys.recur.model.RecurringTransaction;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the throughput, in rows per second, of {@link ScheduleLoader} and {@link MappedScheduleLoader} with the
+ * commons-csv path they replaced.
+ *
+ * <p>Run with {@code ./gradlew loaderBenchmark}, optionally passing the number of rows to generate as
+ * {@code -PbenchmarkRows=...}.
+ */
+@SuppressWarnings({"PMD.SystemPrintln", "PMD.AvoidInstantiatingObjectsInLoops", "PMD.NullAssignment"})
+public final class ScheduleLoaderBenchmark {
+    private static final int ITERATIONS = 5;
+    private static final String[] UNITS = {"DAYS", "WEEKS", "MONTHS", "YEARS"};
+
+    private ScheduleLoaderBenchmark() {
+    }
+
+    /**
+     * Generates a schedule file and times both loaders against it.
+     *
+     * @param args optionally, the number of rows to generate
+     * @throws IOException if the schedule file cannot be written or read
+     */
+    public static void main(String... args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Path path = Files.createTempFile("schedule", ".csv");
+        try {
+            generate(path, rows);
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                int legacyCount = loadLegacy(path).size();
+                long legacy = System.nanoTime() - start;
+                start = System.nanoTime();
+                int count = new ScheduleLoader().load(path).getRecurringTransactions().size();
+                long streaming = System.nanoTime() - start;
+                start = System.nanoTime();
+                int mappedCount = new MappedScheduleLoader().load(path).getRecurringTransactions().size();
+                long mapped = System.nanoTime() - start;
+                System.out.printf("iteration %d: commons-csv %,.0f rows/s (%d), ScheduleLoader %,.0f rows/s (%d), "
+                        + "MappedScheduleLoader %,.0f rows/s (%d)%n", i + 1, rows * 1e9 / legacy, legacyCount,
+                        rows * 1e9 / streaming, count, rows * 1e9 / mapped, mappedCount);
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Writes a reproducible schedule file of a given number of rows.
+     *
+     * @param path the file to write
+     * @param rows the number of data rows
+     * @throws IOException if the file cannot be written
+     */
+    private static void generate(Path path, int rows) throws IOException {
+        Random random = new Random(rows);
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("Description,Amount,Start,End,Period,Units,Category,Enabled\n");
+            for (int i = 0; i < rows; i++) {
+                LocalDate start = LocalDate.of(1990, 1, 1).plusDays(random.nextInt(12_000));
+                String end = random.nextInt(4) == 0 ? start.plusYears(1 + random.nextInt(20)).toString() : "";
+                writer.write("\"Item " + i + ", synthetic\"," + random.nextInt(500_000) / 100.0 + "," + start + ","
+                        + end + "," + (1 + random.nextInt(3)) + "," + UNITS[random.nextInt(UNITS.length)]
+                        + ",Category " + random.nextInt(40) + "," + (random.nextInt(10) > 0 ? "TRUE" : "FALSE")
+                        + "\n");
+            }
+        }
+    }
+
+    /**
+     * The loading path used before {@link ScheduleLoader}, retained for comparison.
+     */
+    private static List<RecurringTransaction> loadLegacy(Path path) throws IOException {
+        List<RecurringTransaction> list = new ArrayList<>();
+        try (Reader in = new FileReader(path.toFile())) {
+            for (CSVRecord record : CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(in)) {
+                if (record.get("Enabled").equalsIgnoreCase("true")) {
+                    String description = record.get("Description").trim();
+                    int amount = (int) Math.round(100 * Double.parseDouble(record.get("Amount")));
+                    LocalDate start = LocalDate.from(DateTimeFormatter.ISO_LOCAL_DATE.parse(record.get("Start")));
+                    String endString = record.get("End");
+                    LocalDate end = endString.trim().isEmpty() ? null
+                            : LocalDate.from(DateTimeFormatter.ISO_LOCAL_DATE.parse(endString));
+                    int period = Integer.parseInt(record.get("Period"));
+                    Period units = periodOf(period, ChronoUnit.valueOf(record.get("Units")));
+                    list.add(new RecurringTransaction(description, amount, record.get("Category"), start, end, units));
+                }
+            }
+        }
+        return list;
+    }
+
+    private static Period periodOf(int period, ChronoUnit units) {
+        switch (units) {
+            case DAYS:
+                return Period.ofDays(period);
+            case WEEKS:
+                return Period.ofWeeks(period);
+            case MONTHS:
+                return Period.ofMonths(period);
+            case YEARS:
+                return Period.ofYears(period);
+            default:
+                throw new IllegalArgumentException("Unsupported unit of time: " + units);
+        }
+    }
+
+}
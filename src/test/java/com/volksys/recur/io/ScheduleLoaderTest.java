@@ -0,0 +1,155 @@
+package com.volksys.recur.io;
+
+import com.volksys.recur.model.RecurringTransaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ScheduleLoader}.
+ */
+@SuppressWarnings({"PMD.AvoidDuplicateLiterals", "PMD.JUnitTestContainsTooManyAsserts"})
+public class ScheduleLoaderTest {
+    private static final String HEADER = "Description,Amount,Start,End,Period,Units,Category,Enabled\n";
+
+    /** Every column is parsed into the corresponding property. */
+    @Test
+    @DisplayName("Rows are parsed into recurring transactions")
+    public void testLoad() throws IOException {
+        LoadResult result = load(HEADER
+                + " Rent ,1200.00,2015-01-01,,1,MONTHS,Housing,TRUE\n"
+                + "Gym,45,2016-01-31,2017-06-30,2,weeks,Health,true\n");
+        List<RecurringTransaction> list = result.getRecurringTransactions();
+        assertEquals(2, list.size());
+        assertEquals(2, result.getRowCount());
+        assertTrue(result.getErrors().isEmpty());
+        RecurringTransaction rent = list.get(0);
+        assertEquals("Rent", rent.getDescription());
+        assertEquals(120000, rent.getAmount());
+        assertEquals(LocalDate.of(2015, 1, 1), rent.getInitialOccurrence());
+        assertNull(rent.getFinalOccurrence());
+        assertEquals(Period.ofMonths(1), rent.getPeriod());
+        assertEquals("Housing", rent.getCategory());
+        RecurringTransaction gym = list.get(1);
+        assertEquals(LocalDate.of(2017, 6, 30), gym.getFinalOccurrence());
+        assertEquals(Period.ofWeeks(2), gym.getPeriod());
+    }
+
+    /** Columns may appear in any order and unknown columns are ignored. */
+    @Test
+    @DisplayName("Columns are located by header name")
+    public void testColumnOrder() throws IOException {
+        LoadResult result = load("Category,Notes,Enabled,Units,Period,End,Start,Amount,Description\n"
+                + "Food,whatever,TRUE,DAYS,3,,2017-02-03,4.5,Coffee\n");
+        RecurringTransaction coffee = result.getRecurringTransactions().get(0);
+        assertEquals("Coffee", coffee.getDescription());
+        assertEquals(450, coffee.getAmount());
+        assertEquals(Period.ofDays(3), coffee.getPeriod());
+        assertEquals("Food", coffee.getCategory());
+    }
+
+    /** Quoted fields may contain delimiters, quotes and line breaks. */
+    @Test
+    @DisplayName("Quoted fields are unescaped")
+    public void testQuotedFields() throws IOException {
+        LoadResult result = load(HEADER
+                + "\"Gym, \"\"premium\"\"\nmembership\",45,2016-01-31,,1,MONTHS,\"Health\",TRUE\r\n"
+                + "\r\n"
+                + "Broken,x,2016-01-31,,1,MONTHS,Health,TRUE\r\n");
+        assertEquals("Gym, \"premium\"\nmembership", result.getRecurringTransactions().get(0).getDescription());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(5, result.getErrors().get(0).getLineNumber());
+    }
+
+    /** Rows that are not enabled are skipped without being validated. */
+    @Test
+    @DisplayName("Disabled rows are skipped")
+    public void testDisabled() throws IOException {
+        LoadResult result = load(HEADER
+                + "Old,not a number,2010-01-01,,2,WEEKS,Misc,FALSE\n"
+                + "Older,10,2010-01-01,,2,WEEKS,Misc,\n");
+        assertTrue(result.getRecurringTransactions().isEmpty());
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals(2, result.getRowCount());
+    }
+
+    /** Malformed rows are reported with their line numbers and do not prevent other rows from loading. */
+    @Test
+    @DisplayName("Malformed rows are reported and skipped")
+    public void testErrors() throws IOException {
+        LoadResult result = load(HEADER
+                + "A,1.00,2017-02-30,,1,MONTHS,Misc,TRUE\n"
+                + "B,1.00,2017-02-03,,1,FORTNIGHTS,Misc,TRUE\n"
+                + "C,1.00,17-2-3,,1,MONTHS,Misc,TRUE\n"
+                + "D,1.00,2017-02-03,,one,MONTHS,Misc,TRUE\n"
+                + "E,1.00,2017-02-03,,1,MONTHS,Misc\n"
+                + "F,1.00,2017-02-03,,1,MONTHS,Misc,TRUE\n");
+        assertEquals(1, result.getRecurringTransactions().size());
+        assertEquals(5, result.getErrors().size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i + 2, result.getErrors().get(i).getLineNumber());
+        }
+    }
+
+    /** Amounts are parsed exactly, rounding half away from zero beyond the hundredths place. */
+    @Test
+    @DisplayName("Amounts are parsed exactly to cents")
+    public void testAmounts() throws IOException {
+        String[] amounts = {"3", "0.07", ".5", "-2.5", "+1.2", "1.005", "-1.005", "1.0049", "21474836.47"};
+        int[] expected = {300, 7, 50, -250, 120, 101, -101, 100, Integer.MAX_VALUE};
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (String amount : amounts) {
+            csv.append("A,").append(amount).append(",2017-01-01,,1,DAYS,Misc,TRUE\n");
+        }
+        csv.append("A,21474836.48,2017-01-01,,1,DAYS,Misc,TRUE\nA,1.2.3,2017-01-01,,1,DAYS,Misc,TRUE\n"
+                + "A,.,2017-01-01,,1,DAYS,Misc,TRUE\n");
+        LoadResult result = load(csv.toString());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], result.getRecurringTransactions().get(i).getAmount(), amounts[i]);
+        }
+        assertEquals(3, result.getErrors().size());
+    }
+
+    /** A header lacking a required column is rejected. */
+    @Test
+    @DisplayName("Missing columns are rejected")
+    public void testMissingColumn() {
+        assertThrows(IOException.class, () -> load("Description,Amount,Start,End,Period,Units,Category\n"));
+        assertThrows(IOException.class, () -> load(""));
+    }
+
+    /** Files are read in the requested character set and a leading byte order mark is ignored. */
+    @Test
+    @DisplayName("Files are decoded as UTF-8")
+    public void testLoadPath() throws IOException {
+        Path path = Files.createTempFile("schedule", ".csv");
+        try {
+            String cafe = "Caf\u00e9"; // e with acute accent
+            Files.write(path, Collections.singletonList("\uFEFF" + HEADER + cafe + ",1,2017-01-01,,1,DAYS,Food,TRUE"),
+                    StandardCharsets.UTF_8);
+            LoadResult result = new ScheduleLoader().load(path);
+            assertEquals(cafe, result.getRecurringTransactions().get(0).getDescription());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private LoadResult load(String csv) throws IOException {
+        return new ScheduleLoader().load(new StringReader(csv));
+    }
+
+}
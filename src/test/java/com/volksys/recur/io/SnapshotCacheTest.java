@@ -0,0 +1,159 @@
+package com.volksys.recur.io;
+
+import com.volksys.recur.model.RecurringTransaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link SnapshotCache} and {@link ScheduleSnapshot}.
+ */
+@SuppressWarnings({"PMD.AvoidDuplicateLiterals", "PMD.JUnitTestContainsTooManyAsserts"})
+public class SnapshotCacheTest {
+    private static final String CSV = "Description,Amount,Start,End,Period,Units,Category,Enabled\n"
+            + "Rent,1200.00,2015-01-01,,1,MONTHS,Housing,TRUE\n"
+            + "\"Caf\u00e9\",-3.5,2017-01-01,2017-12-31,10,DAYS,Food,TRUE\n" // e with acute accent
+            + "Broken,x,2016-01-31,,1,MONTHS,Health,TRUE\n"
+            + "Gym,45,2016-01-31,,2,YEARS,Housing,TRUE\n"
+            + "Old,1,2010-01-01,,2,WEEKS,Misc,FALSE\n";
+
+    private Path directory;
+    private Path csv;
+    private SnapshotCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    /** Creates a schedule file and an empty cache. */
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("recur");
+        csv = directory.resolve("schedule.csv");
+        Files.write(csv, CSV.getBytes(StandardCharsets.UTF_8));
+        cache = new SnapshotCache(directory.resolve("cache"));
+    }
+
+    /** Deletes the schedule file and cache. */
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /** A snapshot restores every property of the recurring transactions, the row errors and the row count. */
+    @Test
+    @DisplayName("Snapshots round trip load results")
+    public void testRoundTrip() throws IOException {
+        LoadResult expected = load();
+        LoadResult actual = load();
+        assertEquals(1, loads.get());
+        assertEquals(describe(expected), describe(actual));
+        assertEquals(expected.getRowCount(), actual.getRowCount());
+    }
+
+    /** A file touched without being changed is restored from its snapshot; a changed file is parsed again. */
+    @Test
+    @DisplayName("Snapshots are invalidated by changes")
+    public void testInvalidation() throws IOException {
+        load();
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis() + 60_000));
+        load();
+        assertEquals(1, loads.get());
+        Files.write(csv, CSV.replace("1200.00", "1300.00").getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis() + 120_000));
+        assertEquals(130000, load().getRecurringTransactions().get(0).getAmount());
+        assertEquals(2, loads.get());
+        Files.write(csv, (CSV + "New,1,2010-01-01,,2,WEEKS,Misc,TRUE\n").getBytes(StandardCharsets.UTF_8));
+        assertEquals(4, load().getRecurringTransactions().size());
+        assertEquals(3, loads.get());
+    }
+
+    /** A file rewritten while it is being loaded is not snapshotted, so its new contents are parsed next time. */
+    @Test
+    @DisplayName("Files changed during loading are not snapshotted")
+    public void testChangedWhileLoading() throws IOException {
+        LoadResult stale = cache.load(csv, path -> {
+            LoadResult result = new ScheduleLoader().load(path);
+            Files.write(csv, CSV.replace("1200.00", "1300.00").getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis() + 60_000));
+            return result;
+        });
+        assertEquals(120000, stale.getRecurringTransactions().get(0).getAmount());
+        assertEquals(130000, load().getRecurringTransactions().get(0).getAmount());
+        assertEquals(1, loads.get());
+        assertEquals(130000, load().getRecurringTransactions().get(0).getAmount());
+        assertEquals(1, loads.get());
+    }
+
+    /** A snapshot that cannot be written leaves the file loaded, and is attempted again next time. */
+    @Test
+    @DisplayName("Unwritable caches do not fail loads")
+    public void testUnwritable() throws IOException {
+        Path file = Files.createFile(directory.resolve("home"));
+        cache = new SnapshotCache(file.resolve("cache"));
+        assertEquals(3, load().getRecurringTransactions().size());
+        assertEquals(3, load().getRecurringTransactions().size());
+        assertEquals(2, loads.get());
+    }
+
+    /** The checksum computed while loading is the checksum of the file. */
+    @Test
+    @DisplayName("Checksums are computed while loading")
+    public void testChecksumWhileLoading() throws IOException {
+        CRC32 sequential = new CRC32();
+        new ScheduleLoader().load(csv, sequential);
+        CRC32 mapped = new CRC32();
+        new MappedScheduleLoader(StandardCharsets.UTF_8, ForkJoinPool.commonPool(), 7).load(csv, mapped);
+        assertEquals(SnapshotCache.checksum(csv), sequential.getValue());
+        assertEquals(SnapshotCache.checksum(csv), mapped.getValue());
+    }
+
+    /** A corrupt snapshot is ignored and replaced. */
+    @Test
+    @DisplayName("Corrupt snapshots are replaced")
+    public void testCorrupt() throws IOException {
+        LoadResult expected = load();
+        Path snapshot = cache.snapshotPathFor(csv);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(bytes, bytes.length / 2));
+        assertEquals(describe(expected), describe(load()));
+        assertEquals(2, loads.get());
+        assertEquals(describe(expected), describe(load()));
+        assertEquals(2, loads.get());
+    }
+
+    private LoadResult load() throws IOException {
+        return cache.load(csv, (path, crc) -> {
+            loads.incrementAndGet();
+            return new ScheduleLoader().load(path, crc);
+        });
+    }
+
+    private static String describe(LoadResult result) {
+        StringBuilder builder = new StringBuilder();
+        for (RecurringTransaction rt : result.getRecurringTransactions()) {
+            builder.append(rt.getDescription()).append('|').append(rt.getAmount()).append('|')
+                    .append(rt.getInitialOccurrence()).append('|').append(rt.getFinalOccurrence()).append('|')
+                    .append(rt.getPeriod()).append('|').append(rt.getCategory()).append('\n');
+        }
+        for (RowError error : result.getErrors()) {
+            builder.append(error).append('\n');
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.volksys.recur.metrics;
+
+import com.volksys.recur.engine.Projection;
+import com.volksys.recur.io.ScheduleLoader;
+import com.volksys.recur.model.Granularity;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.RecurringTransaction;
+import com.volksys.recur.model.Retention;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link Metrics}.
+ */
+@SuppressWarnings({"PMD.AvoidDuplicateLiterals", "PMD.JUnitTestContainsTooManyAsserts"})
+public class MetricsTest {
+    private static final String SCHEDULE = "Description,Amount,Start,End,Period,Units,Category,Enabled\n"
+            + "Rent,1200.00,2016-01-01,,1,MONTHS,Housing,TRUE\n"
+            + "Coffee,3.5,2017-03-02,2017-03-11,1,DAYS,Food,TRUE\n"
+            + "Old,10,2010-01-01,,2,WEEKS,Misc,FALSE\n"
+            + "Broken,x,2010-01-01,,2,WEEKS,Misc,TRUE\n";
+    private static final LocalDate START = LocalDate.of(2017, 1, 1);
+
+    /** Disables and clears the metrics after each test, since they are shared by the JVM. */
+    @AfterEach
+    public void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.getInstance().reset();
+    }
+
+    /** Nothing is recorded while metrics are disabled. */
+    @Test
+    @DisplayName("Disabled metrics record nothing")
+    public void testDisabled() throws IOException {
+        Metrics.getInstance().reset();
+        try (Metrics.Timing timing = Metrics.time(Stage.LOAD)) {
+            run(Retention.TRANSACTIONS);
+            assertSame(Metrics.time(Stage.RENDER), timing);
+        }
+        for (long count : Metrics.getInstance().getCounts().values()) {
+            assertEquals(0, count);
+        }
+        assertEquals(0, Metrics.getInstance().getNanos(Stage.LOAD));
+    }
+
+    /** Rows and occurrences are counted as a schedule is loaded and projected. */
+    @Test
+    @DisplayName("Enabled metrics count rows and occurrences")
+    public void testCounts() throws IOException {
+        Metrics.getInstance().reset();
+        Metrics.setEnabled(true);
+        run(Retention.TRANSACTIONS);
+        Metrics metrics = Metrics.getInstance();
+        assertEquals(4, metrics.getCount(Counter.ROWS_PARSED));
+        assertEquals(1, metrics.getCount(Counter.ROWS_REJECTED));
+        assertEquals(12 + 10, metrics.getCount(Counter.OCCURRENCES_ADDED));
+        assertEquals(12 + 10, metrics.getCount(Counter.OCCURRENCES_GENERATED));
+        assertEquals(12 * 12 + 11 * 12 / 2, metrics.getCount(Counter.OCCURRENCES_SKIPPED));
+        metrics.reset();
+        run(Retention.TOTALS);
+        assertEquals(12 + 10, metrics.getCount(Counter.OCCURRENCES_ADDED));
+        assertEquals(0, metrics.getCount(Counter.OCCURRENCES_GENERATED));
+    }
+
+    /** Stage timings accumulate and are exposed, with the counts, over JMX. */
+    @Test
+    @DisplayName("Stage timings are exposed over JMX")
+    @SuppressWarnings("try")
+    public void testTimingAndJmx() throws IOException, JMException, InterruptedException {
+        Metrics.getInstance().reset();
+        Metrics.setEnabled(true);
+        try (Metrics.Timing timing = Metrics.time(Stage.POPULATE)) {
+            run(Retention.TRANSACTIONS);
+            Thread.sleep(2);
+        }
+        assertTrue(Metrics.getInstance().getNanos(Stage.POPULATE) >= 2_000_000);
+        Metrics.register();
+        Metrics.register();
+        ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+        TabularData counts = (TabularData) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Counts");
+        assertEquals(Counter.values().length, counts.size());
+        assertTrue((Boolean) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Enabled"));
+        Map<String, Long> nanos = Metrics.getInstance().getStageNanos();
+        assertEquals(nanos.get(Stage.POPULATE.name()).longValue(), Metrics.getInstance().getNanos(Stage.POPULATE));
+        assertTrue(Metrics.getInstance().getSummary().contains("ROWS_PARSED"));
+    }
+
+    private static void run(Retention retention) throws IOException {
+        List<RecurringTransaction> schedule = new ScheduleLoader().load(new StringReader(SCHEDULE))
+                .getRecurringTransactions();
+        new Projection(new LocalDateRange(START, START.plusYears(1)), Granularity.MONTH, retention).project(schedule);
+    }
+
+}
@@ -0,0 +1,180 @@
+package com.volksys.recur.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link Budget}.
+ */
+@SuppressWarnings({"PMD.AvoidDuplicateLiterals", "PMD.JUnitTestContainsTooManyAsserts",
+        "PMD.AvoidInstantiatingObjectsInLoops"})
+public class BudgetTest {
+    private static final LocalDate START = LocalDate.of(2017, 1, 1);
+
+    /** Totals accumulate as transactions are added. */
+    @Test
+    @DisplayName("Totals reflect every transaction added to a category")
+    public void testTotals() {
+        Budget budget = new Budget(new LocalDateRange(START, START.plusMonths(1)));
+        budget.addTransaction(new Transaction("a", 150, "Food", START));
+        budget.addTransaction(new Transaction("b", 250, "Food", START.plusDays(3)));
+        budget.addTransaction(new Transaction("c", -75, "Rent", START.plusDays(5)));
+        assertEquals(400, budget.getBudgetFor("Food"));
+        assertEquals(-75, budget.getBudgetFor("Rent"));
+        assertEquals(0, budget.getBudgetFor("Travel"));
+        assertEquals(2, budget.getTransactionsFor("Food").size());
+        assertTrue(budget.getTransactionsFor("Travel").isEmpty());
+    }
+
+    /** Transactions outside the budget period are ignored. */
+    @Test
+    @DisplayName("Transactions outside the date range are ignored")
+    public void testOutOfRange() {
+        Budget budget = new Budget(new LocalDateRange(START, START.plusMonths(1)));
+        budget.addTransaction(new Transaction("a", 150, "Food", START.minusDays(1)));
+        budget.addTransaction(new Transaction("b", 150, "Food", START.plusMonths(1)));
+        assertEquals(0, budget.getTotalFor("Food"));
+        assertTrue(budget.getCategories().isEmpty());
+    }
+
+    /** Categories are reported in alphabetical order regardless of the order in which they were added. */
+    @Test
+    @DisplayName("Categories are sorted")
+    public void testCategoriesSorted() {
+        Budget budget = new Budget(new LocalDateRange(START, START.plusMonths(1)));
+        for (String category : Arrays.asList("Utilities", "Food", "Rent", "Food", "Auto")) {
+            budget.addTransaction(new Transaction("a", 1, category, START));
+        }
+        assertEquals(Arrays.asList("Auto", "Food", "Rent", "Utilities"), budget.getCategories());
+    }
+
+    /** Totals exceeding the range of an int are reported exactly by getTotalFor. */
+    @Test
+    @DisplayName("Totals larger than an int are tracked without overflow")
+    public void testLargeTotals() {
+        Budget budget = new Budget(new LocalDateRange(START, START.plusMonths(1)));
+        budget.addTransaction(new Transaction("a", Integer.MAX_VALUE, "Payroll", START));
+        budget.addTransaction(new Transaction("b", Integer.MAX_VALUE, "Payroll", START));
+        assertEquals(2L * Integer.MAX_VALUE, budget.getTotalFor("Payroll"));
+        assertThrows(ArithmeticException.class, () -> budget.getBudgetFor("Payroll"));
+    }
+
+    /** A budget retaining only totals accumulates totals and counts but keeps no transactions. */
+    @Test
+    @DisplayName("Budgets retaining totals keep totals and counts only")
+    public void testTotalsRetention() {
+        Budget budget = new Budget(new LocalDateRange(START, START.plusMonths(1)), Retention.TOTALS);
+        budget.addTransaction(new Transaction("a", 150, "Food", START));
+        budget.addOccurrences("Food", 25, 4);
+        budget.addOccurrences("Rent", 1000, 0);
+        assertEquals(250, budget.getTotalFor("Food"));
+        assertEquals(5, budget.getCountFor("Food"));
+        assertTrue(budget.getTransactionsFor("Food").isEmpty());
+        assertEquals(Arrays.asList("Food"), budget.getCategories());
+    }
+
+    /** Bulk occurrences cannot be added to a budget that retains transactions. */
+    @Test
+    @DisplayName("addOccurrences throws for budgets retaining transactions")
+    public void testAddOccurrencesRetainingTransactions() {
+        Budget budget = new Budget(new LocalDateRange(START, START.plusMonths(1)));
+        assertThrows(IllegalStateException.class, () -> budget.addOccurrences("Food", 25, 4));
+    }
+
+    /** Retained transactions are recreated from their stored values, in order, by a view reflecting later additions. */
+    @Test
+    @DisplayName("Retained transactions are stored by value")
+    public void testStoredTransactions() {
+        Budget budget = new Budget(new LocalDateRange(START, START.plusYears(1)));
+        final List<Transaction> food = budget.getTransactionsFor("Food");
+        for (int day = 0; day < 365; day++) {
+            budget.addTransaction(new Transaction("d" + day % 7, day, "Food", START.plusDays(day)));
+        }
+        List<Transaction> transactions = budget.getTransactionsFor("Food");
+        assertEquals(365, transactions.size());
+        for (int day = 0; day < 365; day++) {
+            Transaction transaction = transactions.get(day);
+            assertEquals("d" + day % 7, transaction.getDescription());
+            assertEquals(day, transaction.getAmount());
+            assertEquals("Food", transaction.getCategory());
+            assertEquals(START.plusDays(day), transaction.getDate());
+        }
+        assertTrue(food.isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> transactions.remove(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> transactions.get(365));
+    }
+
+    /** A budget retaining schedules regenerates, in order, the occurrences of the recurring transactions added. */
+    @Test
+    @DisplayName("Budgets retaining schedules regenerate their transactions")
+    public void testSchedulesRetention() {
+        LocalDateRange range = new LocalDateRange(START, START.plusMonths(1));
+        RecurringTransaction weekly = new RecurringTransaction("w", 100, "Food", START.minusDays(3), null,
+                Period.ofWeeks(1));
+        RecurringTransaction daily = new RecurringTransaction("d", 5, "Food", START.plusDays(29), null,
+                Period.ofDays(1));
+        Budget budget = new Budget(range, Retention.SCHEDULES);
+        budget.addOccurrences(weekly, weekly.countOccurrencesIn(range));
+        budget.addOccurrences(daily, daily.countOccurrencesIn(range));
+        assertEquals(Arrays.asList("Food"), budget.getCategories());
+        assertEquals(6, budget.getCountFor("Food"));
+        assertEquals(410, budget.getTotalFor("Food"));
+        List<String> expected = Arrays.asList("w 2017-01-05", "w 2017-01-12", "w 2017-01-19", "w 2017-01-26",
+                "d 2017-01-30", "d 2017-01-31");
+        List<String> actual = new ArrayList<>();
+        for (Transaction transaction : budget.iterateTransactionsFor("Food")) {
+            actual.add(transaction.getDescription() + " " + transaction.getDate());
+        }
+        assertEquals(expected, actual);
+        assertEquals(6, budget.getTransactionsFor("Food").size());
+        assertThrows(IllegalStateException.class,
+                () -> budget.addTransaction(new Transaction("a", 150, "Food", START)));
+        assertThrows(IllegalStateException.class, () -> budget.addOccurrences("Food", 25, 4));
+        assertThrows(IllegalStateException.class, () -> budget.merge(new Budget(range)));
+    }
+
+    /** Merging appends the other budget's transactions to each category and combines totals and counts. */
+    @Test
+    @DisplayName("Budgets for the same period can be merged")
+    public void testMerge() {
+        LocalDateRange range = new LocalDateRange(START, START.plusMonths(1));
+        Budget budget = new Budget(range);
+        budget.addTransaction(new Transaction("a", 150, "Food", START.plusDays(9)));
+        Budget other = new Budget(range);
+        other.addTransaction(new Transaction("b", 250, "Food", START));
+        other.addTransaction(new Transaction("c", -75, "Auto", START));
+        budget.merge(other);
+        assertEquals(Arrays.asList("Auto", "Food"), budget.getCategories());
+        assertEquals(400, budget.getTotalFor("Food"));
+        assertEquals(2, budget.getCountFor("Food"));
+        assertEquals("a", budget.getTransactionsFor("Food").get(0).getDescription());
+        assertEquals("b", budget.getTransactionsFor("Food").get(1).getDescription());
+        assertEquals(2, other.getCategories().size());
+        assertEquals(250, other.getTotalFor("Food"));
+        Budget totals = new Budget(range, Retention.TOTALS);
+        totals.merge(budget);
+        assertEquals(3, totals.getCountFor("Food") + totals.getCountFor("Auto"));
+    }
+
+    /** Budgets for different periods, or lacking transactions the target must retain, cannot be merged. */
+    @Test
+    @DisplayName("Incompatible budgets cannot be merged")
+    public void testMergeIncompatible() {
+        Budget budget = new Budget(new LocalDateRange(START, START.plusMonths(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> budget.merge(new Budget(new LocalDateRange(START, START.plusMonths(2)))));
+        assertThrows(IllegalStateException.class,
+                () -> budget.merge(new Budget(new LocalDateRange(START, START.plusMonths(1)), Retention.TOTALS)));
+    }
+
+}
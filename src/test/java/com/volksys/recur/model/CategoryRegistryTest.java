@@ -0,0 +1,105 @@
+package com.volksys.recur.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link CategoryRegistry}.
+ */
+@SuppressWarnings({"PMD.AvoidDuplicateLiterals", "PMD.JUnitTestContainsTooManyAsserts",
+        "PMD.AvoidInstantiatingObjectsInLoops", "PMD.StringInstantiation"})
+public class CategoryRegistryTest {
+
+    /** Categories receive dense ids in registration order, and each id resolves to the first instance registered. */
+    @Test
+    @DisplayName("Categories are assigned dense ids")
+    public void testDenseIds() {
+        CategoryRegistry registry = new CategoryRegistry();
+        String food = "Food";
+        assertEquals(-1, registry.idOf(food));
+        assertEquals(0, registry.register(food));
+        assertEquals(1, registry.register("Rent"));
+        assertEquals(0, registry.register(new String(food.toCharArray())));
+        assertEquals(1, registry.idOf("Rent"));
+        assertSame(food, registry.nameOf(0));
+        assertThrows(IllegalArgumentException.class, () -> registry.nameOf(2));
+        assertThrows(IllegalArgumentException.class, () -> registry.nameOf(-1));
+    }
+
+    /** A missing category is rejected when a transaction is constructed. */
+    @Test
+    @DisplayName("Null categories are rejected")
+    public void testNullCategory() {
+        LocalDate date = LocalDate.of(2017, 1, 1);
+        assertThrows(NullPointerException.class, () -> new CategoryRegistry().register(null));
+        assertThrows(NullPointerException.class, () -> new Transaction("a", 1, null, date));
+        assertThrows(NullPointerException.class,
+                () -> new RecurringTransaction("a", 1, null, date, null, Period.ofDays(1)));
+    }
+
+    /** Threads registering the same categories concurrently agree on their ids, which remain dense. */
+    @Test
+    @DisplayName("Concurrent registration assigns each category one id")
+    public void testConcurrentRegistration() throws InterruptedException, ExecutionException {
+        CategoryRegistry registry = new CategoryRegistry();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<int[]>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(() -> {
+                    int[] ids = new int[1000];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = registry.register("c" + i);
+                    }
+                    return ids;
+                }));
+            }
+            int[] expected = futures.get(0).get();
+            Set<Integer> distinct = new HashSet<>();
+            for (Future<int[]> future : futures) {
+                int[] ids = future.get();
+                for (int i = 0; i < ids.length; i++) {
+                    assertEquals(expected[i], ids[i]);
+                    assertEquals("c" + i, registry.nameOf(ids[i]));
+                    distinct.add(ids[i]);
+                }
+            }
+            assertEquals(1000, distinct.size());
+            assertEquals(999, distinct.stream().mapToInt(Integer::intValue).max().getAsInt());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /** Recurring transactions and their occurrences share the registered instance of their category name. */
+    @Test
+    @DisplayName("Recurring transactions intern their categories")
+    public void testRecurringTransactionsIntern() {
+        String category = "Interned category";
+        RecurringTransaction first = new RecurringTransaction("a", 1, category, LocalDate.of(2017, 1, 1), null,
+                Period.ofDays(1));
+        RecurringTransaction second = new RecurringTransaction("b", 1, new String(category.toCharArray()),
+                LocalDate.of(2017, 1, 1), null, Period.ofDays(1));
+        assertEquals(first.getCategoryId(), second.getCategoryId());
+        assertSame(first.getCategory(), second.getCategory());
+        Transaction occurrence = second.iterator().next();
+        assertSame(first.getCategory(), occurrence.getCategory());
+        assertEquals(first.getCategoryId(), occurrence.getCategoryId());
+    }
+
+}
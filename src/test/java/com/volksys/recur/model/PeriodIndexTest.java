@@ -0,0 +1,88 @@
+package com.volksys.recur.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link PeriodIndex}.
+ */
+@SuppressWarnings({"PMD.JUnitTestContainsTooManyAsserts", "PMD.AvoidInstantiatingObjectsInLoops"})
+public class PeriodIndexTest {
+
+    /** Every day of a year of monthly periods is routed to its month. */
+    @Test
+    @DisplayName("Dates are located in the month containing them")
+    public void testMonthlyPeriods() {
+        List<LocalDateRange> months = new ArrayList<>();
+        for (int month = 1; month <= 12; month++) {
+            LocalDate start = LocalDate.of(2017, month, 1);
+            months.add(new LocalDateRange(start, start.plusMonths(1)));
+        }
+        PeriodIndex index = new PeriodIndex(months);
+        for (LocalDate date = LocalDate.of(2017, 1, 1); date.getYear() == 2017; date = date.plusDays(1)) {
+            assertEquals(date.getMonthValue() - 1, index.indexOf(date));
+        }
+        assertEquals(-1, index.indexOf(LocalDate.of(2016, 12, 31)));
+        assertEquals(-1, index.indexOf(LocalDate.of(2018, 1, 1)));
+    }
+
+    /** Positions refer to the order in which periods were supplied, not their chronological order. */
+    @Test
+    @DisplayName("Positions refer to the supplied order of periods")
+    public void testUnsortedPeriods() {
+        LocalDate start = LocalDate.of(2017, 1, 1);
+        LocalDateRange first = new LocalDateRange(start, start.plusWeeks(2));
+        LocalDateRange second = new LocalDateRange(start.plusWeeks(2), start.plusWeeks(4));
+        PeriodIndex index = new PeriodIndex(Arrays.asList(second, first));
+        assertEquals(1, index.indexOf(start));
+        assertEquals(0, index.indexOf(start.plusWeeks(3)));
+        assertEquals(start, index.getSpan().getStartInclusive());
+        assertEquals(start.plusWeeks(4), index.getSpan().getEndExclusive());
+        assertArrayEquals(new long[] {start.toEpochDay(), start.plusWeeks(2).toEpochDay()}, index.getStarts());
+        assertArrayEquals(new long[] {start.plusWeeks(2).toEpochDay(), start.plusWeeks(4).toEpochDay()},
+                index.getEnds());
+        assertArrayEquals(new int[] {1, 0}, index.getPositions());
+    }
+
+    /** Dates falling into gaps between periods, including across long spans, are not located. */
+    @Test
+    @DisplayName("Dates between periods are not located")
+    public void testGaps() {
+        LocalDateRange early = new LocalDateRange(LocalDate.of(1900, 1, 1), LocalDate.of(1900, 4, 1));
+        LocalDateRange late = new LocalDateRange(LocalDate.of(2100, 1, 1), LocalDate.of(2100, 4, 1));
+        PeriodIndex index = new PeriodIndex(Arrays.asList(early, late));
+        assertEquals(0, index.indexOf(LocalDate.of(1900, 3, 31)));
+        assertEquals(-1, index.indexOf(LocalDate.of(1900, 4, 1)));
+        assertEquals(-1, index.indexOf(LocalDate.of(2000, 1, 1)));
+        assertEquals(1, index.indexOf(LocalDate.of(2100, 1, 1)));
+        assertEquals(-1, index.indexOf(LocalDate.of(2100, 4, 1)));
+    }
+
+    /** Overlapping periods are rejected. */
+    @Test
+    @DisplayName("Constructor throws if periods overlap")
+    public void testOverlap() {
+        LocalDate start = LocalDate.of(2017, 1, 1);
+        LocalDateRange month = new LocalDateRange(start, start.plusMonths(1));
+        LocalDateRange week = new LocalDateRange(start.plusWeeks(1), start.plusWeeks(2));
+        assertThrows(IllegalArgumentException.class, () -> new PeriodIndex(Arrays.asList(month, week)));
+    }
+
+    /** An index requires at least one period. */
+    @Test
+    @DisplayName("Constructor throws if there are no periods")
+    public void testEmpty() {
+        assertThrows(IllegalArgumentException.class, () -> new PeriodIndex(Collections.emptyList()));
+    }
+
+}
@@ -5,13 +5,24 @@ import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
 import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Unit tests for {@link RecurringTransaction}.
  */
+@SuppressWarnings({"PMD.AvoidDuplicateLiterals", "PMD.JUnitTestContainsTooManyAsserts",
+        "PMD.AvoidInstantiatingObjectsInLoops", "PMD.TooManyMethods"})
 public class RecurringTransactionTest {
 
     /** Iterator returns the initial occurrence first. */
@@ -33,11 +44,220 @@ public class RecurringTransactionTest {
         Period period = Period.ofMonths(1);
         RecurringTransaction recurringTransaction = new RecurringTransaction("bar", 20, "foo", now, null, period);
         Iterator<Transaction> iterator = recurringTransaction.iterator();
-        LocalDate current = now;
         for (int i = 0; i < 3; i++) {
-            assertEquals(current, iterator.next().getDate());
-            current = current.plus(period);
+            assertEquals(now.plus(period.multipliedBy(i)), iterator.next().getDate());
         }
     }
 
+    /** Month-based schedules keep the day of month of the initial occurrence rather than drifting to month ends. */
+    @Test
+    @DisplayName("Month-based occurrences are anchored to the initial occurrence")
+    public void testAnchoredOccurrences() {
+        List<LocalDate> dates = new ArrayList<>();
+        for (Transaction transaction : new RecurringTransaction("bar", 20, "foo", LocalDate.of(2016, 1, 31),
+                LocalDate.of(2016, 5, 31), Period.ofMonths(1))) {
+            dates.add(transaction.getDate());
+        }
+        assertEquals(Arrays.asList(LocalDate.of(2016, 1, 31), LocalDate.of(2016, 2, 29), LocalDate.of(2016, 3, 31),
+                LocalDate.of(2016, 4, 30), LocalDate.of(2016, 5, 31)), dates);
+        RecurringTransaction leapDay = new RecurringTransaction("bar", 20, "foo", LocalDate.of(2016, 2, 29), null,
+                Period.ofYears(1));
+        assertEquals(LocalDate.of(2017, 2, 28), leapDay.firstOccurrenceOnOrAfter(LocalDate.of(2017, 1, 1)));
+        assertEquals(LocalDate.of(2020, 2, 29), leapDay.firstOccurrenceOnOrAfter(LocalDate.of(2019, 3, 1)));
+        assertEquals(1, leapDay.countOccurrencesIn(new LocalDateRange(LocalDate.of(2020, 2, 29),
+                LocalDate.of(2020, 3, 1))));
+    }
+
+    /** Seeking to a date on or before the initial occurrence yields the initial occurrence. */
+    @Test
+    @DisplayName("First occurrence on or after an early date is the initial occurrence")
+    public void testFirstOccurrenceBeforeInitial() {
+        LocalDate start = LocalDate.of(2016, 3, 15);
+        RecurringTransaction recurringTransaction = new RecurringTransaction("bar", 20, "foo", start, null,
+                Period.ofWeeks(2));
+        assertEquals(start, recurringTransaction.firstOccurrenceOnOrAfter(start.minusYears(3)));
+        assertEquals(start, recurringTransaction.firstOccurrenceOnOrAfter(start));
+    }
+
+    /** Seeking past the final occurrence yields nothing. */
+    @Test
+    @DisplayName("First occurrence after the final occurrence is null")
+    public void testFirstOccurrenceAfterFinal() {
+        LocalDate start = LocalDate.of(2016, 3, 15);
+        RecurringTransaction recurringTransaction = new RecurringTransaction("bar", 20, "foo", start,
+                start.plusMonths(5), Period.ofMonths(1));
+        assertEquals(start.plusMonths(5), recurringTransaction.firstOccurrenceOnOrAfter(start.plusMonths(5)));
+        assertNull(recurringTransaction.firstOccurrenceOnOrAfter(start.plusMonths(5).plusDays(1)));
+    }
+
+    /** Seeking agrees with adding whole multiples of the period to the initial occurrence. */
+    @Test
+    @DisplayName("First occurrence on or after a date matches multiples of the period")
+    public void testFirstOccurrenceMatchesStepping() {
+        LocalDate[] starts = {LocalDate.of(1995, 1, 31), LocalDate.of(1996, 2, 29), LocalDate.of(1997, 3, 31),
+            LocalDate.of(1998, 7, 4)};
+        Period[] periods = {Period.ofDays(1), Period.ofDays(3), Period.ofWeeks(2), Period.ofMonths(1),
+            Period.ofMonths(2), Period.ofMonths(14), Period.ofYears(1), Period.ofYears(4), Period.of(0, 1, 10)};
+        for (LocalDate start : starts) {
+            for (Period period : periods) {
+                RecurringTransaction recurringTransaction = new RecurringTransaction("bar", 20, "foo", start, null,
+                        period);
+                for (LocalDate date = start.minusDays(3); date.isBefore(start.plusYears(8)); date = date.plusDays(5)) {
+                    assertEquals(stepTo(start, period, date), recurringTransaction.firstOccurrenceOnOrAfter(date),
+                            start + " every " + period + " from " + date);
+                }
+            }
+        }
+    }
+
+    /** Periods with negative components step from each occurrence to the next, in whatever order they are sought. */
+    @Test
+    @DisplayName("Periods with negative components match repeated stepping")
+    public void testNegativeComponents() {
+        LocalDate start = LocalDate.of(1996, 1, 31);
+        for (Period period : new Period[] {Period.of(0, 1, -3), Period.of(0, 2, -1), Period.of(1, -1, 0)}) {
+            RecurringTransaction recurringTransaction = new RecurringTransaction("bar", 20, "foo", start, null,
+                    period);
+            List<LocalDate> expected = new ArrayList<>();
+            for (LocalDate date = start; date.getYear() < 2030; date = date.plus(period)) {
+                expected.add(date);
+            }
+            LocalDateRange range = new LocalDateRange(LocalDate.of(2020, 1, 1), LocalDate.of(2025, 1, 1));
+            List<LocalDate> dates = new ArrayList<>();
+            for (Transaction transaction : recurringTransaction.occurrencesIn(range)) {
+                dates.add(transaction.getDate());
+            }
+            assertEquals(expected.stream().filter(range::contains).collect(Collectors.toList()), dates,
+                    period.toString());
+            LocalDate[] sought = {LocalDate.of(2010, 6, 1), LocalDate.of(2010, 6, 2), LocalDate.of(2012, 1, 1),
+                LocalDate.of(1999, 3, 3), start, LocalDate.of(2028, 12, 31)};
+            for (LocalDate date : sought) {
+                LocalDate first = expected.stream().filter(occurrence -> !occurrence.isBefore(date)).findFirst()
+                        .orElse(null);
+                assertEquals(first, recurringTransaction.firstOccurrenceOnOrAfter(date), period + " from " + date);
+            }
+        }
+    }
+
+    /** Range queries return exactly the occurrences within the range. */
+    @Test
+    @DisplayName("occurrencesIn returns only occurrences within the range")
+    public void testOccurrencesIn() {
+        RecurringTransaction recurringTransaction = new RecurringTransaction("bar", 20, "foo",
+                LocalDate.of(1995, 1, 31), null, Period.ofDays(1));
+        LocalDateRange range = new LocalDateRange(LocalDate.of(2017, 1, 1), LocalDate.of(2018, 1, 1));
+        List<LocalDate> dates = new ArrayList<>();
+        for (Transaction transaction : recurringTransaction.occurrencesIn(range)) {
+            dates.add(transaction.getDate());
+        }
+        assertEquals(365, dates.size());
+        assertEquals(range.getStartInclusive(), dates.get(0));
+        assertEquals(LocalDate.of(2017, 12, 31), dates.get(dates.size() - 1));
+    }
+
+    /** Counting occurrences in a range agrees with iterating over them. */
+    @Test
+    @DisplayName("countOccurrencesIn matches the number of occurrences iterated")
+    public void testCountOccurrencesIn() {
+        LocalDate start = LocalDate.of(1996, 1, 31);
+        Period[] periods = {Period.ofDays(1), Period.ofWeeks(2), Period.ofMonths(1), Period.ofYears(1),
+            Period.of(0, 1, 10)};
+        for (Period period : periods) {
+            for (LocalDate end : new LocalDate[] {null, LocalDate.of(2017, 5, 31)}) {
+                RecurringTransaction recurringTransaction = new RecurringTransaction("bar", 20, "foo", start, end,
+                        period);
+                for (LocalDate date = start.minusMonths(2); date.getYear() < 2019; date = date.plusDays(41)) {
+                    LocalDateRange range = new LocalDateRange(date, date.plusDays(90));
+                    long expected = 0;
+                    for (Iterator<Transaction> i = recurringTransaction.occurrencesIn(range).iterator(); i.hasNext();) {
+                        i.next();
+                        expected++;
+                    }
+                    assertEquals(expected, recurringTransaction.countOccurrencesIn(range), period + " in " + date);
+                }
+            }
+        }
+    }
+
+    /** Streams over a horizon are finite, exactly sized and yield the same occurrences in parallel. */
+    @Test
+    @DisplayName("stream is bounded by its range, sized and splittable")
+    public void testStream() {
+        LocalDateRange range = new LocalDateRange(LocalDate.of(2017, 1, 1), LocalDate.of(2047, 1, 1));
+        Period[] periods = {Period.ofDays(1), Period.ofWeeks(2), Period.ofMonths(1), Period.of(0, 1, 10),
+            Period.of(0, 2, -1)};
+        for (Period period : periods) {
+            RecurringTransaction recurringTransaction = new RecurringTransaction("bar", 20, "foo",
+                    LocalDate.of(1996, 1, 31), null, period);
+            List<LocalDate> expected = new ArrayList<>();
+            for (Transaction transaction : recurringTransaction.occurrencesIn(range)) {
+                expected.add(transaction.getDate());
+            }
+            Spliterator<Transaction> spliterator = recurringTransaction.stream(range).spliterator();
+            assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+            assertEquals(expected.size(), spliterator.getExactSizeIfKnown());
+            assertEquals(expected, recurringTransaction.stream(range).map(Transaction::getDate)
+                    .collect(Collectors.toList()), period.toString());
+            assertEquals(expected, recurringTransaction.stream(range).parallel().map(Transaction::getDate)
+                    .collect(Collectors.toList()), period.toString());
+            assertEquals(expected.size() * 20L, recurringTransaction.stream(range).parallel()
+                    .mapToLong(Transaction::getAmount).sum());
+        }
+    }
+
+    /** The spliterator of an open-ended transaction is unsized but splits into sized, finite prefixes. */
+    @Test
+    @DisplayName("spliterator of an open-ended transaction splits into finite prefixes")
+    public void testOpenEndedSpliterator() {
+        LocalDate start = LocalDate.of(2017, 1, 1);
+        Spliterator<Transaction> open = new RecurringTransaction("bar", 20, "foo", start, null, Period.ofDays(1))
+                .spliterator();
+        assertFalse(open.hasCharacteristics(Spliterator.SIZED));
+        assertEquals(Long.MAX_VALUE, open.estimateSize());
+        Spliterator<Transaction> prefix = open.trySplit();
+        assertTrue(prefix.hasCharacteristics(Spliterator.SIZED));
+        assertTrue(prefix.tryAdvance(transaction -> assertEquals(start, transaction.getDate())));
+        assertTrue(open.tryAdvance(transaction -> assertEquals(start.plusDays(prefix.estimateSize() + 1),
+                transaction.getDate())));
+        for (Period period : new Period[] {Period.ofWeeks(1), Period.ofMonths(1)}) {
+            RecurringTransaction endless = new RecurringTransaction("bar", 20, "foo", start, null, period);
+            Spliterator<Transaction> suffix = endless.spliterator();
+            long skipped = suffix.trySplit().estimateSize() + suffix.trySplit().estimateSize();
+            assertTrue(suffix.tryAdvance(transaction -> assertEquals(start.plus(period.multipliedBy((int) skipped)),
+                    transaction.getDate())));
+            assertEquals(5000, StreamSupport.stream(endless.spliterator(), true).limit(5000)
+                    .map(Transaction::getDate).distinct().count(), period.toString());
+        }
+        Spliterator<Transaction> closed = new RecurringTransaction("bar", 20, "foo", start, start.plusDays(9),
+                Period.ofDays(1)).spliterator();
+        assertEquals(10, closed.getExactSizeIfKnown());
+        Spliterator<Transaction> half = closed.trySplit();
+        assertEquals(5, half.estimateSize());
+        assertEquals(5, closed.estimateSize());
+        closed.forEachRemaining(transaction -> assertTrue(!transaction.getDate().isBefore(start.plusDays(5))));
+        assertFalse(closed.tryAdvance(transaction -> { }));
+    }
+
+    /** Recurring transactions without a description are compared like any other. */
+    @Test
+    @DisplayName("equals tolerates a missing description")
+    public void testEqualsWithoutDescription() {
+        LocalDate start = LocalDate.of(2017, 1, 1);
+        RecurringTransaction unnamed = new RecurringTransaction(null, 20, "foo", start, null, Period.ofDays(1));
+        RecurringTransaction named = new RecurringTransaction("bar", 20, "foo", start, null, Period.ofDays(1));
+        assertEquals(unnamed, new RecurringTransaction(null, 20, "foo", start, null, Period.ofDays(1)));
+        assertEquals(unnamed.hashCode(), new RecurringTransaction(null, 20, "foo", start, null,
+                Period.ofDays(1)).hashCode());
+        assertFalse(unnamed.equals(named));
+        assertFalse(named.equals(unnamed));
+    }
+
+    private LocalDate stepTo(LocalDate start, Period period, LocalDate date) {
+        LocalDate current = start;
+        for (int steps = 1; current.isBefore(date); steps++) {
+            current = start.plus(period.multipliedBy(steps));
+        }
+        return current;
+    }
+
 }
@@ -0,0 +1,85 @@
+package com.volksys.recur.report;
+
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.LocalDateRange;
+import com.volksys.recur.model.Retention;
+import com.volksys.recur.model.Transaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for the {@link ReportRenderer}s.
+ */
+@SuppressWarnings({"PMD.AvoidDuplicateLiterals", "PMD.JUnitTestContainsTooManyAsserts"})
+public class ReportRendererTest {
+    private static final LocalDate START = LocalDate.of(2017, 3, 1);
+    private static final String NL = System.lineSeparator();
+
+    /** The text report lists each category's total and transactions, formatting amounts as before. */
+    @Test
+    @DisplayName("Text reports list totals and transactions")
+    public void testText() throws IOException {
+        assertEquals("2017-03-01 - 2017-03-31" + NL + "=======================" + NL
+                + "  Food: $.50" + NL + "  - - - - - - - - - - - - - -" + NL
+                + "  2017-03-05 Tip $.50" + NL + NL + NL
+                + "  Misc, other: -$1234.05" + NL + "  - - - - - - - - - - - - - -" + NL
+                + "  2017-03-01 Refund \"big\" -$1234.05" + NL + NL + NL + NL + NL,
+                render(ReportFormat.TEXT, budget(Retention.TRANSACTIONS)));
+        assertEquals("2017-03-01 - 2017-03-31" + NL + "=======================" + NL
+                + "  Food: $.50 (1 transactions)" + NL + "  Misc, other: -$1234.05 (1 transactions)" + NL + NL + NL,
+                render(ReportFormat.TEXT, budget(Retention.TOTALS)));
+    }
+
+    /** The CSV report has a total row per category followed by its transactions, quoting fields as needed. */
+    @Test
+    @DisplayName("CSV reports have total and transaction rows")
+    public void testCsv() throws IOException {
+        assertEquals("Start,End,Category,Date,Description,Amount,Count\r\n"
+                + "2017-03-01,2017-03-31,Food,,,0.50,1\r\n"
+                + "2017-03-01,2017-03-31,Food,2017-03-05,Tip,0.50,1\r\n"
+                + "2017-03-01,2017-03-31,\"Misc, other\",,,-1234.05,1\r\n"
+                + "2017-03-01,2017-03-31,\"Misc, other\",2017-03-01,\"Refund \"\"big\"\"\",-1234.05,1\r\n",
+                render(ReportFormat.CSV, budget(Retention.TRANSACTIONS)));
+        assertEquals("Start,End,Category,Date,Description,Amount,Count\r\n", render(ReportFormat.CSV));
+    }
+
+    /** The JSON report nests categories and transactions within periods, escaping strings. */
+    @Test
+    @DisplayName("JSON reports nest categories within periods")
+    public void testJson() throws IOException {
+        assertEquals("[\n{\"start\":\"2017-03-01\",\"end\":\"2017-04-01\",\"categories\":["
+                + "\n{\"name\":\"Food\",\"total\":0.50,\"count\":1}"
+                + ",\n{\"name\":\"Misc, other\",\"total\":-1234.05,\"count\":1}]},\n"
+                + "{\"start\":\"2017-03-01\",\"end\":\"2017-04-01\",\"categories\":["
+                + "\n{\"name\":\"Food\",\"total\":0.50,\"count\":1,\"transactions\":["
+                + "\n{\"date\":\"2017-03-05\",\"description\":\"Tip\",\"amount\":0.50}]}"
+                + ",\n{\"name\":\"Misc, other\",\"total\":-1234.05,\"count\":1,\"transactions\":["
+                + "\n{\"date\":\"2017-03-01\",\"description\":\"Refund \\\"big\\\"\",\"amount\":-1234.05}]}]}\n]\n",
+                render(ReportFormat.JSON, budget(Retention.TOTALS), budget(Retention.TRANSACTIONS)));
+        assertEquals("[]\n", render(ReportFormat.JSON));
+    }
+
+    private static Budget budget(Retention retention) {
+        Budget budget = new Budget(new LocalDateRange(START, START.plusMonths(1)), retention);
+        budget.addTransaction(new Transaction("Refund \"big\"", -123_405, "Misc, other", START));
+        budget.addTransaction(new Transaction("Tip", 50, "Food", START.plusDays(4)));
+        return budget;
+    }
+
+    private static String render(ReportFormat format, Budget... budgets) throws IOException {
+        StringWriter out = new StringWriter();
+        ReportRenderer renderer = format.newRenderer(out);
+        for (Budget budget : budgets) {
+            renderer.renderPeriod(budget);
+        }
+        renderer.finish();
+        return out.toString();
+    }
+
+}
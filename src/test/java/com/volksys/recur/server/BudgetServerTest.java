@@ -0,0 +1,145 @@
+package com.volksys.recur.server;
+
+import com.volksys.recur.io.ScheduleLoader;
+import com.volksys.recur.model.Budget;
+import com.volksys.recur.model.Granularity;
+import com.volksys.recur.model.LocalDateRange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link BudgetServer} and {@link ProjectionCache}.
+ */
+@SuppressWarnings({"PMD.AvoidDuplicateLiterals", "PMD.JUnitTestContainsTooManyAsserts"})
+public class BudgetServerTest {
+    private static final String HEADER = "Description,Amount,Start,End,Period,Units,Category,Enabled\n";
+    private static final LocalDate START = LocalDate.of(2017, 1, 1);
+
+    private Path schedule;
+    private BudgetServer server;
+
+    /** Writes a schedule and serves it on a free port. */
+    @BeforeEach
+    public void setUp() throws IOException {
+        schedule = Files.createTempFile("schedule", ".csv");
+        write(HEADER + "Rent,1200.00,2015-01-01,,1,MONTHS,Home,TRUE\n"
+                + "Power,80,2017-01-05,,1,MONTHS,Home:Utilities,TRUE\n"
+                + "Coffee,3.5,2017-03-02,2017-03-11,1,DAYS,Food,TRUE\n");
+        server = new BudgetServer(schedule, path -> new ScheduleLoader().load(path),
+                new LocalDateRange(START, START.plusYears(1)), Granularity.MONTH, 2);
+        server.start(new InetSocketAddress("localhost", 0));
+    }
+
+    /** Stops the server and deletes the schedule. */
+    @AfterEach
+    public void tearDown() throws IOException {
+        server.stop();
+        Files.delete(schedule);
+    }
+
+    /** Projections are answered as JSON, filtered by period and category. */
+    @Test
+    @DisplayName("Projections are served as JSON")
+    public void testQuery() throws IOException {
+        String all = get("");
+        assertTrue(all.startsWith("[\n{\"start\":\"2017-01-01\",\"end\":\"2017-02-01\""));
+        assertEquals(12, all.split("\"start\"").length - 1);
+        String march = get("?date=2017-03-15&category=Home");
+        assertEquals("[\n{\"start\":\"2017-03-01\",\"end\":\"2017-04-01\",\"categories\":["
+                + "\n{\"name\":\"Home\",\"total\":1200.00,\"count\":1},"
+                + "\n{\"name\":\"Home:Utilities\",\"total\":80.00,\"count\":1}]}\n]\n", march);
+        String food = get("?start=2017-03-01&years=1&granularity=quarter&category=Food");
+        assertTrue(food.contains("{\"name\":\"Food\",\"total\":35.00,\"count\":10}"));
+        assertFalse(food.contains("Home"));
+        assertEquals(400, status("?granularity=fortnight"));
+        assertEquals(400, status("?start=2017-02-30"));
+        assertEquals(400, status("?years=1000"));
+    }
+
+    /** Projections are cached until the schedule changes, and the least recently used is evicted first. */
+    @Test
+    @DisplayName("Projections are cached per schedule version")
+    public void testCache() throws IOException {
+        get("");
+        get("?granularity=quarter");
+        assertEquals(2, server.getCache().size());
+        get("?granularity=year");
+        assertEquals(2, server.getCache().size());
+        write(HEADER + "Rent,1300.00,2015-01-01,,1,MONTHS,Home,TRUE\n");
+        String raised = get("?date=2017-01-01");
+        assertEquals(1, server.getCache().size());
+        assertTrue(raised.contains("{\"name\":\"Home\",\"total\":1300.00,\"count\":1}"));
+        HttpURLConnection connection = open("");
+        assertEquals("\"2\"", connection.getHeaderField("ETag"));
+        connection.disconnect();
+    }
+
+    /** The cache keeps the most recently used projections up to its capacity. */
+    @Test
+    @DisplayName("The projection cache evicts the least recently used projection")
+    public void testLeastRecentlyUsed() {
+        ProjectionCache cache = new ProjectionCache(2);
+        LocalDateRange horizon = new LocalDateRange(START, START.plusYears(1));
+        List<Budget> month = cache.get(1, horizon, Granularity.MONTH, ArrayList::new);
+        cache.get(1, horizon, Granularity.YEAR, ArrayList::new);
+        assertSame(month, cache.get(1, horizon, Granularity.MONTH, ArrayList::new));
+        cache.get(2, horizon, Granularity.MONTH, ArrayList::new);
+        assertSame(month, cache.get(1, horizon, Granularity.MONTH, ArrayList::new));
+        List<Budget> year = new ArrayList<>();
+        assertSame(year, cache.get(1, horizon, Granularity.YEAR, () -> year));
+    }
+
+    private void write(String csv) throws IOException {
+        Files.write(schedule, csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private HttpURLConnection open(String query) throws IOException {
+        URL url = new URL("http", "localhost", server.getAddress().getPort(), BudgetServer.CONTEXT + query);
+        return (HttpURLConnection) url.openConnection();
+    }
+
+    private int status(String query) throws IOException {
+        HttpURLConnection connection = open(query);
+        try {
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private String get(String query) throws IOException {
+        HttpURLConnection connection = open(query);
+        try (InputStream in = connection.getInputStream()) {
+            assertEquals(200, connection.getResponseCode());
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                body.write(buffer, 0, read);
+            }
+            return new String(body.toByteArray(), StandardCharsets.UTF_8);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+}